@@ -0,0 +1,92 @@
+#!/usr/bin/env bash
+# Time to first request and resident memory of the service, for each way of starting it:
+#
+#   jar           java -jar on the fat jar, as the image ran before
+#   cds           extracted jar with a CDS archive from a training run
+#   aot-cds       additionally processed by Spring AOT (-Paot, -Dspring.aot.enabled=true), as the image runs now
+#   aot-cds-lazy  additionally with LAZY_INIT=true
+#   native        GraalVM native executable (-Pnative native:compile), only if native-image is on the PATH
+#
+# Needs a running PostgreSQL, for example:
+#   docker run -d -p 5432:5432 -e POSTGRES_PASSWORD=postgres postgres:16
+#   SPRING_DATASOURCE_URL=jdbc:postgresql://localhost:5432/postgres SPRING_DATASOURCE_USERNAME=postgres \
+#       SPRING_DATASOURCE_PASSWORD=postgres scripts/measure-startup.sh [runs]
+#
+# Time to first request runs from launching the process until GET /users?limit=1 answers 200. RSS is read
+# from /proc (Linux only) right after that request. Each value is the median over the runs (default 5).
+set -euo pipefail
+
+RUNS=${1:-5}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+WORK=${TMPDIR:-/tmp}/user-management-startup
+JAR=user-management-service-0.0.1-SNAPSHOT.jar
+export SERVER_PORT=${SERVER_PORT:-18080}
+export MAIL_LINK_BASE_URL=${MAIL_LINK_BASE_URL:-http://localhost:3000}
+: "${SPRING_DATASOURCE_URL:?must point at a running PostgreSQL}"
+
+# Builds the jar with the given Maven arguments and extracts it into $WORK/<name>
+build() {
+    local name=$1
+    shift
+    (cd "$ROOT" && ./mvnw -B -q clean package -DskipTests "$@" > /dev/null)
+    rm -rf "${WORK:?}/$name"
+    mkdir -p "$WORK"
+    cp "$ROOT/target/$JAR" "$WORK/$name.jar"
+    java -Djarmode=tools -jar "$WORK/$name.jar" extract --destination "$WORK/$name" --application-filename application.jar
+}
+
+# Training run like in the Dockerfile: refresh the context without a database, record the loaded classes
+train() {
+    local name=$1
+    shift
+    (cd "$WORK/$name" && java -XX:ArchiveClassesAtExit=application.jsa -Dspring.context.exit=onRefresh \
+        -Dspring.profiles.active=cds-training "$@" -jar application.jar > training.log 2>&1)
+}
+
+median() {
+    sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }'
+}
+
+# Starts the command in the given directory RUNS times and prints the median time and RSS
+measure() {
+    local label=$1 dir=$2
+    shift 2
+    local times=() rss=()
+    for ((run = 0; run < RUNS; run++)); do
+        local start pid
+        start=$(date +%s%N)
+        (cd "$dir" && exec "$@") > "$WORK/$label.log" 2>&1 &
+        pid=$!
+        until curl -fs -o /dev/null "http://localhost:$SERVER_PORT/users?limit=1"; do
+            if ! kill -0 "$pid" 2> /dev/null; then
+                echo "$label did not start, see $WORK/$label.log" >&2
+                exit 1
+            fi
+            sleep 0.02
+        done
+        times+=($((($(date +%s%N) - start) / 1000000)))
+        rss+=($(awk '/VmRSS/ { print int($2 / 1024) }' "/proc/$pid/status"))
+        kill "$pid"
+        wait "$pid" || true
+    done
+    printf '%-14s %10s ms %8s MB\n' "$label" \
+        "$(printf '%s\n' "${times[@]}" | median)" "$(printf '%s\n' "${rss[@]}" | median)"
+}
+
+build jit
+train jit
+build aot -Paot
+train aot -Dspring.aot.enabled=true
+
+printf '%-14s %13s %11s\n' variant first-request rss
+measure jar "$WORK" java -jar jit.jar
+measure cds "$WORK/jit" java -XX:SharedArchiveFile=application.jsa -jar application.jar
+measure aot-cds "$WORK/aot" java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true -jar application.jar
+measure aot-cds-lazy "$WORK/aot" env LAZY_INIT=true \
+    java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true -jar application.jar
+
+if command -v native-image > /dev/null; then
+    (cd "$ROOT" && ./mvnw -B -q clean -Pnative native:compile -DskipTests > /dev/null)
+    cp "$ROOT/target/user-management-service" "$WORK/native"
+    measure native "$WORK" ./native
+fi
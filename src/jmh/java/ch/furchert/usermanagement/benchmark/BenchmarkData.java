@@ -0,0 +1,50 @@
+package ch.furchert.usermanagement.benchmark;
+
+import ch.furchert.usermanagement.dto.request.CreateUserRequest;
+import ch.furchert.usermanagement.entity.Role;
+import ch.furchert.usermanagement.entity.Status;
+import ch.furchert.usermanagement.entity.User;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Fixtures shared by the benchmarks.
+ */
+public final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    public static User user(long id) {
+        Date now = new Date();
+        return User.builder()
+                .id(id)
+                .username("user" + id)
+                .email("user" + id + "@example.com")
+                .passwordHash("$2y$10$abcdefghijklmnopqrstuuH7Ojm0Z0x3JHdQeRy6bSUgBTGh0eTy")
+                .role(Role.USER)
+                .status(Status.ACTIVE)
+                .created(now)
+                .updated(now)
+                .lastLogin(now)
+                .build();
+    }
+
+    public static List<User> users(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            users.add(user(i));
+        }
+        return users;
+    }
+
+    public static CreateUserRequest createUserRequest(String username) {
+        CreateUserRequest request = new CreateUserRequest();
+        request.setUsername(username);
+        request.setEmail(username + "@example.com");
+        request.setPassword("password123");
+        return request;
+    }
+}
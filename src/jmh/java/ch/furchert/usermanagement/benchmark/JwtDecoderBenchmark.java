@@ -0,0 +1,103 @@
+package ch.furchert.usermanagement.benchmark;
+
+import ch.furchert.usermanagement.config.JwtProperties;
+import ch.furchert.usermanagement.security.CachingJwtDecoder;
+import ch.furchert.usermanagement.security.IssuerJwtDecoder;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of bearer token validation: a full RS256 signature and claims check against
+ * cached keys, and a repeated token answered from {@link CachingJwtDecoder}. The keys come from a
+ * key set served on a local port.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class JwtDecoderBenchmark {
+
+    private HttpServer keySet;
+    private IssuerJwtDecoder issuer;
+    private CachingJwtDecoder cached;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        RSAKey key = new RSAKeyGenerator(2048).keyID("benchmark").generate();
+        byte[] body = new JWKSet(key.toPublicJWK()).toString().getBytes(StandardCharsets.UTF_8);
+        keySet = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        keySet.createContext("/jwks", exchange -> {
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        keySet.start();
+
+        JwtProperties properties = new JwtProperties(true, Duration.ofHours(1), Duration.ofMinutes(1),
+                Duration.ofMillis(100), Duration.ofSeconds(2), 10_000);
+        issuer = new IssuerJwtDecoder(null, "http://localhost:" + keySet.getAddress().getPort() + "/jwks",
+                List.of("RS256"), properties);
+        issuer.start();
+        while (!issuer.isReady()) {
+            Thread.sleep(10);
+        }
+        cached = new CachingJwtDecoder(issuer, properties.tokenCacheSize(), new SimpleMeterRegistry());
+
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("benchmark").build(),
+                new JWTClaimsSet.Builder()
+                        .subject("benchmark")
+                        .expirationTime(Date.from(Instant.now().plus(Duration.ofHours(1))))
+                        .build());
+        jwt.sign(new RSASSASigner(key));
+        token = jwt.serialize();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        issuer.close();
+        keySet.stop(0);
+    }
+
+    @Benchmark
+    public Jwt validate() {
+        return issuer.decode(token);
+    }
+
+    @Benchmark
+    public Jwt validateCached() {
+        return cached.decode(token);
+    }
+}
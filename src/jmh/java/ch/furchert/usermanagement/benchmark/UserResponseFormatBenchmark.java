@@ -0,0 +1,90 @@
+package ch.furchert.usermanagement.benchmark;
+
+import ch.furchert.usermanagement.config.ResponseFormatConfig;
+import ch.furchert.usermanagement.dto.response.UserResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 10,000 {@code UserResponse}s in each response format, as written by {@code GET /users} and the
+ * stream, plain and gzipped as Tomcat's compression would (default deflate level). Bytes on the wire
+ * are printed once per format at setup; the buffer is reused so only encoding is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserResponseFormatBenchmark {
+
+    private static final int USERS = 10_000;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private List<UserResponse> users;
+    private ObjectWriter writer;
+    private ByteArrayOutputStream buffer;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = switch (format) {
+            case "cbor" -> ResponseFormatConfig.cborMapper(Jackson2ObjectMapperBuilder.json());
+            case "smile" -> ResponseFormatConfig.smileMapper(Jackson2ObjectMapperBuilder.json());
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, UserResponse.class));
+        users = BenchmarkData.users(USERS).stream()
+                .map(user -> UserResponse.builder()
+                        .username(user.getUsername())
+                        .email(user.getEmail())
+                        .role(user.getRole().name())
+                        .userStatus(user.getStatus().name())
+                        .created(user.getCreated())
+                        .updated(user.getUpdated())
+                        .lastLogin(user.getLastLogin())
+                        .build())
+                .toList();
+        buffer = new ByteArrayOutputStream(4 << 20);
+
+        int plain = serialize();
+        int gzip = serializeGzip();
+        System.out.printf("%n%s: %,d bytes, %,d bytes gzipped for %,d users%n", format, plain, gzip, USERS);
+    }
+
+    @Benchmark
+    public int serialize() throws IOException {
+        buffer.reset();
+        writer.writeValue(buffer, users);
+        return buffer.size();
+    }
+
+    @Benchmark
+    public int serializeGzip() throws IOException {
+        buffer.reset();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer, 8192)) {
+            writer.writeValue(gzip, users);
+        }
+        return buffer.size();
+    }
+}
@@ -0,0 +1,97 @@
+package ch.furchert.usermanagement.benchmark;
+
+import ch.furchert.usermanagement.UserManagementServiceApplication;
+import ch.furchert.usermanagement.dto.UserDto;
+import ch.furchert.usermanagement.dto.UserView;
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code UserServiceImpl} CRUD paths end to end through JPA, against the embedded PostgreSQL of
+ * the test profile. The cache is disabled so reads measure the database path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceCrudBenchmark {
+
+    private static final int SEEDED_USERS = 1_000;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private List<Long> ids;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(UserManagementServiceApplication.class)
+                .profiles("test")
+                .properties("server.port=0", "spring.cache.type=none", "logging.level.root=WARN")
+                .run();
+        userService = context.getBean(UserService.class);
+        ids = new ArrayList<>(SEEDED_USERS);
+        for (int i = 0; i < SEEDED_USERS; i++) {
+            ids.add(userService.createUser(BenchmarkData.createUserRequest("seed" + i)).getId());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public User getUserById() {
+        return userService.getUserById(randomId());
+    }
+
+    @Benchmark
+    public List<UserView> getUsersPage() {
+        return userService.getUsers(0L, 100);
+    }
+
+    @Benchmark
+    public User createAndDeleteUser() {
+        User user = userService.createUser(BenchmarkData.createUserRequest("bench" + sequence.incrementAndGet()));
+        userService.deleteUser(user.getId());
+        return user;
+    }
+
+    @Benchmark
+    public User updateUser() {
+        int index = ThreadLocalRandom.current().nextInt(ids.size());
+        long id = ids.get(index);
+        return userService.updateUser(id, UserDto.builder()
+                .username("seed" + index)
+                .email("updated" + id + "@example.com")
+                .role("USER")
+                .build(), null);
+    }
+
+    private long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
@@ -0,0 +1,111 @@
+package ch.furchert.usermanagement.controller;
+
+import ch.furchert.usermanagement.UserManagementServiceApplication;
+import ch.furchert.usermanagement.benchmark.BenchmarkData;
+import ch.furchert.usermanagement.dto.response.UserResponse;
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.repository.UserRepository;
+import ch.furchert.usermanagement.service.UserService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read endpoints from database row to {@link UserResponse}: managed entities in a read-write
+ * transaction (the former path) versus {@code UserView} projections in a read-only one.
+ * Run with {@code -prof gc} to compare allocation per response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserReadPathBenchmark {
+
+    private static final int SEEDED_USERS = 1_000;
+    private static final int PAGE_SIZE = 100;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private List<Long> ids;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(UserManagementServiceApplication.class)
+                .profiles("test")
+                .properties("server.port=0", "spring.cache.type=none", "logging.level.root=WARN")
+                .run();
+        UserService userService = context.getBean(UserService.class);
+        userRepository = context.getBean(UserRepository.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+                context.getBean(EntityManagerFactory.class));
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        ids = new ArrayList<>(SEEDED_USERS);
+        for (int i = 0; i < SEEDED_USERS; i++) {
+            ids.add(userService.createUser(BenchmarkData.createUserRequest("seed" + i)).getId());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserResponse byIdEntity() {
+        long id = randomId();
+        return transactionTemplate.execute(status ->
+                UserController.entityToUserResponse(entityManager.find(User.class, id)));
+    }
+
+    @Benchmark
+    public UserResponse byIdProjection() {
+        return UserController.viewToUserResponse(userRepository.findViewById(randomId()).orElseThrow());
+    }
+
+    @Benchmark
+    public List<UserResponse> pageEntity() {
+        return transactionTemplate.execute(status -> entityManager
+                .createQuery("select u from User u where u.id > :after order by u.id", User.class)
+                .setParameter("after", 0L)
+                .setMaxResults(PAGE_SIZE)
+                .getResultStream()
+                .map(UserController::entityToUserResponse)
+                .toList());
+    }
+
+    @Benchmark
+    public List<UserResponse> pageProjection() {
+        return userRepository.findViewsAfter(0L, Limit.of(PAGE_SIZE)).stream()
+                .map(UserController::viewToUserResponse)
+                .toList();
+    }
+
+    private long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
@@ -0,0 +1,41 @@
+package ch.furchert.usermanagement.controller;
+
+import ch.furchert.usermanagement.benchmark.BenchmarkData;
+import ch.furchert.usermanagement.dto.response.UserResponse;
+import ch.furchert.usermanagement.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link UserController#entityToUserResponse(User)}, paid once per user on every read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserResponseMappingBenchmark {
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = BenchmarkData.user(42);
+    }
+
+    @Benchmark
+    public UserResponse entityToUserResponse() {
+        return UserController.entityToUserResponse(user);
+    }
+}
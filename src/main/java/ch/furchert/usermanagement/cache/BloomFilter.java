@@ -0,0 +1,88 @@
+package ch.furchert.usermanagement.cache;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Bloom filter over strings in a flat {@code long[]} bit array: about 9.6 bits per entry at a 1%
+ * false-positive rate, and no object per entry.
+ * <p>
+ * Lookups are lock-free and may run concurrently with {@link #put}, which sets bits atomically;
+ * an entry is visible to every lookup that starts after its {@code put} returned. Entries cannot
+ * be removed.
+ */
+public final class BloomFilter {
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] words;
+    private final long bitSize;
+    private final int hashFunctions;
+
+    private BloomFilter(long bitSize, int hashFunctions) {
+        this.words = new long[Math.toIntExact((bitSize + 63) / 64)];
+        this.bitSize = (long) words.length * 64;
+        this.hashFunctions = hashFunctions;
+    }
+
+    /**
+     * Sized for {@code expectedEntries} at the given false-positive rate; more entries raise the
+     * rate.
+     */
+    public static BloomFilter create(long expectedEntries, double falsePositiveRate) {
+        long entries = Math.max(1, expectedEntries);
+        long bits = (long) Math.ceil(-entries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int hashFunctions = Math.max(1, (int) Math.round((double) bits / entries * Math.log(2)));
+        return new BloomFilter(Math.max(64, bits), hashFunctions);
+    }
+
+    public void put(CharSequence value) {
+        long hash = hash(value);
+        long h1 = mix(hash);
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.unsignedMultiplyHigh(h1 + i * h2, bitSize);
+            WORDS.getAndBitwiseOrRelease(words, (int) (bit >>> 6), 1L << bit);
+        }
+    }
+
+    /**
+     * False means the value was definitely never put; true means it probably was.
+     */
+    public boolean mightContain(CharSequence value) {
+        long hash = hash(value);
+        long h1 = mix(hash);
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.unsignedMultiplyHigh(h1 + i * h2, bitSize);
+            if (((long) WORDS.getAcquire(words, (int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long byteSize() {
+        return (long) words.length * Long.BYTES;
+    }
+
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+
+    // 64-bit FNV-1a over the UTF-16 chars, spread by mix() into the two probe hashes
+    private static long hash(CharSequence value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    // Murmur3 fmix64 finalizer
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB93FE1A85A53L;
+        return hash ^ (hash >>> 33);
+    }
+}
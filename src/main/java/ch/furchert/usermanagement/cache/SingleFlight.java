@@ -0,0 +1,107 @@
+package ch.furchert.usermanagement.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Lets concurrent loads of the same key share one call: the first caller runs the loader, callers
+ * that arrive while it runs wait for its result or exception instead of running their own.
+ * Nothing is kept once the load completes, so this is no cache; it only collapses a burst of
+ * identical lookups, e.g. a fleet of clients reconnecting at once, into one query.
+ * <p>
+ * Waiting is bounded by {@code maxWait}: a caller still waiting after that runs the loader
+ * itself. Waiting parks the thread without holding a monitor, so virtual threads stay unpinned.
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Duration maxWait;
+    private final UnaryOperator<V> share;
+    private final Counter loaded;
+    private final Counter shared;
+    private final Counter timedOut;
+
+    /**
+     * @param share         gives a waiting caller its copy of the result, e.g. for mutable entities
+     * @param meterRegistry where {@code user.lookups} is counted, may be {@code null}
+     */
+    public SingleFlight(String lookup, Duration maxWait, UnaryOperator<V> share, MeterRegistry meterRegistry) {
+        this.maxWait = maxWait;
+        this.share = share;
+        this.loaded = counter(meterRegistry, lookup, "loaded");
+        this.shared = counter(meterRegistry, lookup, "shared");
+        this.timedOut = counter(meterRegistry, lookup, "timed_out");
+    }
+
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+        if (running == null) {
+            increment(loaded);
+            try {
+                V value = loader.get();
+                flight.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, flight);
+            }
+        }
+        increment(shared);
+        try {
+            V value = running.get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+            return value == null ? null : share.apply(value);
+        } catch (ExecutionException e) {
+            // The loader's own exception, as if this caller had run it
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            increment(timedOut);
+            return loader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return loader.get();
+        }
+    }
+
+    /**
+     * Makes later calls for {@code key} start a new load instead of joining one that may have read
+     * the data before a change. Callers already waiting still get the running load's result.
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String lookup, String outcome) {
+        if (meterRegistry == null) {
+            return null;
+        }
+        return Counter.builder("user.lookups")
+                .description("User lookups that ran a query (loaded, timed_out) or shared one already running (shared)")
+                .tag("lookup", lookup)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package ch.furchert.usermanagement.cache;
+
+import ch.furchert.usermanagement.config.ReplicaProperties;
+import ch.furchert.usermanagement.config.ReplicaRoutingDataSource;
+import ch.furchert.usermanagement.config.UserLookupProperties;
+import ch.furchert.usermanagement.dto.UserView;
+import ch.furchert.usermanagement.entity.User;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Read-through cache for user lookups by id, username and email.
+ * <p>
+ * Holds {@link UserView} projections only, so password hashes never end up in the cache.
+ * <p>
+ * Backed by whatever {@link CacheManager} is configured (Caffeine by default, see
+ * {@code spring.cache.*}), so it can be moved to a shared store without touching callers.
+ * Any failure of the cache itself is logged and answered from the database.
+ * <p>
+ * With read replicas, a user evicted because it changed is loaded from the primary for
+ * {@code replicas.sticky-window}, so neither the writer nor the cache gets the state from before
+ * the change from a replica that has not replayed it yet. This covers the keys evicted on this
+ * instance only: other instances, and pages or searches here, may still read the replica.
+ * <p>
+ * Concurrent loads of the same key share one query ({@link SingleFlight}, {@code user-lookups.*}),
+ * with or without a cache and also for the uncached entity lookups of {@link #loadUser}. An evict
+ * makes later loads start a new query rather than join one that may predate the change.
+ * <p>
+ * Loads run outside the cache, so a load can read a row that is changed and evicted before its
+ * result is put. Every evict stamps its key's stripe with a new generation; a load that finds a
+ * stripe stamped after it started drops its result for that key instead of caching stale state.
+ */
+@Slf4j
+@Component
+public class UserCache {
+
+    public static final String BY_ID = "usersById";
+    public static final String BY_USERNAME = "usersByUsername";
+    public static final String BY_EMAIL = "usersByEmail";
+
+    private static final int MAX_RECENT_CHANGES = 100_000;
+    private static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(2);
+    private static final int EVICTION_STRIPES = 4096;
+
+    private final CacheManager cacheManager;
+    private final Map<ChangedKey, Boolean> recentlyChanged;
+    private final Map<String, SingleFlight<Object, UserView>> viewLoads;
+    private final Map<String, SingleFlight<Object, User>> userLoads;
+    private final AtomicLong evictions = new AtomicLong();
+    // Generation of the last evict per stripe of keys; a shared stripe only costs a cache miss
+    private final AtomicLongArray evictedAt = new AtomicLongArray(EVICTION_STRIPES);
+
+    public UserCache(CacheManager cacheManager) {
+        this(cacheManager, Duration.ZERO, new UserLookupProperties(true, DEFAULT_MAX_WAIT), null);
+    }
+
+    @Autowired
+    public UserCache(CacheManager cacheManager, ReplicaProperties replicas, UserLookupProperties lookups,
+                     MeterRegistry meterRegistry) {
+        this(cacheManager, replicas.enabled() ? replicas.stickyWindow() : Duration.ZERO, lookups, meterRegistry);
+    }
+
+    private UserCache(CacheManager cacheManager, Duration stickyWindow, UserLookupProperties lookups,
+                      MeterRegistry meterRegistry) {
+        this.cacheManager = cacheManager;
+        // Views are immutable and shared as they are; every caller gets its own entity to change
+        this.viewLoads = loads("view", lookups, view -> view, meterRegistry);
+        this.userLoads = loads("user", lookups, user -> user.toBuilder().build(), meterRegistry);
+        this.recentlyChanged = stickyWindow.isZero() ? null : Caffeine.newBuilder()
+                .expireAfterWrite(stickyWindow)
+                .maximumSize(MAX_RECENT_CHANGES)
+                .<ChangedKey, Boolean>build()
+                .asMap();
+    }
+
+    public UserView getById(Long id, Supplier<UserView> loader) {
+        return get(BY_ID, id, loader);
+    }
+
+    public UserView getByUsername(String username, Supplier<UserView> loader) {
+        return get(BY_USERNAME, username, loader);
+    }
+
+    public UserView getByEmail(String email, Supplier<UserView> loader) {
+        return get(BY_EMAIL, email, loader);
+    }
+
+    /**
+     * Loads a {@link User} entity without caching it, for callers that need the password hash or
+     * an entity to change. Concurrent lookups of the same key still share one query.
+     */
+    public User loadUser(String cacheName, Object key, Supplier<User> loader) {
+        return load(userLoads, cacheName, key, loader);
+    }
+
+    /**
+     * Drops every entry that may point at the given user.
+     */
+    public void evict(Long id, String username, String email) {
+        evict(BY_ID, id);
+        evict(BY_USERNAME, username);
+        evict(BY_EMAIL, email);
+    }
+
+    public void evict(User user) {
+        evict(user.getId(), user.getUsername(), user.getEmail());
+    }
+
+    /**
+     * Runs {@code lookup} on the primary if the user with this key changed within the sticky
+     * window, otherwise wherever its transaction is routed.
+     */
+    public <T> T readYourWrites(String cacheName, Object key, Supplier<T> lookup) {
+        if (recentlyChanged != null && key != null && recentlyChanged.containsKey(new ChangedKey(cacheName, key))) {
+            return ReplicaRoutingDataSource.onPrimary(lookup);
+        }
+        return lookup.get();
+    }
+
+    private UserView get(String cacheName, Object key, Supplier<UserView> loader) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null || key == null) {
+            return load(viewLoads, cacheName, key, loader);
+        }
+        Cache.ValueWrapper cached;
+        try {
+            cached = cache.get(key);
+        } catch (RuntimeException e) {
+            log.warn("Cache '{}' unavailable, falling back to database: {}", cacheName, e.getMessage());
+            return load(viewLoads, cacheName, key, loader);
+        }
+        if (cached != null && cached.get() instanceof UserView view) {
+            return view;
+        }
+        // Load outside the cache: Cache.get(key, loader) runs the loader inside a synchronized
+        // compute block, which would pin a virtual thread's carrier for the whole DB call
+        long loadStarted = evictions.get();
+        UserView view = load(viewLoads, cacheName, key, loader);
+        if (view != null) {
+            put(BY_ID, view.id(), view, loadStarted);
+            put(BY_USERNAME, view.username(), view, loadStarted);
+            put(BY_EMAIL, view.email(), view, loadStarted);
+        }
+        return view;
+    }
+
+    private <V> V load(Map<String, SingleFlight<Object, V>> loads, String cacheName, Object key, Supplier<V> loader) {
+        SingleFlight<Object, V> flight = loads.get(cacheName);
+        if (flight == null || key == null) {
+            return readYourWrites(cacheName, key, loader);
+        }
+        return flight.load(key, () -> readYourWrites(cacheName, key, loader));
+    }
+
+    private void put(String cacheName, Object key, UserView view, long loadStarted) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null || key == null || evictedSince(cacheName, key, loadStarted)) {
+            return;
+        }
+        try {
+            cache.putIfAbsent(key, view);
+            // An evict between the check and the put stamped the stripe before removing its
+            // entry, so it either removed this one or shows up here
+            if (evictedSince(cacheName, key, loadStarted)) {
+                cache.evict(key);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Cache '{}' put failed: {}", cacheName, e.getMessage());
+        }
+    }
+
+    private boolean evictedSince(String cacheName, Object key, long loadStarted) {
+        return evictedAt.get(stripe(cacheName, key)) > loadStarted;
+    }
+
+    private static int stripe(String cacheName, Object key) {
+        int hash = new ChangedKey(cacheName, key).hashCode();
+        return (hash ^ (hash >>> 16)) & (EVICTION_STRIPES - 1);
+    }
+
+    private void evict(String cacheName, Object key) {
+        if (recentlyChanged != null && key != null) {
+            recentlyChanged.put(new ChangedKey(cacheName, key), Boolean.TRUE);
+        }
+        if (key != null) {
+            // Before the entry goes, so that a load that read the old row cannot put it back
+            evictedAt.accumulateAndGet(stripe(cacheName, key), evictions.incrementAndGet(), Math::max);
+            forget(viewLoads, cacheName, key);
+            forget(userLoads, cacheName, key);
+        }
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null || key == null) {
+            return;
+        }
+        try {
+            cache.evict(key);
+        } catch (RuntimeException e) {
+            log.warn("Cache '{}' evict failed: {}", cacheName, e.getMessage());
+        }
+    }
+
+    private static void forget(Map<String, ? extends SingleFlight<Object, ?>> loads, String cacheName, Object key) {
+        SingleFlight<Object, ?> flight = loads.get(cacheName);
+        if (flight != null) {
+            flight.forget(key);
+        }
+    }
+
+    private static <V> Map<String, SingleFlight<Object, V>> loads(String type, UserLookupProperties lookups,
+                                                                  UnaryOperator<V> share, MeterRegistry meterRegistry) {
+        if (!lookups.coalesce()) {
+            return Map.of();
+        }
+        Duration maxWait = lookups.maxWait();
+        return Map.of(
+                BY_ID, new SingleFlight<>(type + "ById", maxWait, share, meterRegistry),
+                BY_USERNAME, new SingleFlight<>(type + "ByUsername", maxWait, share, meterRegistry),
+                BY_EMAIL, new SingleFlight<>(type + "ByEmail", maxWait, share, meterRegistry));
+    }
+
+    private record ChangedKey(String cacheName, Object key) {
+    }
+}
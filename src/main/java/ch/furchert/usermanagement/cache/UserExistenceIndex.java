@@ -0,0 +1,277 @@
+package ch.furchert.usermanagement.cache;
+
+import ch.furchert.usermanagement.config.UserIndexProperties;
+import ch.furchert.usermanagement.dto.UserChangeEvent;
+import ch.furchert.usermanagement.entity.ChangeType;
+import ch.furchert.usermanagement.repository.UserChangeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Existence index over the usernames and emails of all users: two {@link BloomFilter}s of the
+ * trimmed, lower-cased names, a few MB per million users.
+ * <p>
+ * A name the index has never seen is definitely not taken and is answered without a query. A name
+ * it may have seen is confirmed against the database, so false positives and the names of deleted
+ * users only cost the query the check would have made anyway.
+ * <p>
+ * Built on a background thread once the application is ready, by streaming {@code user_account},
+ * then kept current from the change log, which also carries the writes of other instances. Until
+ * the first build is done every check goes to the database. Names written by this instance are
+ * {@linkplain #add added} as soon as they commit; those of other instances reach the index within
+ * {@code user-index.refresh-interval} plus the change feed's publish interval. Signups themselves
+ * are guarded by the unique constraints, not by this index.
+ */
+@Slf4j
+@Component
+public class UserExistenceIndex {
+
+    private static final int CATCH_UP_BATCH = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserChangeRepository changeRepository;
+    private final UserIndexProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Counter negative;
+    private final Counter confirmed;
+    private final Counter falsePositive;
+    private final Timer buildTime;
+
+    // Builds and catch-ups run on the index thread, but may also be triggered directly
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Filters filters;
+    // Set while a rebuild reads user_account, so that local writes also reach the filters it builds
+    private volatile Filters building;
+    private long offset;
+    private ScheduledExecutorService executor;
+
+    public UserExistenceIndex(JdbcTemplate jdbcTemplate, UserChangeRepository changeRepository,
+                              UserIndexProperties properties, PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.changeRepository = changeRepository;
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.negative = check(meterRegistry, "negative");
+        this.confirmed = check(meterRegistry, "confirmed");
+        this.falsePositive = check(meterRegistry, "false_positive");
+        this.buildTime = Timer.builder("user.index.build")
+                .description("Time to build the existence index from user_account")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.enabled()) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("user-index").daemon().factory());
+        long refresh = properties.refreshInterval().toMillis();
+        long rebuild = properties.rebuildInterval().toMillis();
+        executor.execute(() -> run(this::rebuild));
+        executor.scheduleWithFixedDelay(() -> run(this::refresh), refresh, refresh, TimeUnit.MILLISECONDS);
+        executor.scheduleAtFixedRate(() -> run(this::rebuild), rebuild, rebuild, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Whether a user has this exact username: false right away if the index has never seen the
+     * name, otherwise whatever {@code database} says.
+     */
+    public boolean usernameExists(String username, BooleanSupplier database) {
+        return exists(mightContainUsername(username), database);
+    }
+
+    public boolean emailExists(String email, BooleanSupplier database) {
+        return exists(mightContainEmail(email), database);
+    }
+
+    /**
+     * False only if no user has this username, in any letter case.
+     */
+    public boolean mightContainUsername(String username) {
+        Filters current = filters;
+        return current == null || current.usernames().mightContain(normalize(username));
+    }
+
+    public boolean mightContainEmail(String email) {
+        Filters current = filters;
+        return current == null || current.emails().mightContain(normalize(email));
+    }
+
+    /**
+     * Adds the names of a user this instance just wrote, after the write committed, so that they
+     * are taken before the change log brings them.
+     */
+    public void add(String username, String email) {
+        // Rebuild first: if none is running, the write either committed before the next one reads
+        // user_account, or the last one has already replaced the filters read below
+        Filters rebuilding = building;
+        if (rebuilding != null) {
+            rebuilding.add(username, email);
+        }
+        Filters current = filters;
+        if (current != null) {
+            current.add(username, email);
+        }
+    }
+
+    public boolean isReady() {
+        return filters != null;
+    }
+
+    public long byteSize() {
+        Filters current = filters;
+        return current == null ? 0 : current.usernames().byteSize() + current.emails().byteSize();
+    }
+
+    public long entries() {
+        Filters current = filters;
+        return current == null ? 0 : current.entries().get();
+    }
+
+    /**
+     * Replaces the filters with new ones built from {@code user_account}, sized for twice the
+     * current number of users (at least {@code expected-users}).
+     */
+    public void rebuild() {
+        lock.lock();
+        try {
+            long start = System.nanoTime();
+            // Before the snapshot: whatever commits after it has a higher offset and is caught up below
+            long head = changeRepository.latestOffset();
+            Filters rebuilt;
+            try {
+                rebuilt = readOnlyTransaction.execute(status -> {
+                    Long users = jdbcTemplate.queryForObject("select count(*) from user_account", Long.class);
+                    building = Filters.create(Math.max(properties.expectedUsers(), 2 * users),
+                            properties.falsePositiveRate());
+                    jdbcTemplate.query(connection -> {
+                        PreparedStatement statement = connection.prepareStatement("select username, email from user_account");
+                        statement.setFetchSize(properties.fetchSize());
+                        return statement;
+                    }, rs -> {
+                        building.add(rs.getString(1), rs.getString(2));
+                    });
+                    return building;
+                });
+                offset = head;
+                catchUp(rebuilt);
+                filters = rebuilt;
+            } finally {
+                building = null;
+            }
+            long nanos = System.nanoTime() - start;
+            buildTime.record(nanos, TimeUnit.NANOSECONDS);
+            log.info("Existence index built: {} users in {} ms, {} KiB",
+                    rebuilt.entries().get(), TimeUnit.NANOSECONDS.toMillis(nanos), byteSize() / 1024);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the names of changes published since the last refresh. Rebuilds instead if changes
+     * were missed (older than the change log's retention) or the filters are over capacity.
+     */
+    public void refresh() {
+        lock.lock();
+        try {
+            Filters current = filters;
+            if (current == null) {
+                return;
+            }
+            if (!catchUp(current) || current.entries().get() > current.capacity()) {
+                rebuild();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean catchUp(Filters target) {
+        List<UserChangeEvent> changes;
+        do {
+            changes = changeRepository.findAfter(offset, CATCH_UP_BATCH);
+            if (!changes.isEmpty() && changes.getFirst().offset() != offset + 1) {
+                return false;
+            }
+            for (UserChangeEvent change : changes) {
+                if (change.type() == ChangeType.CREATED || change.type() == ChangeType.UPDATED) {
+                    target.add(change.username(), change.email());
+                }
+                offset = change.offset();
+            }
+        } while (changes.size() == CATCH_UP_BATCH);
+        return true;
+    }
+
+    private boolean exists(boolean mightExist, BooleanSupplier database) {
+        if (!mightExist) {
+            negative.increment();
+            return false;
+        }
+        boolean exists = database.getAsBoolean();
+        (exists ? confirmed : falsePositive).increment();
+        return exists;
+    }
+
+    private void run(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            log.warn("Existence index update failed, retrying with the next round", e);
+        }
+    }
+
+    private static Counter check(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("user.index.checks")
+                .tag("result", result)
+                .description("Username/email existence checks, by whether the index answered them")
+                .register(meterRegistry);
+    }
+
+    private static String normalize(String name) {
+        return name.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private record Filters(BloomFilter usernames, BloomFilter emails, long capacity, AtomicLong entries) {
+
+        static Filters create(long capacity, double falsePositiveRate) {
+            return new Filters(BloomFilter.create(capacity, falsePositiveRate),
+                    BloomFilter.create(capacity, falsePositiveRate), capacity, new AtomicLong());
+        }
+
+        void add(String username, String email) {
+            usernames.put(normalize(username));
+            emails.put(normalize(email));
+            entries.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package ch.furchert.usermanagement.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Bulk status changes and deletes are configured under {@code user-bulk.*}.
+ */
+@Configuration
+@EnableConfigurationProperties(UserBulkProperties.class)
+public class BulkOperationConfig {
+}
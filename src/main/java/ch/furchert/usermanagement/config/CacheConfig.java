@@ -0,0 +1,16 @@
+package ch.furchert.usermanagement.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables Spring Boot's cache auto-configuration; caches and their limits are declared under
+ * {@code spring.cache.*} in {@code application.properties}. The existence index is configured
+ * under {@code user-index.*}, the coalescing of concurrent lookups under {@code user-lookups.*}.
+ */
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties({UserIndexProperties.class, UserLookupProperties.class})
+public class CacheConfig {
+}
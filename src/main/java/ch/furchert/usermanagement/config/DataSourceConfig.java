@@ -0,0 +1,48 @@
+package ch.furchert.usermanagement.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * With {@code replicas.urls} set, wraps Spring Boot's Hikari pool in a
+ * {@link ReplicaRoutingDataSource}; Boot still creates and configures the primary pool from
+ * {@code spring.datasource.*}. The decision is made at runtime, so it also holds for AOT builds.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class DataSourceConfig {
+
+    @Bean
+    static BeanPostProcessor replicaRouting(Environment environment) {
+        ReplicaProperties properties = Binder.get(environment).bindOrCreate("replicas", ReplicaProperties.class);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (properties.enabled() && "dataSource".equals(beanName) && bean instanceof HikariDataSource primary) {
+                    return new ReplicaRoutingDataSource(primary, properties);
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Checks start once the registry is complete and Flyway has migrated the primary
+    @EventListener(ApplicationReadyEvent.class)
+    public void startReplicaChecks(ApplicationReadyEvent event) {
+        ApplicationContext context = event.getApplicationContext();
+        if (context.getBean(DataSource.class) instanceof ReplicaRoutingDataSource routing) {
+            routing.start(context.getBean(MeterRegistry.class));
+        }
+    }
+}
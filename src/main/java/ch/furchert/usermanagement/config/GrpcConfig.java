@@ -0,0 +1,66 @@
+package ch.furchert.usermanagement.config;
+
+import ch.furchert.usermanagement.grpc.BearerTokenInterceptor;
+import ch.furchert.usermanagement.grpc.ExceptionStatusInterceptor;
+import ch.furchert.usermanagement.grpc.GrpcServer;
+import ch.furchert.usermanagement.grpc.UserLookupService;
+import ch.furchert.usermanagement.security.CachingJwtDecoder;
+import ch.furchert.usermanagement.service.UserChangeFeed;
+import ch.furchert.usermanagement.service.UserService;
+import io.grpc.ServerBuilder;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.grpc.MetricCollectingServerInterceptor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The internal gRPC API next to the web stack, on its own HTTP/2 port. Each call passes, outermost
+ * first: Micrometer's per-method metrics ({@code grpc.server.*}), bearer tokens when required,
+ * and exception translation.
+ */
+@Configuration
+@EnableConfigurationProperties(GrpcProperties.class)
+@ConditionalOnProperty(prefix = "grpc", name = "enabled", matchIfMissing = true)
+public class GrpcConfig {
+
+    @Bean
+    public UserLookupService userLookupService(UserService userService, UserChangeFeed changeFeed,
+                                               GrpcProperties properties) {
+        return new UserLookupService(userService, changeFeed, properties.listPageSize());
+    }
+
+    @Bean
+    public GrpcServer grpcServer(GrpcProperties properties, UserLookupService userLookupService,
+                                 JwtProperties jwtProperties, CachingJwtDecoder jwtDecoder,
+                                 MeterRegistry meterRegistry) {
+        MetricCollectingServerInterceptor metrics = new MetricCollectingServerInterceptor(meterRegistry);
+        // The last one sees the call first
+        List<ServerInterceptor> interceptors = new ArrayList<>();
+        interceptors.add(new ExceptionStatusInterceptor());
+        if (jwtProperties.required()) {
+            interceptors.add(new BearerTokenInterceptor(jwtDecoder));
+        }
+        interceptors.add(metrics);
+        ServerServiceDefinition service = ServerInterceptors.intercept(userLookupService, interceptors);
+        // Meters for every method exist from the start, not only after its first call
+        metrics.preregisterService(service);
+
+        ServerBuilder<?> server = properties.inProcessName() != null
+                ? InProcessServerBuilder.forName(properties.inProcessName())
+                : NettyServerBuilder.forPort(properties.port())
+                        .flowControlWindow(Math.toIntExact(properties.flowControlWindow().toBytes()))
+                        .maxConnectionIdle(properties.maxConnectionIdle().toMillis(), TimeUnit.MILLISECONDS);
+        return new GrpcServer(server.addService(service).build(), properties.shutdownGrace());
+    }
+}
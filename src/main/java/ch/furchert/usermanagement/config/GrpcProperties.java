@@ -0,0 +1,30 @@
+package ch.furchert.usermanagement.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * The internal gRPC server for sibling services (see {@code user_lookup.proto}).
+ *
+ * @param enabled           whether the server runs at all
+ * @param port              plaintext HTTP/2 port, 0 for a random one
+ * @param inProcessName     serve in-process under this name instead of on a port, for tests
+ * @param listPageSize      users read per query while a {@code ListUsers} stream is drained
+ * @param flowControlWindow HTTP/2 window per stream: how much a slow client may leave unread
+ *                          before the server stops reading from the database
+ * @param maxConnectionIdle closes connections without calls after this long
+ * @param shutdownGrace     how long running calls may finish on shutdown before they are cancelled
+ */
+@ConfigurationProperties(prefix = "grpc")
+public record GrpcProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("9090") int port,
+        String inProcessName,
+        @DefaultValue("500") int listPageSize,
+        @DefaultValue("1MB") DataSize flowControlWindow,
+        @DefaultValue("5m") Duration maxConnectionIdle,
+        @DefaultValue("10s") Duration shutdownGrace) {
+}
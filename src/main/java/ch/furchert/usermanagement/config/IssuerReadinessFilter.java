@@ -0,0 +1,41 @@
+package ch.furchert.usermanagement.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Answers requests carrying a bearer token with a 503 and {@code Retry-After} while the issuer's
+ * signing keys are still being loaded, instead of rejecting valid tokens or waiting for the issuer
+ * on a request thread. Requests without a token pass on and get the usual 401 where one is needed.
+ */
+public class IssuerReadinessFilter extends OncePerRequestFilter {
+
+    private final BooleanSupplier ready;
+    private final Duration retryAfter;
+
+    public IssuerReadinessFilter(BooleanSupplier ready, Duration retryAfter) {
+        this.ready = ready;
+        this.retryAfter = retryAfter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization != null && authorization.regionMatches(true, 0, "Bearer ", 0, 7) && !ready.getAsBoolean()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfter.toSeconds())));
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Token issuer not available yet");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
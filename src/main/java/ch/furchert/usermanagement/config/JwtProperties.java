@@ -0,0 +1,28 @@
+package ch.furchert.usermanagement.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Bearer token validation for the user endpoints. The issuer itself is configured under
+ * {@code spring.security.oauth2.resourceserver.jwt.*} ({@code issuer-uri}, or {@code jwk-set-uri}
+ * to skip discovery, and {@code jws-algorithms}).
+ *
+ * @param required          whether {@code /users/**} needs a valid token (signup and account mails stay open)
+ * @param jwksCacheTtl      how long fetched signing keys are used before they must be fetched again
+ * @param jwksRefreshAhead  how long before {@code jwksCacheTtl} runs out the keys are refreshed in the background
+ * @param discoveryRetry    pause between attempts to reach the issuer while its keys are not loaded yet
+ * @param httpTimeout       connect and read timeout for issuer metadata and key requests
+ * @param tokenCacheSize    validated tokens remembered until they expire
+ */
+@ConfigurationProperties(prefix = "security.jwt")
+public record JwtProperties(
+        @DefaultValue("false") boolean required,
+        @DefaultValue("5m") Duration jwksCacheTtl,
+        @DefaultValue("1m") Duration jwksRefreshAhead,
+        @DefaultValue("10s") Duration discoveryRetry,
+        @DefaultValue("2s") Duration httpTimeout,
+        @DefaultValue("10000") int tokenCacheSize) {
+}
@@ -0,0 +1,24 @@
+package ch.furchert.usermanagement.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Brute-force limits for credential verification.
+ *
+ * @param window                 length of the sliding window failures are counted in
+ * @param maxFailuresPerAccount  failed attempts allowed per username/email within the window
+ * @param maxFailuresPerClient   failed attempts allowed per client IP within the window
+ * @param stripes                number of independently locked partitions of the counters
+ * @param lastLoginFlushInterval how often coalesced {@code last_login} updates are written
+ */
+@ConfigurationProperties(prefix = "security.login-throttle")
+public record LoginThrottleProperties(
+        @DefaultValue("15m") Duration window,
+        @DefaultValue("5") int maxFailuresPerAccount,
+        @DefaultValue("50") int maxFailuresPerClient,
+        @DefaultValue("64") int stripes,
+        @DefaultValue("5s") Duration lastLoginFlushInterval) {
+}
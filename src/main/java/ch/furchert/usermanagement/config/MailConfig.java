@@ -0,0 +1,32 @@
+package ch.furchert.usermanagement.config;
+
+import ch.furchert.usermanagement.mail.MailDispatcher;
+import ch.furchert.usermanagement.mail.MailTemplates;
+import ch.furchert.usermanagement.repository.MailQueueRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+
+@Configuration
+@EnableConfigurationProperties(MailQueueProperties.class)
+public class MailConfig {
+
+    /**
+     * Only with an SMTP server ({@code spring.mail.host}); without one, mails are still queued and
+     * sent by any instance that has one.
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(prefix = "spring.mail", name = "host")
+    public MailDispatcher mailDispatcher(MailQueueRepository mailQueue, MailTemplates templates,
+                                         MailQueueProperties properties, JavaMailSenderImpl mailSender,
+                                         PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        return new MailDispatcher(mailQueue, templates, properties, mailSender, transactionManager,
+                meterRegistry, Clock.systemUTC());
+    }
+}
@@ -0,0 +1,51 @@
+package ch.furchert.usermanagement.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Account mails (verification, password reset) and the dispatcher that sends them. The SMTP
+ * server itself is configured with the standard {@code spring.mail.*} properties.
+ *
+ * @param from                 sender address of all mails
+ * @param linkBaseUrl          base URL of the frontend that handles the mailed links, required; a
+ *                             verification mail links to {@code <linkBaseUrl>/verify-email?token=...},
+ *                             a reset mail to {@code <linkBaseUrl>/reset-password?token=...}
+ * @param verificationValidity how long an e-mail verification link works
+ * @param resetValidity        how long a password reset link works
+ * @param maxResetRequests     password reset mails per address within {@code resetRequestWindow}
+ * @param resetRequestWindow   sliding window the reset requests are counted in
+ * @param verifyAccounts       whether new accounts start UNVERIFIED and get a verification mail;
+ *                             unset means only if this instance has a dispatcher, so that no
+ *                             account waits for a mail nobody sends
+ * @param dispatcherEnabled    whether this instance sends queued mails at all
+ * @param dispatchInterval     pause between dispatch rounds once the queue is drained
+ * @param batchSize            mails claimed and sent per round over one SMTP connection
+ * @param maxPerSecond         send rate limit towards the SMTP server, 0 for none
+ * @param maxAttempts          attempts before a mail is given up and marked FAILED
+ * @param initialBackoff       delay before the first retry, doubled per further attempt
+ * @param maxBackoff           upper bound of the retry delay
+ * @param lease                how long a claimed mail is hidden from other dispatchers
+ * @param idleTimeout          how long an unused SMTP connection is kept open
+ */
+@ConfigurationProperties(prefix = "mail-queue")
+public record MailQueueProperties(
+        @DefaultValue("no-reply@localhost") String from,
+        String linkBaseUrl,
+        @DefaultValue("48h") Duration verificationValidity,
+        @DefaultValue("1h") Duration resetValidity,
+        @DefaultValue("3") int maxResetRequests,
+        @DefaultValue("1h") Duration resetRequestWindow,
+        Boolean verifyAccounts,
+        @DefaultValue("true") boolean dispatcherEnabled,
+        @DefaultValue("1s") Duration dispatchInterval,
+        @DefaultValue("50") int batchSize,
+        @DefaultValue("20") int maxPerSecond,
+        @DefaultValue("8") int maxAttempts,
+        @DefaultValue("30s") Duration initialBackoff,
+        @DefaultValue("1h") Duration maxBackoff,
+        @DefaultValue("5m") Duration lease,
+        @DefaultValue("30s") Duration idleTimeout) {
+}
@@ -0,0 +1,108 @@
+package ch.furchert.usermanagement.config;
+
+import ch.furchert.usermanagement.cache.UserExistenceIndex;
+import ch.furchert.usermanagement.metrics.JdbcStatementCountFilter;
+import ch.furchert.usermanagement.metrics.JdbcStatementCounter;
+import ch.furchert.usermanagement.metrics.UserServiceMetrics;
+import ch.furchert.usermanagement.repository.MailQueueRepository;
+import ch.furchert.usermanagement.service.CredentialService;
+import ch.furchert.usermanagement.service.LastLoginRecorder;
+import ch.furchert.usermanagement.service.UserChangeFeed;
+import ch.furchert.usermanagement.service.UserService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+
+/**
+ * Application metrics on top of what Spring Boot binds by itself ({@code http.server.requests},
+ * {@code hikaricp.connections.*}, {@code cache.*}, {@code password.hashing.*}). Percentile
+ * histograms and export targets are set in {@code application.properties}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Wraps every {@link UserService} method, outside the transaction so commit time is included.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor userServiceMetricsAdvisor(ObjectProvider<MeterRegistry> meterRegistry) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return UserService.class.isAssignableFrom(targetClass)
+                        && ReflectionUtils.findMethod(UserService.class, method.getName(), method.getParameterTypes()) != null;
+            }
+        }, new UserServiceMetrics(meterRegistry));
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer jdbcStatementCounter() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new JdbcStatementCounter());
+    }
+
+    @Bean
+    public FilterRegistrationBean<JdbcStatementCountFilter> jdbcStatementCountFilter(MeterRegistry meterRegistry) {
+        FilterRegistrationBean<JdbcStatementCountFilter> registration =
+                new FilterRegistrationBean<>(new JdbcStatementCountFilter(meterRegistry));
+        registration.addUrlPatterns("/users/*");
+        return registration;
+    }
+
+    @Bean
+    public MeterBinder credentialMetrics(CredentialService credentialService, LastLoginRecorder lastLoginRecorder) {
+        return registry -> {
+            Gauge.builder("security.login.throttle.keys", credentialService, CredentialService::throttledKeys)
+                    .description("Accounts and clients with failed logins inside the throttle window")
+                    .register(registry);
+            Gauge.builder("security.login.last-login.pending", lastLoginRecorder, LastLoginRecorder::pendingCount)
+                    .description("Logins waiting for the next batched last_login write")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder userChangeMetrics(UserChangeFeed changeFeed) {
+        return registry -> Gauge.builder("user.changes.consumers", changeFeed, UserChangeFeed::consumerCount)
+                .description("Long-polls and SSE streams waiting for user changes")
+                .register(registry);
+    }
+
+    // Queries the table on each export; the mail.sent and mail.send.failures counters are in MailDispatcher
+    @Bean
+    public MeterBinder mailQueueMetrics(MailQueueRepository mailQueue) {
+        return registry -> Gauge.builder("mail.queue.pending", mailQueue, MailQueueRepository::pendingCount)
+                .description("Mails waiting to be sent, including those waiting for a retry")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder userIndexMetrics(UserExistenceIndex existenceIndex) {
+        return registry -> {
+            Gauge.builder("user.index.bytes", existenceIndex, UserExistenceIndex::byteSize)
+                    .description("Memory held by the username/email existence filters")
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("user.index.entries", existenceIndex, UserExistenceIndex::entries)
+                    .description("Users in the existence filters; updates count again until the next rebuild")
+                    .register(registry);
+        };
+    }
+}
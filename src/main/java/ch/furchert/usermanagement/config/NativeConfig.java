@@ -0,0 +1,44 @@
+package ch.furchert.usermanagement.config;
+
+import ch.furchert.usermanagement.dto.UserChangeEvent;
+import ch.furchert.usermanagement.dto.UserDto;
+import ch.furchert.usermanagement.dto.UserVersion;
+import ch.furchert.usermanagement.dto.UserView;
+import ch.furchert.usermanagement.dto.request.CreateUserRequest;
+import ch.furchert.usermanagement.dto.response.BulkImportResponse;
+import ch.furchert.usermanagement.dto.response.UserResponse;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Reachability hints for the native image ({@code ./mvnw -Pnative native:compile}) that Spring's
+ * AOT processing cannot derive from the code. Entities, repositories and their projections,
+ * configuration properties and the security filter chain are covered by Spring's own AOT
+ * contributions.
+ * <p>
+ * The DTOs listed for binding are read or written by Jackson outside of controller signatures:
+ * the NDJSON import and stream, the batch lookup, {@code ResponseEntity<?>} of {@code POST /users}
+ * and the change feed.
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeConfig.Hints.class)
+@RegisterReflectionForBinding({UserResponse.class, UserDto.class, CreateUserRequest.class,
+        BulkImportResponse.class, UserChangeEvent.class})
+public class NativeConfig {
+
+    public static class Hints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Instantiated by Hibernate from the "select new" queries of UserRepository and UserSearchRepositoryImpl
+            hints.reflection().registerType(UserView.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            hints.reflection().registerType(UserVersion.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            // MailTemplates finds its templates with a classpath pattern
+            hints.resources().registerPattern("mail/*.txt");
+        }
+    }
+}
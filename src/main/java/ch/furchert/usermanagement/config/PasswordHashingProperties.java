@@ -0,0 +1,34 @@
+package ch.furchert.usermanagement.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for the dedicated password hashing pool and the BCrypt work factor calibration.
+ *
+ * @param threads        worker threads hashing passwords, defaults to the number of CPUs
+ * @param queueCapacity  hashing requests allowed to wait for a worker before callers get a 503
+ * @param timeout        maximum time a caller waits for its hash, queueing included
+ * @param retryAfter     value of the {@code Retry-After} header when the pool is saturated
+ * @param targetHashTime hash duration the calibration aims for on the current hardware
+ * @param minCost        lowest BCrypt cost ever used, regardless of how slow the machine is
+ * @param maxCost        highest BCrypt cost the calibration may choose
+ * @param calibrate      measure the hardware at startup; if false {@code minCost} is used as is
+ */
+@ConfigurationProperties(prefix = "security.password-hashing")
+public record PasswordHashingProperties(
+        @DefaultValue("0") int threads,
+        @DefaultValue("64") int queueCapacity,
+        @DefaultValue("5s") Duration timeout,
+        @DefaultValue("1s") Duration retryAfter,
+        @DefaultValue("100ms") Duration targetHashTime,
+        @DefaultValue("10") int minCost,
+        @DefaultValue("14") int maxCost,
+        @DefaultValue("true") boolean calibrate) {
+
+    public int effectiveThreads() {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -0,0 +1,40 @@
+package ch.furchert.usermanagement.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Read replicas for read-only transactions (see {@link ReplicaRoutingDataSource}). Without
+ * {@code urls} everything runs on the primary, as before.
+ *
+ * @param urls          JDBC URLs of the replicas
+ * @param username      replica login, the primary's if not set
+ * @param password      replica password, the primary's if not set
+ * @param poolSize      connections per replica pool
+ * @param checkInterval how often replica health and replay position are checked; replicas serve
+ *                      data at most two intervals older than the primary
+ * @param checkTimeout  how long a check may take before the replica counts as down
+ * @param stickyWindow  how long reads of a changed user go to the primary, so the writer reads its
+ *                      own change; must be longer than twice {@code checkInterval}. Only on the
+ *                      instance that made the change, and only for lookups by id, username or
+ *                      email of the users it evicted
+ * @param positionQuery returns the WAL position a replica has replayed, as {@code pg_lsn}
+ */
+@ConfigurationProperties(prefix = "replicas")
+public record ReplicaProperties(
+        @DefaultValue List<String> urls,
+        String username,
+        String password,
+        @DefaultValue("10") int poolSize,
+        @DefaultValue("250ms") Duration checkInterval,
+        @DefaultValue("1s") Duration checkTimeout,
+        @DefaultValue("1s") Duration stickyWindow,
+        @DefaultValue("select pg_last_wal_replay_lsn()") String positionQuery) {
+
+    public boolean enabled() {
+        return urls != null && !urls.isEmpty();
+    }
+}
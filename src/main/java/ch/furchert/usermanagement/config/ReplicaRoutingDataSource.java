@@ -0,0 +1,255 @@
+package ch.furchert.usermanagement.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Sends read-only transactions ({@code @Transactional(readOnly = true)}) to read replicas and
+ * everything else to the primary.
+ * <p>
+ * Connections are handed out lazily ({@link LazyConnectionDataSourceProxy}): the target is chosen
+ * at the first statement, after the transaction manager has marked the connection read-only.
+ * Replicas take turns; a replica is only used while it is reachable and has replayed at least what
+ * the primary had written at the previous check, so it is never more than two
+ * {@code replicas.check-interval}s behind. Without such a replica, reads go to the primary.
+ * <p>
+ * The writer's own changes may still be missing on a replica. Lookups that must see them run
+ * inside {@link #onPrimary}, which {@code UserCache} does for users changed within
+ * {@code replicas.sticky-window}. Nothing carries that across instances: another instance serves
+ * the same client from a replica as soon as the replica passes its check.
+ * <p>
+ * Each replica has its own Hikari pool, named {@code replica-<n>} in the {@code hikaricp.*} meters.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final ReplicaProperties properties;
+    private final AtomicInteger next = new AtomicInteger();
+
+    // Written by the check thread only
+    private long previousPrimaryPosition = -1;
+    private ScheduledExecutorService executor;
+    private volatile Counter primaryReads;
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, ReplicaProperties properties) {
+        super(primary);
+        this.primary = primary;
+        this.properties = properties;
+        this.replicas = IntStream.range(0, properties.urls().size())
+                .mapToObj(i -> new Replica(pool("replica-" + (i + 1), properties.urls().get(i))))
+                .toList();
+        setReadOnlyDataSource(new ReplicaSelector());
+    }
+
+    /**
+     * Runs {@code lookup} with read-only transactions on the primary, e.g. to read a change this
+     * instance has just written.
+     */
+    public static <T> T onPrimary(Supplier<T> lookup) {
+        if (PRIMARY.get() != null) {
+            return lookup.get();
+        }
+        PRIMARY.set(Boolean.TRUE);
+        try {
+            return lookup.get();
+        } finally {
+            PRIMARY.remove();
+        }
+    }
+
+    /**
+     * Registers the meters and starts the periodic replica checks. Until the second check, reads
+     * go to the primary.
+     */
+    public void start(MeterRegistry meterRegistry) {
+        primaryReads = reads(meterRegistry, "primary");
+        for (Replica replica : replicas) {
+            String name = replica.pool.getPoolName();
+            replica.pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replica.reads = reads(meterRegistry, name);
+            Gauge.builder("db.replica.available", replica, r -> r.available ? 1 : 0)
+                    .description("Whether the replica currently serves read-only transactions")
+                    .tag("replica", name)
+                    .register(meterRegistry);
+            Gauge.builder("db.replica.lag", replica, r -> r.lagBytes)
+                    .description("WAL the replica had not replayed yet at the last check")
+                    .tag("replica", name)
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+        long interval = properties.checkInterval().toMillis();
+        executor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("replica-check").daemon().factory());
+        executor.scheduleWithFixedDelay(this::check, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reads the primary's current WAL position and what each replica has replayed, and lets a
+     * replica serve reads if it has caught up with the primary's position from the previous check.
+     */
+    public synchronized void check() {
+        long primaryPosition;
+        try {
+            primaryPosition = position(primary, "select pg_current_wal_lsn()");
+        } catch (SQLException e) {
+            log.warn("Could not read the primary's WAL position, reading from the primary: {}", e.getMessage());
+            replicas.forEach(replica -> replica.available = false);
+            previousPrimaryPosition = -1;
+            return;
+        }
+        for (Replica replica : replicas) {
+            boolean wasAvailable = replica.available;
+            try {
+                long replayed = position(replica.pool, properties.positionQuery());
+                replica.lagBytes = Math.max(0, primaryPosition - replayed);
+                replica.available = previousPrimaryPosition >= 0 && replayed >= previousPrimaryPosition;
+            } catch (SQLException e) {
+                replica.available = false;
+                if (wasAvailable) {
+                    log.warn("Replica {} is down: {}", replica.pool.getPoolName(), e.getMessage());
+                }
+            }
+            if (wasAvailable && !replica.available) {
+                log.info("Replica {} no longer serves reads ({} bytes behind)", replica.pool.getPoolName(), replica.lagBytes);
+            } else if (!wasAvailable && replica.available) {
+                log.info("Replica {} serves reads", replica.pool.getPoolName());
+            }
+        }
+        previousPrimaryPosition = primaryPosition;
+    }
+
+    /**
+     * Names of the replicas that currently serve reads.
+     */
+    public List<String> availableReplicas() {
+        return replicas.stream()
+                .filter(replica -> replica.available)
+                .map(replica -> replica.pool.getPoolName())
+                .toList();
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        replicas.forEach(replica -> replica.pool.close());
+        primary.close();
+    }
+
+    private HikariDataSource pool(String name, String url) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setJdbcUrl(url);
+        config.setUsername(properties.username() != null ? properties.username() : primary.getUsername());
+        config.setPassword(properties.password() != null ? properties.password() : primary.getPassword());
+        config.setMaximumPoolSize(properties.poolSize());
+        config.setReadOnly(true);
+        // A replica that is down costs a read at most this long before it is taken out
+        config.setConnectionTimeout(Math.max(250, properties.checkTimeout().toMillis()));
+        // Start even if the replica is down; the checks take it in once it is up
+        config.setInitializationFailTimeout(-1);
+        return new HikariDataSource(config);
+    }
+
+    private long position(HikariDataSource dataSource, String query) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout((int) Math.max(1, properties.checkTimeout().toSeconds()));
+            try (ResultSet result = statement.executeQuery(query)) {
+                String lsn = result.next() ? result.getString(1) : null;
+                if (lsn == null) {
+                    throw new SQLException("No WAL position from '" + query + "', not a standby?");
+                }
+                return parseLsn(lsn);
+            }
+        }
+    }
+
+    // pg_lsn is written as two hex numbers, the upper and lower 32 bits: "16/B374D848"
+    static long parseLsn(String lsn) {
+        int slash = lsn.indexOf('/');
+        return (Long.parseLong(lsn.substring(0, slash), 16) << 32) | Long.parseLong(lsn.substring(slash + 1), 16);
+    }
+
+    private static Counter reads(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("db.replica.reads")
+                .description("Read-only transactions by the database they ran on")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    private static final class Replica {
+
+        private final HikariDataSource pool;
+        private volatile boolean available;
+        private volatile long lagBytes;
+        private volatile Counter reads;
+
+        private Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+    }
+
+    /**
+     * The read-only side: the next available replica, or the primary.
+     */
+    private final class ReplicaSelector extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (PRIMARY.get() == null) {
+                int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+                for (int i = 0; i < replicas.size(); i++) {
+                    Replica replica = replicas.get((start + i) % replicas.size());
+                    if (!replica.available) {
+                        continue;
+                    }
+                    try {
+                        Connection connection = replica.pool.getConnection();
+                        increment(replica.reads);
+                        return connection;
+                    } catch (SQLException e) {
+                        replica.available = false;
+                        log.warn("Replica {} is down, trying the next target: {}", replica.pool.getPoolName(), e.getMessage());
+                    }
+                }
+            }
+            increment(primaryReads);
+            return primary.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new UnsupportedOperationException("Replica connections use the configured credentials");
+        }
+
+        private static void increment(Counter counter) {
+            if (counter != null) {
+                counter.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ch.furchert.usermanagement.config;
+
+import ch.furchert.usermanagement.controller.ResponseFormats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binary encodings next to JSON, chosen by the {@code Accept} header: CBOR
+ * ({@code application/cbor}) and Smile ({@code application/x-jackson-smile}). Spring Boot puts
+ * the converters in place of Spring MVC's defaults for these types; the endpoints that write
+ * their body themselves use the same mappers through {@link ResponseFormats}.
+ * <p>
+ * Both mappers start from Spring Boot's Jackson settings, but write dates as epoch milliseconds
+ * instead of ISO strings, the larger part of a binary user record otherwise. Smile also refers
+ * back to repeated short values such as role and status.
+ */
+@Configuration(proxyBeanMethods = false)
+public class ResponseFormatConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(cborMapper(builder));
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(smileMapper(builder));
+    }
+
+    @Bean
+    public ResponseFormats responseFormats(ObjectMapper objectMapper,
+                                           MappingJackson2CborHttpMessageConverter cborHttpMessageConverter,
+                                           MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter) {
+        return new ResponseFormats(objectMapper, cborHttpMessageConverter.getObjectMapper(),
+                smileHttpMessageConverter.getObjectMapper());
+    }
+
+    public static ObjectMapper cborMapper(Jackson2ObjectMapperBuilder builder) {
+        return builder.factory(new CBORFactory())
+                .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    public static ObjectMapper smileMapper(Jackson2ObjectMapperBuilder builder) {
+        return builder.factory(SmileFactory.builder()
+                        .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                        .build())
+                .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+}
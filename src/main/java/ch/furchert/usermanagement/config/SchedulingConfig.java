@@ -0,0 +1,21 @@
+package ch.furchert.usermanagement.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableConfigurationProperties(UserChangeProperties.class)
+public class SchedulingConfig {
+
+    /**
+     * Runs the {@code @Scheduled} jobs, unless {@code scheduling.enabled=false}: the tests call the
+     * jobs themselves, and scheduled runs would only race the shutdown of their database.
+     */
+    @Configuration
+    @EnableScheduling
+    @ConditionalOnProperty(prefix = "scheduling", name = "enabled", matchIfMissing = true)
+    static class ScheduledJobs {
+    }
+}
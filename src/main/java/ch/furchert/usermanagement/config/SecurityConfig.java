@@ -1,42 +1,89 @@
 package ch.furchert.usermanagement.config;
 
+import ch.furchert.usermanagement.security.BCryptCostCalibrator;
+import ch.furchert.usermanagement.security.BoundedPasswordEncoder;
+import ch.furchert.usermanagement.security.CachingJwtDecoder;
+import ch.furchert.usermanagement.security.IssuerJwtDecoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
 import org.springframework.security.web.SecurityFilterChain;
 
 import java.security.SecureRandom;
 
 @Configuration
+@EnableConfigurationProperties({PasswordHashingProperties.class, LoginThrottleProperties.class, JwtProperties.class})
 public class SecurityConfig {
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(BCryptPasswordEncoder.BCryptVersion.$2Y, 10, new SecureRandom());
+    public BoundedPasswordEncoder passwordEncoder(PasswordHashingProperties properties,
+                                           ObjectProvider<MeterRegistry> meterRegistry) {
+        int cost = properties.calibrate()
+                ? BCryptCostCalibrator.calibrate(properties.targetHashTime(), properties.minCost(), properties.maxCost())
+                : properties.minCost();
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(BCryptPasswordEncoder.BCryptVersion.$2Y, cost, new SecureRandom());
+        return new BoundedPasswordEncoder(bcrypt,
+                properties.effectiveThreads(),
+                properties.queueCapacity(),
+                properties.timeout(),
+                properties.retryAfter(),
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    /**
+     * Replaces Spring Boot's decoder, which would discover the issuer on the first request. Keys are
+     * only loaded when tokens are required.
+     */
+    @Bean(destroyMethod = "close")
+    public CachingJwtDecoder jwtDecoder(OAuth2ResourceServerProperties resourceServer, JwtProperties properties,
+                                        ObjectProvider<MeterRegistry> meterRegistry) {
+        OAuth2ResourceServerProperties.Jwt jwt = resourceServer.getJwt();
+        IssuerJwtDecoder issuer = new IssuerJwtDecoder(jwt.getIssuerUri(), jwt.getJwkSetUri(), jwt.getJwsAlgorithms(), properties);
+        if (properties.required()) {
+            issuer.start();
+        }
+        return new CachingJwtDecoder(issuer, properties.tokenCacheSize(), meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtProperties properties, CachingJwtDecoder jwtDecoder)
+            throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable) // Disable CSRF protection
-                .authorizeHttpRequests(auth -> auth
-                        .requestMatchers(
-                                "/users/**",
-                                "/actuator/**",
-                                "/swagger-ui/**",
-                                "/api-docs/**",
-                                "/swagger-ui.html")
-                        .permitAll() // Adjust access as needed
-                        .anyRequest().authenticated()
-                )
+                .authorizeHttpRequests(auth -> {
+                    if (properties.required()) {
+                        // Signup, availability and the mailed account links are used before there is a token
+                        auth.requestMatchers(HttpMethod.POST, "/users", "/users/verify-email",
+                                        "/users/password-reset-requests", "/users/password-reset").permitAll()
+                                .requestMatchers(HttpMethod.GET, "/users/availability").permitAll()
+                                .requestMatchers("/users/**").authenticated();
+                    }
+                    auth.requestMatchers(
+                                    "/users/**",
+                                    "/actuator/**",
+                                    "/swagger-ui/**",
+                                    "/api-docs/**",
+                                    "/swagger-ui.html")
+                            .permitAll() // Adjust access as needed
+                            .anyRequest().authenticated();
+                })
                 .httpBasic(Customizer.withDefaults());
+        if (properties.required()) {
+            http
+                    .oauth2ResourceServer(resourceServer -> resourceServer.jwt(jwt -> jwt.decoder(jwtDecoder)))
+                    .addFilterBefore(new IssuerReadinessFilter(jwtDecoder::isReady, properties.discoveryRetry()),
+                            BearerTokenAuthenticationFilter.class);
+        }
         return http.build();
     }
-
-
-    // Add @Bean for a PasswordEncoder if using password hashing
 }
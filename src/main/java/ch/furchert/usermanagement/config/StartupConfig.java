@@ -0,0 +1,61 @@
+package ch.furchert.usermanagement.config;
+
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.MethodMetadata;
+
+import java.util.List;
+
+/**
+ * With {@code startup.lazy-init=true} ({@code LAZY_INIT}), beans from the packages in
+ * {@code startup.lazy-packages} are only created when first used instead of at startup, e.g.
+ * springdoc on the first request for {@code /api-docs}.
+ * <p>
+ * Unlike {@code spring.main.lazy-initialization} this leaves the application's own beans eager:
+ * a lazy {@code @Scheduled} bean would never be scheduled.
+ */
+@Configuration(proxyBeanMethods = false)
+public class StartupConfig {
+
+    @Bean
+    static BeanFactoryPostProcessor lazyNonCriticalBeans(Environment environment) {
+        Binder binder = Binder.get(environment);
+        boolean enabled = binder.bind("startup.lazy-init", Boolean.class).orElse(false);
+        List<String> packages = binder.bind("startup.lazy-packages", Bindable.listOf(String.class)).orElse(List.of());
+        return beanFactory -> {
+            if (!enabled || packages.isEmpty()) {
+                return;
+            }
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                if (definition.getRole() != BeanDefinition.ROLE_INFRASTRUCTURE && inPackages(definition, packages)) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    // Beans of @Bean methods have no class name, they belong to the package of their configuration
+    private static boolean inPackages(BeanDefinition definition, List<String> packages) {
+        String className = definition.getBeanClassName();
+        if (className == null && definition instanceof AnnotatedBeanDefinition annotated) {
+            MethodMetadata factoryMethod = annotated.getFactoryMethodMetadata();
+            className = factoryMethod == null ? null : factoryMethod.getDeclaringClassName();
+        }
+        if (className == null) {
+            return false;
+        }
+        for (String prefix : packages) {
+            if (className.startsWith(prefix + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
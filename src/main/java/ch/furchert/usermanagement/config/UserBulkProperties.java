@@ -0,0 +1,16 @@
+package ch.furchert.usermanagement.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for bulk status changes and deletes ({@code POST /users/bulk/status},
+ * {@code POST /users/bulk/delete}).
+ *
+ * @param chunkSize users changed per statement and transaction; bounds how many rows of
+ *                  {@code user_account} one transaction locks and for how long
+ */
+@ConfigurationProperties(prefix = "user-bulk")
+public record UserBulkProperties(
+        @DefaultValue("500") int chunkSize) {
+}
@@ -0,0 +1,33 @@
+package ch.furchert.usermanagement.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for the user change feed ({@code GET /users/changes}).
+ *
+ * @param publishInterval  how often the publisher gives pending outbox rows their offsets
+ * @param publishBatchSize outbox rows published per transaction
+ * @param pollInterval     how often waiting consumers re-check the log for changes published by
+ *                         other instances
+ * @param maxBatchSize     most changes returned per long-poll response or SSE event
+ * @param maxWait          longest a long-poll request is held open
+ * @param streamTimeout    lifetime of an SSE connection; clients reconnect with {@code Last-Event-ID}
+ * @param retention        how long published changes stay readable
+ * @param cleanupInterval  how often changes older than {@code retention} are deleted
+ * @param cleanupBatchSize rows deleted per statement, keeping each delete short
+ */
+@ConfigurationProperties(prefix = "user-changes")
+public record UserChangeProperties(
+        @DefaultValue("200ms") Duration publishInterval,
+        @DefaultValue("500") int publishBatchSize,
+        @DefaultValue("1s") Duration pollInterval,
+        @DefaultValue("1000") int maxBatchSize,
+        @DefaultValue("30s") Duration maxWait,
+        @DefaultValue("10m") Duration streamTimeout,
+        @DefaultValue("7d") Duration retention,
+        @DefaultValue("1h") Duration cleanupInterval,
+        @DefaultValue("1000") int cleanupBatchSize) {
+}
@@ -0,0 +1,28 @@
+package ch.furchert.usermanagement.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * The in-memory username/email existence index ({@code UserExistenceIndex}).
+ *
+ * @param enabled           without the index every availability check goes to the database
+ * @param expectedUsers     minimum capacity of the filters; they are sized for twice the current
+ *                          user count if that is more
+ * @param falsePositiveRate share of absent names the filters report as possibly present at capacity
+ * @param refreshInterval   how often new names are read from the change log
+ * @param rebuildInterval   how often the filters are rebuilt from {@code user_account}, which drops
+ *                          the names of deleted and renamed users
+ * @param fetchSize         rows fetched per round trip while building
+ */
+@ConfigurationProperties(prefix = "user-index")
+public record UserIndexProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1000000") long expectedUsers,
+        @DefaultValue("0.01") double falsePositiveRate,
+        @DefaultValue("500ms") Duration refreshInterval,
+        @DefaultValue("6h") Duration rebuildInterval,
+        @DefaultValue("1000") int fetchSize) {
+}
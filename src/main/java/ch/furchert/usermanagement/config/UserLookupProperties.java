@@ -0,0 +1,19 @@
+package ch.furchert.usermanagement.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Coalescing of concurrent identical user lookups ({@code SingleFlight} in {@code UserCache}).
+ *
+ * @param coalesce whether lookups of the same id, username or email that run at the same time
+ *                 share one query
+ * @param maxWait  how long a lookup waits for the shared query before it runs its own
+ */
+@ConfigurationProperties(prefix = "user-lookups")
+public record UserLookupProperties(
+        @DefaultValue("true") boolean coalesce,
+        @DefaultValue("2s") Duration maxWait) {
+}
@@ -0,0 +1,62 @@
+package ch.furchert.usermanagement.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.java21.instrument.binder.jdk.VirtualThreadMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Active when {@code spring.threads.virtual.enabled=true}. Spring Boot then runs Tomcat requests,
+ * {@code @Async} and scheduled work on virtual threads; this adds the admission limit that
+ * replaces Tomcat's bounded thread pool, sized from the Hikari pool so both stay in step.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    /**
+     * Publishes {@code jvm.threads.virtual.pinned} (from the JFR {@code jdk.VirtualThreadPinned}
+     * event) so carrier-thread pinning in JDBC or synchronized code shows up in the metrics.
+     */
+    @Bean(destroyMethod = "close")
+    public VirtualThreadMetrics virtualThreadMetrics() {
+        return new VirtualThreadMetrics();
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            DataSource dataSource,
+            MeterRegistry meterRegistry,
+            @Value("${virtual-threads.max-concurrent-requests:0}") int maxConcurrentRequests,
+            @Value("${virtual-threads.requests-per-connection:4}") int requestsPerConnection,
+            @Value("${virtual-threads.max-wait:2s}") Duration maxWait) throws SQLException {
+        // The primary pool, also when wrapped for replica routing
+        HikariDataSource primary = dataSource.unwrap(HikariDataSource.class);
+        int limit = maxConcurrentRequests > 0
+                ? maxConcurrentRequests
+                : primary.getMaximumPoolSize() * requestsPerConnection;
+        log.info("Virtual threads enabled: admitting {} concurrent requests for {} pooled connections",
+                limit, primary.getMaximumPoolSize());
+
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limit, maxWait);
+        Gauge.builder("http.server.requests.permits.available", filter, ConcurrencyLimitFilter::availablePermits)
+                .description("Free request slots under the virtual-thread concurrency limit")
+                .register(meterRegistry);
+
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/users/*");
+        return registration;
+    }
+}
@@ -0,0 +1,54 @@
+package ch.furchert.usermanagement.controller;
+
+import ch.furchert.usermanagement.dto.request.CompletePasswordResetRequest;
+import ch.furchert.usermanagement.dto.request.PasswordResetRequest;
+import ch.furchert.usermanagement.dto.request.VerifyEmailRequest;
+import ch.furchert.usermanagement.service.UserService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * What the frontend pages behind the mailed links call (see {@code mail-queue.link-base-url}).
+ * Mails are only queued here, none of these requests waits for the SMTP server.
+ */
+@RestController
+@RequestMapping("/users")
+@RequiredArgsConstructor
+public class AccountController {
+
+    private final UserService userService;
+
+    /**
+     * 204 once the account is verified (also if it already was), 400 for an unknown, used or
+     * expired token.
+     */
+    @PostMapping("/verify-email")
+    public ResponseEntity<Void> verifyEmail(@RequestBody @Valid VerifyEmailRequest request) {
+        userService.verifyEmail(request.getToken());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Always 202: whether a mail is sent, because the address belongs to an account and is under
+     * its request limit, is not revealed.
+     */
+    @PostMapping("/password-reset-requests")
+    public ResponseEntity<Void> requestPasswordReset(@RequestBody @Valid PasswordResetRequest request) {
+        userService.requestPasswordReset(request.getEmail());
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * 204 once the password is changed, 400 for an unknown, used or expired token.
+     */
+    @PostMapping("/password-reset")
+    public ResponseEntity<Void> resetPassword(@RequestBody @Valid CompletePasswordResetRequest request) {
+        userService.resetPasswordWithToken(request.getToken(), request.getPassword());
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,32 @@
+package ch.furchert.usermanagement.controller;
+
+import ch.furchert.usermanagement.dto.request.VerifyCredentialsRequest;
+import ch.furchert.usermanagement.dto.response.UserResponse;
+import ch.furchert.usermanagement.service.CredentialService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/users")
+@RequiredArgsConstructor
+public class CredentialController {
+
+    private final CredentialService credentialService;
+
+    /**
+     * 200 with the user if the credentials are valid, 401 if not, 403 for accounts that are not
+     * active and 429 with {@code Retry-After} once too many attempts failed.
+     */
+    @PostMapping("/verify-credentials")
+    public ResponseEntity<UserResponse> verifyCredentials(@RequestBody @Valid VerifyCredentialsRequest request,
+                                                          HttpServletRequest httpRequest) {
+        return ResponseEntity.ok(UserController.entityToUserResponse(
+                credentialService.verify(request.getLogin(), request.getPassword(), httpRequest.getRemoteAddr())));
+    }
+}
@@ -0,0 +1,84 @@
+package ch.furchert.usermanagement.controller;
+
+import ch.furchert.usermanagement.dto.response.UserResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Picks the encoding for the endpoints that write their body themselves ({@code POST /users/lookup},
+ * {@code GET /users/stream}) from the {@code Accept} header, the first acceptable one by quality,
+ * JSON if nothing more specific was asked for. The writers for {@link UserResponse} are resolved
+ * once and reused by every response.
+ */
+public class ResponseFormats {
+
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+    public static final MediaType APPLICATION_CBOR_SEQ = MediaType.parseMediaType("application/cbor-seq");
+
+    private final List<Format> documents;
+    private final List<Format> sequences;
+
+    public ResponseFormats(ObjectMapper json, ObjectMapper cbor, ObjectMapper smile) {
+        Format jsonDocument = new Format(MediaType.APPLICATION_JSON, json, json.writerFor(UserResponse.class));
+        Format cborDocument = new Format(MediaType.APPLICATION_CBOR, cbor, cbor.writerFor(UserResponse.class));
+        Format smileDocument = new Format(APPLICATION_SMILE, smile, smile.writerFor(UserResponse.class));
+        this.documents = List.of(jsonDocument, cborDocument, smileDocument);
+        // Sequences: one root value per user, newline-delimited for JSON, back to back for CBOR (RFC 8742) and Smile
+        this.sequences = List.of(
+                new Format(UserController.APPLICATION_NDJSON, json, jsonDocument.users().withRootValueSeparator("\n")),
+                new Format(APPLICATION_CBOR_SEQ, cbor, cborDocument.users()),
+                smileDocument);
+    }
+
+    /**
+     * For a response that is one value, e.g. an object holding a list of users.
+     */
+    public Format document(String accept) {
+        return negotiate(accept, documents);
+    }
+
+    /**
+     * For a response that is a sequence of users.
+     */
+    public Format sequence(String accept) {
+        return negotiate(accept, sequences);
+    }
+
+    private static Format negotiate(String accept, List<Format> formats) {
+        if (!StringUtils.hasText(accept)) {
+            return formats.getFirst();
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return formats.getFirst();
+        }
+        // Stable: equally weighted types keep the client's order
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType mediaType : accepted) {
+            if (mediaType.getQualityValue() == 0) {
+                break;
+            }
+            for (Format format : formats) {
+                if (mediaType.includes(format.mediaType())) {
+                    return format;
+                }
+            }
+        }
+        return formats.getFirst();
+    }
+
+    /**
+     * @param mapper for anything besides users, e.g. a generator for the surrounding object
+     * @param users  writes one {@link UserResponse}
+     */
+    public record Format(MediaType mediaType, ObjectMapper mapper, ObjectWriter users) {
+    }
+}
@@ -0,0 +1,59 @@
+package ch.furchert.usermanagement.controller;
+
+import ch.furchert.usermanagement.dto.UserChangeEvent;
+import ch.furchert.usermanagement.service.UserChangeFeed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Incremental feed of user mutations for downstream caches. A consumer loads the users once,
+ * remembers {@code GET /users/changes/head} from before that load, and from then on only reads
+ * the changes after its last offset. Changes may be delivered again after a reconnect, so
+ * consumers apply them idempotently (last one per user wins).
+ */
+@RestController
+@RequestMapping("/users/changes")
+@RequiredArgsConstructor
+public class UserChangeController {
+
+    static final int DEFAULT_BATCH_SIZE = 100;
+
+    private final UserChangeFeed changeFeed;
+
+    /**
+     * Changes after offset {@code after}, oldest first. With {@code wait} (seconds, capped by
+     * {@code user-changes.max-wait}) an empty result is held back until changes arrive or the
+     * wait is over. 410 if the offset is older than the retention.
+     */
+    @GetMapping
+    public DeferredResult<List<UserChangeEvent>> pollChanges(@RequestParam(defaultValue = "0") long after,
+                                                             @RequestParam(defaultValue = "" + DEFAULT_BATCH_SIZE) int limit,
+                                                             @RequestParam(defaultValue = "0") long wait) {
+        return changeFeed.poll(after, limit, Duration.ofSeconds(Math.max(0, wait)));
+    }
+
+    /**
+     * The same changes as server-sent events. Reconnecting clients resume from the standard
+     * {@code Last-Event-ID} header, which takes precedence over {@code after}.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                                    @RequestParam(defaultValue = "0") long after) {
+        return changeFeed.subscribe(lastEventId != null ? lastEventId : after);
+    }
+
+    @GetMapping("/head")
+    public long head() {
+        return changeFeed.head();
+    }
+}
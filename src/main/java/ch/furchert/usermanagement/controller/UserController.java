@@ -1,25 +1,73 @@
 package ch.furchert.usermanagement.controller;
 
 import ch.furchert.usermanagement.dto.UserDto;
+import ch.furchert.usermanagement.dto.UserVersion;
+import ch.furchert.usermanagement.dto.UserView;
+import ch.furchert.usermanagement.dto.request.BulkDeleteRequest;
+import ch.furchert.usermanagement.dto.request.BulkStatusRequest;
 import ch.furchert.usermanagement.dto.request.CreateUserRequest;
+import ch.furchert.usermanagement.dto.request.ResetPasswordRequest;
+import ch.furchert.usermanagement.dto.request.UserLookupRequest;
+import ch.furchert.usermanagement.dto.request.UserSearchCriteria;
+import ch.furchert.usermanagement.dto.response.AvailabilityResponse;
+import ch.furchert.usermanagement.dto.response.BulkImportResponse;
+import ch.furchert.usermanagement.dto.response.BulkImportResult;
+import ch.furchert.usermanagement.dto.response.BulkOperationResponse;
 import ch.furchert.usermanagement.dto.response.UserResponse;
 import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.service.UserBulkService;
+import ch.furchert.usermanagement.service.UserImportService;
 import ch.furchert.usermanagement.service.UserService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/users")
 @RequiredArgsConstructor
 public class UserController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+    static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    static final int MAX_IMPORT_SIZE = 10_000;
+    static final int MAX_BULK_IDS = 10_000;
+    static final int MAX_LOOKUP_KEYS = 1_000;
+
     private final UserService userService;
+    private final UserImportService userImportService;
+    private final UserBulkService userBulkService;
+    private final ObjectMapper objectMapper;
+    private final ResponseFormats responseFormats;
 
     @PostMapping
     public ResponseEntity<?> createUser(@RequestBody @Valid CreateUserRequest request) {
@@ -33,24 +81,268 @@ public class UserController {
         }
     }
 
+    /**
+     * Creates many users in one call. Every row gets its own outcome in the report; rows that
+     * fail do not stop the others.
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkImportResponse> importUsers(@RequestBody List<CreateUserRequest> requests) {
+        return importReport(requests);
+    }
+
+    @PostMapping(value = "/bulk", consumes = "application/x-ndjson")
+    public ResponseEntity<BulkImportResponse> importUsersNdjson(InputStream body) throws IOException {
+        List<CreateUserRequest> requests = new ArrayList<>();
+        try (MappingIterator<CreateUserRequest> lines = objectMapper.readerFor(CreateUserRequest.class).readValues(body)) {
+            while (lines.hasNextValue()) {
+                requests.add(lines.nextValue());
+                if (requests.size() > MAX_IMPORT_SIZE) {
+                    break;
+                }
+            }
+        }
+        return importReport(requests);
+    }
+
+    private ResponseEntity<BulkImportResponse> importReport(List<CreateUserRequest> requests) {
+        if (requests.size() > MAX_IMPORT_SIZE) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "At most " + MAX_IMPORT_SIZE + " users per import");
+        }
+        List<BulkImportResult> results = userImportService.importUsers(requests);
+        int created = (int) results.stream()
+                .filter(result -> result.getOutcome() == BulkImportResult.Outcome.CREATED)
+                .count();
+        return ResponseEntity.ok(BulkImportResponse.builder()
+                .created(created)
+                .failed(results.size() - created)
+                .results(results)
+                .build());
+    }
+
+    /**
+     * Sets the status of the users given by {@code ids} or matching {@code filter}, e.g. to block
+     * every account of a decommissioned site. Runs in chunks of {@code user-bulk.chunk-size}
+     * users per transaction; the response counts the users whose status changed.
+     */
+    @PostMapping("/bulk/status")
+    public ResponseEntity<BulkOperationResponse> changeStatus(@RequestBody @Valid BulkStatusRequest request) {
+        checkSelection(request.getIds(), request.getFilter());
+        int affected = request.getIds() != null
+                ? userBulkService.changeStatus(request.getIds(), request.getStatus())
+                : userBulkService.changeStatus(request.getFilter(), request.getStatus());
+        return ResponseEntity.ok(BulkOperationResponse.builder().affected(affected).build());
+    }
+
+    /**
+     * Deletes the users given by {@code ids} or matching {@code filter}, chunked like
+     * {@link #changeStatus}; the response counts the users deleted.
+     */
+    @PostMapping("/bulk/delete")
+    public ResponseEntity<BulkOperationResponse> deleteUsers(@RequestBody BulkDeleteRequest request) {
+        checkSelection(request.getIds(), request.getFilter());
+        int affected = request.getIds() != null
+                ? userBulkService.delete(request.getIds())
+                : userBulkService.delete(request.getFilter());
+        return ResponseEntity.ok(BulkOperationResponse.builder().affected(affected).build());
+    }
+
+    // Exactly one of the two, and a filter must narrow the selection: an empty one would match everyone
+    private static void checkSelection(List<Long> ids, UserSearchCriteria filter) {
+        if ((ids == null) == (filter == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either ids or filter is required");
+        }
+        if (filter != null && !filter.hasAnyCriterion()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "filter must set at least one criterion");
+        }
+        if (ids != null && ids.size() > MAX_BULK_IDS) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "At most " + MAX_BULK_IDS + " ids per request");
+        }
+    }
+
+    /**
+     * Answers {@code If-None-Match}/{@code If-Modified-Since} from the version columns alone;
+     * the user is only read and serialized when it changed.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<UserResponse> getUser(@PathVariable Long id) {
-        User user = userService.getUserById(id);
-        return ResponseEntity.ok(entityToUserResponse(user));
+    public ResponseEntity<UserResponse> getUser(@PathVariable Long id, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null) {
+            UserVersion version = userService.getUserVersion(id);
+            if (request.checkNotModified(userETag(version.version()), lastModified(version.updated(), version.lastLogin()))) {
+                return null; // 304 with ETag and Last-Modified already set
+            }
+        }
+        UserView user = userService.getUserView(id);
+        return ResponseEntity.ok()
+                .eTag(userETag(user.version()))
+                .lastModified(lastModified(user.updated(), user.lastLogin()))
+                .body(viewToUserResponse(user));
+    }
+
+    @GetMapping("/by-username/{username}")
+    public ResponseEntity<UserResponse> getUserByUsername(@PathVariable String username) {
+        UserView user = userService.getUserViewByUsername(username);
+        return ResponseEntity.ok(viewToUserResponse(user));
+    }
+
+    @GetMapping("/by-email/{email}")
+    public ResponseEntity<UserResponse> getUserByEmail(@PathVariable String email) {
+        UserView user = userService.getUserViewByEmail(email);
+        return ResponseEntity.ok(viewToUserResponse(user));
     }
 
+    /**
+     * Resolves up to {@value #MAX_LOOKUP_KEYS} ids, usernames or emails in one query, e.g. the
+     * owners of a page of devices, instead of one {@code GET} per user. {@code users} follows the
+     * order of the request with {@code null} where nothing matched; those keys are also listed in
+     * {@code missing}. Users are written to the response as the rows arrive, as JSON, CBOR or
+     * Smile depending on {@code Accept}.
+     */
+    @PostMapping(value = "/lookup", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            "application/x-jackson-smile"})
+    public ResponseEntity<StreamingResponseBody> lookupUsers(@RequestBody UserLookupRequest request,
+                                                             @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        ResponseFormats.Format format = responseFormats.document(accept);
+        long given = Stream.of(request.getIds(), request.getUsernames(), request.getEmails())
+                .filter(Objects::nonNull)
+                .count();
+        if (given != 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Exactly one of ids, usernames or emails is required");
+        }
+        if (request.getIds() != null) {
+            return lookup(request.getIds(), userService::lookupUsersByIds, format);
+        }
+        if (request.getUsernames() != null) {
+            return lookup(request.getUsernames(), userService::lookupUsersByUsernames, format);
+        }
+        return lookup(request.getEmails(), userService::lookupUsersByEmails, format);
+    }
+
+    private <K> ResponseEntity<StreamingResponseBody> lookup(List<K> keys, BiConsumer<List<K>, Consumer<UserView>> lookup,
+                                                             ResponseFormats.Format format) {
+        if (keys.size() > MAX_LOOKUP_KEYS) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "At most " + MAX_LOOKUP_KEYS + " keys per lookup");
+        }
+        if (keys.contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Lookup keys must not be null");
+        }
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator json = format.mapper().createGenerator(outputStream)) {
+                List<K> missing = new ArrayList<>();
+                Iterator<K> key = keys.iterator();
+                json.writeStartObject();
+                json.writeArrayFieldStart("users");
+                lookup.accept(keys, user -> {
+                    K next = key.next();
+                    try {
+                        if (user == null) {
+                            missing.add(next);
+                            json.writeNull();
+                        } else {
+                            format.users().writeValue(json, viewToUserResponse(user));
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+                json.writeObjectField("missing", missing);
+                json.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(body);
+    }
+
+    /**
+     * Whether a username and/or email can still be used for a signup, at least one of them is
+     * required. Names no user has are answered from the in-memory existence index without a
+     * query. An available name can still be taken by a concurrent signup.
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<AvailabilityResponse> checkAvailability(@RequestParam(required = false) String username,
+                                                                  @RequestParam(required = false) String email) {
+        if (!StringUtils.hasText(username) && !StringUtils.hasText(email)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "username or email is required");
+        }
+        return ResponseEntity.ok(AvailabilityResponse.builder()
+                .usernameAvailable(StringUtils.hasText(username) ? userService.isUsernameAvailable(username) : null)
+                .emailAvailable(StringUtils.hasText(email) ? userService.isEmailAvailable(email) : null)
+                .build());
+    }
+
+    /**
+     * Keyset-paginated listing ordered by id. Pass the {@value #NEXT_CURSOR_HEADER} header of a
+     * full page as {@code after} to fetch the next one; the header is absent on the last page.
+     * <p>
+     * Each page carries an ETag over the ids and versions it contains, so {@code If-None-Match}
+     * is answered from those two columns. There is no Last-Modified: a deleted user would not
+     * move it. The ETag is weak: the page can be sent as JSON, CBOR or Smile, gzipped or not.
+     */
     @GetMapping
-    public ResponseEntity<List<UserResponse>> getAllUsers() {
-        List<UserResponse> users = userService.getAllUsers().stream()
-                .map(this::entityToUserResponse)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(users);
+    public ResponseEntity<List<UserResponse>> getAllUsers(@RequestParam(required = false) Long after,
+                                                          @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                                          WebRequest request) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null && request.checkNotModified(
+                pageETag(userService.getUserVersions(after, pageSize), UserVersion::id, UserVersion::version))) {
+            return null;
+        }
+        return page(userService.getUsers(after, pageSize), pageSize);
+    }
+
+    /**
+     * Server-side filtering by role, status, created/updated/lastLogin ranges and username/email
+     * prefix, paged by id like {@link #getAllUsers}.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<UserResponse>> searchUsers(UserSearchCriteria criteria,
+                                                          @RequestParam(required = false) Long after,
+                                                          @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        return page(userService.searchUsers(criteria, after, pageSize), pageSize);
     }
 
+    /**
+     * Streams every user without materializing the table in memory, as newline-delimited JSON or,
+     * depending on {@code Accept}, as a CBOR sequence or a stream of Smile values.
+     */
+    @GetMapping(value = "/stream", produces = {"application/x-ndjson", "application/cbor-seq", "application/x-jackson-smile"})
+    public ResponseEntity<StreamingResponseBody> streamUsers(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        ResponseFormats.Format format = responseFormats.sequence(accept);
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter writer = format.users().writeValues(outputStream)) {
+                userService.streamUsers(user -> {
+                    try {
+                        writer.write(viewToUserResponse(user));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(body);
+    }
+
+    /**
+     * With {@code If-Match} the update only succeeds if the user still has that ETag; otherwise
+     * it is rejected with 412 and the current ETag, without writing anything.
+     */
     @PutMapping("/{id}")
-    public ResponseEntity<UserResponse> updateUser(@PathVariable Long id, @RequestBody UserDto userDto) {
-        User updatedUser = userService.updateUser(id, userDto);
-        return ResponseEntity.ok(entityToUserResponse(updatedUser));
+    public ResponseEntity<UserResponse> updateUser(@PathVariable Long id, @RequestBody UserDto userDto,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        User updatedUser = userService.updateUser(id, userDto, expectedVersion(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(userETag(updatedUser.getVersion()))
+                .body(entityToUserResponse(updatedUser));
     }
 
     @DeleteMapping("/{id}")
@@ -59,12 +351,72 @@ public class UserController {
         return ResponseEntity.noContent().build();
     }
 
-    @PostMapping("/{id}/reset-password")
-    public ResponseEntity<Void> resetPassword(@PathVariable Long id, @RequestBody String newPassword) {
-        userService.resetPassword(id, newPassword);
+    @PostMapping(value = "/{id}/reset-password", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Void> resetPassword(@PathVariable Long id, @RequestBody @Valid ResetPasswordRequest request) {
+        userService.resetPassword(id, request.getPassword());
         return ResponseEntity.ok().build();
     }
 
+    private static ResponseEntity<List<UserResponse>> page(List<UserView> page, int pageSize) {
+        List<UserResponse> users = page.stream()
+                .map(UserController::viewToUserResponse)
+                .collect(Collectors.toList());
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(pageETag(page, UserView::id, UserView::version))
+                .varyBy(HttpHeaders.ACCEPT);
+        if (page.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(page.getLast().id()));
+        }
+        return response.body(users);
+    }
+
+    static String userETag(long version) {
+        return String.valueOf(version);
+    }
+
+    // Both timestamps are part of the representation, and a login does not touch updated
+    static long lastModified(Date updated, Date lastLogin) {
+        return Math.max(updated.getTime(), lastLogin == null ? 0 : lastLogin.getTime());
+    }
+
+    /**
+     * Weak 64-bit FNV-1a over the (id, version) pairs of a page. Any insert, delete or update
+     * inside the page's id window changes it. Tomcat only compresses responses without a strong
+     * ETag, and pages are the responses worth compressing.
+     */
+    static <T> String pageETag(List<T> rows, ToLongFunction<T> id, ToLongFunction<T> version) {
+        long hash = 0xcbf29ce484222325L;
+        for (T row : rows) {
+            hash = (hash ^ id.applyAsLong(row)) * 0x100000001b3L;
+            hash = (hash ^ version.applyAsLong(row)) * 0x100000001b3L;
+        }
+        return "W/\"" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * The version an {@code If-Match} header requires, or {@code null} for no header or
+     * {@code *}. Weak, malformed or multiple ETags can never match a single version under the
+     * strong comparison, so they map to a version no user has.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        List<ETag> tags = ETag.parse(ifMatch);
+        if (tags.size() == 1 && tags.getFirst().isWildcard()) {
+            return null;
+        }
+        if (tags.size() == 1 && !tags.getFirst().weak()) {
+            try {
+                return Long.valueOf(tags.getFirst().tag());
+            } catch (NumberFormatException e) {
+                // falls through
+            }
+        }
+        return -1L;
+    }
+
     private UserDto entityToDto(User user) {
         return UserDto.builder()
                 .id(user.getId())
@@ -79,7 +431,19 @@ public class UserController {
                 .build();
     }
 
-    private UserResponse entityToUserResponse(User user) {
+    static UserResponse viewToUserResponse(UserView user) {
+        return UserResponse.builder()
+                .username(user.username())
+                .email(user.email())
+                .role(user.role().name())
+                .userStatus(user.status().name())
+                .created(user.created())
+                .updated(user.updated())
+                .lastLogin(user.lastLogin())
+                .build();
+    }
+
+    static UserResponse entityToUserResponse(User user) {
         return UserResponse.builder()
                 .username(user.getUsername())
                 .email(user.getEmail())
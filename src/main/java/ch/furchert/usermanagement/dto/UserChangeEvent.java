@@ -0,0 +1,23 @@
+package ch.furchert.usermanagement.dto;
+
+import ch.furchert.usermanagement.entity.ChangeType;
+import ch.furchert.usermanagement.entity.Role;
+import ch.furchert.usermanagement.entity.Status;
+
+import java.util.Date;
+
+/**
+ * One published entry of the user change feed: the user as it was right after the change.
+ * <p>
+ * Offsets are gapless and ascending, so a consumer resumes with the offset of the last change it
+ * applied. {@code PASSWORD_RESET} carries no secret, only the fact that the password changed.
+ */
+public record UserChangeEvent(long offset,
+                              ChangeType type,
+                              Long userId,
+                              String username,
+                              String email,
+                              Role role,
+                              Status status,
+                              Date changed) {
+}
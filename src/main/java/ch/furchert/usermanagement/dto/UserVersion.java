@@ -0,0 +1,13 @@
+package ch.furchert.usermanagement.dto;
+
+import java.util.Date;
+
+/**
+ * The columns a conditional request is validated against: enough to build the ETag and
+ * Last-Modified of a user without selecting, mapping or serializing the user itself.
+ */
+public record UserVersion(Long id,
+                          Long version,
+                          Date updated,
+                          Date lastLogin) {
+}
@@ -0,0 +1,24 @@
+package ch.furchert.usermanagement.dto;
+
+import ch.furchert.usermanagement.entity.Role;
+import ch.furchert.usermanagement.entity.Status;
+
+import java.util.Date;
+
+/**
+ * Read-only projection of a user with exactly the columns exposed by
+ * {@link ch.furchert.usermanagement.dto.response.UserResponse} plus the id for cursors.
+ * <p>
+ * Selected with a JPQL constructor expression, so it is never managed by the persistence
+ * context and never carries the password hash.
+ */
+public record UserView(Long id,
+                       String username,
+                       String email,
+                       Role role,
+                       Status status,
+                       Date created,
+                       Date updated,
+                       Date lastLogin,
+                       Long version) {
+}
@@ -0,0 +1,15 @@
+package ch.furchert.usermanagement.dto.request;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Body of {@code POST /users/bulk/delete}: the users to delete, either {@code ids} or a
+ * {@code filter}.
+ */
+@Data
+public class BulkDeleteRequest {
+    private List<Long> ids;
+    private UserSearchCriteria filter;
+}
@@ -0,0 +1,20 @@
+package ch.furchert.usermanagement.dto.request;
+
+import ch.furchert.usermanagement.entity.Status;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Body of {@code POST /users/bulk/status}: the users to change, either {@code ids} or a
+ * {@code filter}, and the status they get.
+ */
+@Data
+public class BulkStatusRequest {
+    private List<Long> ids;
+    private UserSearchCriteria filter;
+
+    @NotNull(message = "Status is required")
+    private Status status;
+}
@@ -0,0 +1,23 @@
+package ch.furchert.usermanagement.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Either {@code {"password": "..."}} or the password as a bare JSON string.
+ */
+@Data
+@NoArgsConstructor
+public class ResetPasswordRequest {
+    @NotBlank(message = "Password is required")
+    @Size(min = 8, message = "Password must be at least 8 characters")
+    private String password;
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public ResetPasswordRequest(String password) {
+        this.password = password;
+    }
+}
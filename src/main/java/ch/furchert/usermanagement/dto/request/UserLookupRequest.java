@@ -0,0 +1,16 @@
+package ch.furchert.usermanagement.dto.request;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Body of {@code POST /users/lookup}: the users to resolve, by exactly one of {@code ids},
+ * {@code usernames} or {@code emails}.
+ */
+@Data
+public class UserLookupRequest {
+    private List<Long> ids;
+    private List<String> usernames;
+    private List<String> emails;
+}
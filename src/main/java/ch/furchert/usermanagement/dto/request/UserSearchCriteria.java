@@ -0,0 +1,48 @@
+package ch.furchert.usermanagement.dto.request;
+
+import ch.furchert.usermanagement.entity.Role;
+import ch.furchert.usermanagement.entity.Status;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.Instant;
+
+/**
+ * Filters of {@code GET /users/search} and of the bulk operations. Every field is optional and all given ones must match.
+ * Ranges are inclusive at {@code from} and exclusive at {@code to}; prefixes ignore case.
+ */
+@Data
+public class UserSearchCriteria {
+    private Role role;
+    private Status status;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private Instant createdFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private Instant createdTo;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private Instant updatedFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private Instant updatedTo;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private Instant lastLoginFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private Instant lastLoginTo;
+
+    private String usernamePrefix;
+    private String emailPrefix;
+
+    /**
+     * Whether any filter is set; bulk operations refuse to run on all users.
+     */
+    public boolean hasAnyCriterion() {
+        return role != null || status != null
+                || createdFrom != null || createdTo != null
+                || updatedFrom != null || updatedTo != null
+                || lastLoginFrom != null || lastLoginTo != null
+                || (usernamePrefix != null && !usernamePrefix.isEmpty())
+                || (emailPrefix != null && !emailPrefix.isEmpty());
+    }
+}
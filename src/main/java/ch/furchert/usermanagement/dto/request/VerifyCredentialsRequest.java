@@ -0,0 +1,13 @@
+package ch.furchert.usermanagement.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class VerifyCredentialsRequest {
+    @NotBlank(message = "Username or email is required")
+    private String login;
+
+    @NotBlank(message = "Password is required")
+    private String password;
+}
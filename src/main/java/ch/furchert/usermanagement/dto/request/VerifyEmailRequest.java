@@ -0,0 +1,10 @@
+package ch.furchert.usermanagement.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class VerifyEmailRequest {
+    @NotBlank(message = "Token is required")
+    private String token;
+}
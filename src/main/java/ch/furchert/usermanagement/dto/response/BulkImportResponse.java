@@ -0,0 +1,14 @@
+package ch.furchert.usermanagement.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BulkImportResponse {
+    private int created;
+    private int failed;
+    private List<BulkImportResult> results;
+}
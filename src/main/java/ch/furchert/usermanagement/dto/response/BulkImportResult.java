@@ -0,0 +1,21 @@
+package ch.furchert.usermanagement.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class BulkImportResult {
+    private int index;
+    private String username;
+    private Outcome outcome;
+    private Long id;
+    private String message;
+
+    public enum Outcome {
+        CREATED,
+        INVALID,
+        DUPLICATE,
+        CONFLICT
+    }
+}
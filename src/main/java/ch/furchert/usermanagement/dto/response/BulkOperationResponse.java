@@ -0,0 +1,10 @@
+package ch.furchert.usermanagement.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class BulkOperationResponse {
+    private int affected;
+}
@@ -0,0 +1,8 @@
+package ch.furchert.usermanagement.entity;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    PASSWORD_RESET
+}
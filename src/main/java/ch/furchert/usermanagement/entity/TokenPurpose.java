@@ -0,0 +1,6 @@
+package ch.furchert.usermanagement.entity;
+
+public enum TokenPurpose {
+    VERIFY_EMAIL,
+    RESET_PASSWORD
+}
@@ -0,0 +1,9 @@
+package ch.furchert.usermanagement.exception;
+
+import ch.furchert.usermanagement.entity.Status;
+
+public class AccountNotActiveException extends RuntimeException {
+    public AccountNotActiveException(Status status) {
+        super("Account is " + status);
+    }
+}
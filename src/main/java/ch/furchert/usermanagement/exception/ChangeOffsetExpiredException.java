@@ -0,0 +1,8 @@
+package ch.furchert.usermanagement.exception;
+
+public class ChangeOffsetExpiredException extends RuntimeException {
+    public ChangeOffsetExpiredException(long after, long oldestOffset) {
+        super("Changes after offset " + after + " are no longer retained (oldest is " + oldestOffset
+                + "), reload the users and continue from the current head offset");
+    }
+}
@@ -0,0 +1,15 @@
+package ch.furchert.usermanagement.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class HashingCapacityExceededException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public HashingCapacityExceededException(Duration retryAfter) {
+        super("Password hashing capacity exhausted, retry later");
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,7 @@
+package ch.furchert.usermanagement.exception;
+
+public class InvalidCredentialsException extends RuntimeException {
+    public InvalidCredentialsException() {
+        super("Invalid username/email or password");
+    }
+}
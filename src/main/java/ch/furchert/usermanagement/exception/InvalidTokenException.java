@@ -0,0 +1,7 @@
+package ch.furchert.usermanagement.exception;
+
+public class InvalidTokenException extends RuntimeException {
+    public InvalidTokenException() {
+        super("Token is invalid, expired or has already been used");
+    }
+}
@@ -0,0 +1,15 @@
+package ch.furchert.usermanagement.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class LoginThrottledException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public LoginThrottledException(Duration retryAfter) {
+        super("Too many failed login attempts, retry later");
+        this.retryAfter = retryAfter;
+    }
+}
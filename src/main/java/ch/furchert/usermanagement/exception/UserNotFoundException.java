@@ -4,4 +4,8 @@ public class UserNotFoundException extends RuntimeException {
     public UserNotFoundException(Long userId) {
         super("User not found with ID: " + userId);
     }
+
+    public UserNotFoundException(String field, String value) {
+        super("User not found with " + field + ": " + value);
+    }
 }
@@ -0,0 +1,13 @@
+package ch.furchert.usermanagement.exception;
+
+import lombok.Getter;
+
+@Getter
+public class VersionMismatchException extends RuntimeException {
+    private final long currentVersion;
+
+    public VersionMismatchException(Long userId, long currentVersion) {
+        super("User with ID " + userId + " has been modified since it was read");
+        this.currentVersion = currentVersion;
+    }
+}
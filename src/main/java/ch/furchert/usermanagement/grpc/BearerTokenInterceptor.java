@@ -0,0 +1,48 @@
+package ch.furchert.usermanagement.grpc;
+
+import ch.furchert.usermanagement.security.CachingJwtDecoder;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/**
+ * Requires an {@code authorization: Bearer <token>} header on every call when
+ * {@code security.jwt.required} is set, validated by the same decoder as the REST endpoints.
+ * Until the issuer's keys are loaded, calls get {@code UNAVAILABLE} like requests get 503.
+ */
+@RequiredArgsConstructor
+public class BearerTokenInterceptor implements ServerInterceptor {
+
+    static final Metadata.Key<String> AUTHORIZATION = Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER);
+    private static final String BEARER = "Bearer ";
+
+    private final CachingJwtDecoder jwtDecoder;
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        String authorization = headers.get(AUTHORIZATION);
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return reject(call, Status.UNAUTHENTICATED.withDescription("Bearer token required"));
+        }
+        if (!jwtDecoder.isReady()) {
+            return reject(call, Status.UNAVAILABLE.withDescription("Token issuer not available yet"));
+        }
+        try {
+            jwtDecoder.decode(authorization.substring(BEARER.length()).trim());
+        } catch (JwtException e) {
+            return reject(call, Status.UNAUTHENTICATED.withDescription(e.getMessage()));
+        }
+        return next.startCall(call, headers);
+    }
+
+    private static <ReqT, RespT> ServerCall.Listener<ReqT> reject(ServerCall<ReqT, RespT> call, Status status) {
+        call.close(status, new Metadata());
+        return new ServerCall.Listener<>() {
+        };
+    }
+}
@@ -0,0 +1,98 @@
+package ch.furchert.usermanagement.grpc;
+
+import ch.furchert.usermanagement.exception.ChangeOffsetExpiredException;
+import ch.furchert.usermanagement.exception.UserNotFoundException;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.grpc.StatusException;
+import io.grpc.StatusRuntimeException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+
+/**
+ * What {@code GlobalExceptionHandler} is for the controllers: an exception thrown by a handler
+ * closes the call with a matching status instead of gRPC's {@code UNKNOWN}.
+ */
+@Slf4j
+public class ExceptionStatusInterceptor implements ServerInterceptor {
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        ClosingCall<ReqT, RespT> closing = new ClosingCall<>(call);
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(next.startCall(closing, headers)) {
+            @Override
+            public void onMessage(ReqT message) {
+                try {
+                    super.onMessage(message);
+                } catch (RuntimeException e) {
+                    closing.fail(e);
+                }
+            }
+
+            @Override
+            public void onHalfClose() {
+                try {
+                    super.onHalfClose();
+                } catch (RuntimeException e) {
+                    closing.fail(e);
+                }
+            }
+
+            @Override
+            public void onReady() {
+                try {
+                    super.onReady();
+                } catch (RuntimeException e) {
+                    closing.fail(e);
+                }
+            }
+        };
+    }
+
+    static Status status(Throwable e) {
+        return switch (e) {
+            case StatusRuntimeException statusException -> statusException.getStatus();
+            case StatusException statusException -> statusException.getStatus();
+            case UserNotFoundException notFound -> Status.NOT_FOUND.withDescription(notFound.getMessage());
+            case ChangeOffsetExpiredException expired -> Status.OUT_OF_RANGE.withDescription(expired.getMessage());
+            // Pool timeouts and lost connections; worth a retry, possibly on another instance
+            case TransientDataAccessException transientFailure -> Status.UNAVAILABLE.withDescription("Database unavailable, retry");
+            case DataAccessResourceFailureException resourceFailure -> Status.UNAVAILABLE.withDescription("Database unavailable, retry");
+            default -> Status.INTERNAL.withCause(e);
+        };
+    }
+
+    private static final class ClosingCall<ReqT, RespT> extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
+        // Also closed by stream observers on other threads, e.g. the change feed's
+        private volatile boolean closed;
+
+        private ClosingCall(ServerCall<ReqT, RespT> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            closed = true;
+            super.close(status, trailers);
+        }
+
+        void fail(RuntimeException e) {
+            Status status = status(e);
+            if (status.getCode() == Status.Code.INTERNAL) {
+                log.error("gRPC call {} failed", getMethodDescriptor().getFullMethodName(), e);
+            }
+            // Failed after its response was complete, e.g. while cleaning up
+            if (closed) {
+                return;
+            }
+            close(status, new Metadata());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ch.furchert.usermanagement.grpc;
+
+import io.grpc.Server;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the gRPC server with the application context and stops it before the beans its services
+ * use. Stopping refuses new calls and gives running ones the grace period before cancelling them.
+ */
+@Slf4j
+public class GrpcServer implements SmartLifecycle {
+
+    private final Server server;
+    private final Duration shutdownGrace;
+    private volatile boolean running;
+
+    public GrpcServer(Server server, Duration shutdownGrace) {
+        this.server = server;
+        this.shutdownGrace = shutdownGrace;
+    }
+
+    @Override
+    public void start() {
+        try {
+            server.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start the gRPC server", e);
+        }
+        running = true;
+        log.info("gRPC server started on {}", server.getListenSockets());
+    }
+
+    @Override
+    public void stop() {
+        server.shutdown();
+        try {
+            if (!server.awaitTermination(shutdownGrace.toMillis(), TimeUnit.MILLISECONDS)) {
+                server.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            server.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * The port actually bound, also with {@code grpc.port=0}; -1 in-process.
+     */
+    public int getPort() {
+        return server.getPort();
+    }
+}
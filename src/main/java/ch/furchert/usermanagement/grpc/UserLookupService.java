@@ -0,0 +1,210 @@
+package ch.furchert.usermanagement.grpc;
+
+import ch.furchert.usermanagement.dto.UserChangeEvent;
+import ch.furchert.usermanagement.dto.UserView;
+import ch.furchert.usermanagement.exception.ChangeOffsetExpiredException;
+import ch.furchert.usermanagement.grpc.v1.BatchGetUsersRequest;
+import ch.furchert.usermanagement.grpc.v1.BatchGetUsersResponse;
+import ch.furchert.usermanagement.grpc.v1.ChangeType;
+import ch.furchert.usermanagement.grpc.v1.GetUserRequest;
+import ch.furchert.usermanagement.grpc.v1.ListUsersRequest;
+import ch.furchert.usermanagement.grpc.v1.Role;
+import ch.furchert.usermanagement.grpc.v1.Status;
+import ch.furchert.usermanagement.grpc.v1.User;
+import ch.furchert.usermanagement.grpc.v1.UserChange;
+import ch.furchert.usermanagement.grpc.v1.UserLookupGrpc;
+import ch.furchert.usermanagement.grpc.v1.UserResult;
+import ch.furchert.usermanagement.grpc.v1.WatchChangesRequest;
+import ch.furchert.usermanagement.service.UserChangeFeed;
+import ch.furchert.usermanagement.service.UserService;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The {@code UserLookup} service of {@code user_lookup.proto}, on the same {@link UserService} and
+ * {@link UserChangeFeed} as the REST endpoints. Handlers throw like controllers do;
+ * {@link ExceptionStatusInterceptor} turns the exceptions into statuses.
+ * <p>
+ * Both streams follow the client's flow control: they only read more while the transport is
+ * ready, and continue from the {@code onReady} callback. A cancelled call, including one whose
+ * deadline has passed, stops reading.
+ */
+@RequiredArgsConstructor
+public class UserLookupService extends UserLookupGrpc.UserLookupImplBase {
+
+    static final int MAX_BATCH_KEYS = 1_000;
+
+    private final UserService userService;
+    private final UserChangeFeed changeFeed;
+    private final int listPageSize;
+
+    @Override
+    public void getUser(GetUserRequest request, StreamObserver<User> responseObserver) {
+        UserView user = switch (request.getKeyCase()) {
+            case ID -> userService.getUserView(request.getId());
+            case USERNAME -> userService.getUserViewByUsername(request.getUsername());
+            case EMAIL -> userService.getUserViewByEmail(request.getEmail());
+            case KEY_NOT_SET -> throw invalidArgument("One of id, username or email is required");
+        };
+        responseObserver.onNext(toUser(user));
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void batchGetUsers(BatchGetUsersRequest request, StreamObserver<BatchGetUsersResponse> responseObserver) {
+        int ids = request.getIdsCount();
+        int usernames = request.getUsernamesCount();
+        int emails = request.getEmailsCount();
+        if (Integer.signum(ids) + Integer.signum(usernames) + Integer.signum(emails) != 1) {
+            throw invalidArgument("Exactly one of ids, usernames or emails is required");
+        }
+        if (ids + usernames + emails > MAX_BATCH_KEYS) {
+            throw io.grpc.Status.RESOURCE_EXHAUSTED
+                    .withDescription("At most " + MAX_BATCH_KEYS + " keys per lookup")
+                    .asRuntimeException();
+        }
+
+        BatchGetUsersResponse.Builder response = BatchGetUsersResponse.newBuilder();
+        Consumer<UserView> results = user -> response.addResults(user == null
+                ? UserResult.getDefaultInstance()
+                : UserResult.newBuilder().setUser(toUser(user)).build());
+        if (ids > 0) {
+            userService.lookupUsersByIds(request.getIdsList(), results);
+        } else if (usernames > 0) {
+            userService.lookupUsersByUsernames(request.getUsernamesList(), results);
+        } else {
+            userService.lookupUsersByEmails(request.getEmailsList(), results);
+        }
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void listUsers(ListUsersRequest request, StreamObserver<User> responseObserver) {
+        ServerCallStreamObserver<User> observer = (ServerCallStreamObserver<User>) responseObserver;
+        UserPages pages = new UserPages(observer, request.getAfter());
+        observer.setOnCancelHandler(pages::cancel);
+        observer.setOnReadyHandler(pages);
+        pages.run();
+    }
+
+    @Override
+    public void watchChanges(WatchChangesRequest request, StreamObserver<UserChange> responseObserver) {
+        ServerCallStreamObserver<UserChange> observer = (ServerCallStreamObserver<UserChange>) responseObserver;
+        UserChangeFeed.Subscription subscription = changeFeed.subscribe(request.getAfter(), new ChangeStream(observer));
+        observer.setOnCancelHandler(subscription::cancel);
+        observer.setOnReadyHandler(subscription::deliver);
+        subscription.deliver();
+    }
+
+    /**
+     * Reads one keyset page at a time, each in its own read-only transaction, and only while the
+     * client keeps up. Runs on the call's serialized executor, first from the handler and then
+     * from {@code onReady}.
+     */
+    private final class UserPages implements Runnable {
+        private final ServerCallStreamObserver<User> observer;
+        private long after;
+        private boolean done;
+
+        private UserPages(ServerCallStreamObserver<User> observer, long after) {
+            this.observer = observer;
+            this.after = after;
+        }
+
+        @Override
+        public void run() {
+            while (!done && observer.isReady()) {
+                List<UserView> page = userService.getUsers(after, listPageSize);
+                for (UserView user : page) {
+                    observer.onNext(toUser(user));
+                }
+                if (page.size() < listPageSize) {
+                    done = true;
+                    observer.onCompleted();
+                } else {
+                    after = page.getLast().id();
+                }
+            }
+        }
+
+        void cancel() {
+            done = true;
+        }
+    }
+
+    private record ChangeStream(ServerCallStreamObserver<UserChange> observer) implements UserChangeFeed.ChangeSink {
+
+        @Override
+        public boolean isReady() {
+            return observer.isReady() && !observer.isCancelled();
+        }
+
+        @Override
+        public void send(List<UserChangeEvent> batch) {
+            for (UserChangeEvent change : batch) {
+                observer.onNext(toChange(change));
+            }
+        }
+
+        @Override
+        public void expired(ChangeOffsetExpiredException e) {
+            observer.onError(ExceptionStatusInterceptor.status(e).asRuntimeException());
+        }
+
+        @Override
+        public void failed(Exception e) {
+            observer.onError(ExceptionStatusInterceptor.status(e).asRuntimeException());
+        }
+    }
+
+    static User toUser(UserView user) {
+        return User.newBuilder()
+                .setId(user.id())
+                .setUsername(user.username())
+                .setEmail(user.email())
+                .setRole(Role.valueOf(user.role().name()))
+                .setStatus(Status.valueOf(user.status().name()))
+                .setCreated(millis(user.created()))
+                .setUpdated(millis(user.updated()))
+                .setLastLogin(millis(user.lastLogin()))
+                .setVersion(user.version())
+                .build();
+    }
+
+    static UserChange toChange(UserChangeEvent change) {
+        UserChange.Builder builder = UserChange.newBuilder()
+                .setOffset(change.offset())
+                .setType(ChangeType.valueOf(change.type().name()))
+                .setChanged(millis(change.changed()));
+        if (change.userId() != null) {
+            builder.setUserId(change.userId());
+        }
+        if (change.username() != null) {
+            builder.setUsername(change.username());
+        }
+        if (change.email() != null) {
+            builder.setEmail(change.email());
+        }
+        if (change.role() != null) {
+            builder.setRole(Role.valueOf(change.role().name()));
+        }
+        if (change.status() != null) {
+            builder.setStatus(Status.valueOf(change.status().name()));
+        }
+        return builder.build();
+    }
+
+    private static long millis(Date date) {
+        return date == null ? 0 : date.getTime();
+    }
+
+    private static RuntimeException invalidArgument(String description) {
+        return io.grpc.Status.INVALID_ARGUMENT.withDescription(description).asRuntimeException();
+    }
+}
@@ -0,0 +1,250 @@
+package ch.furchert.usermanagement.mail;
+
+import ch.furchert.usermanagement.config.MailQueueProperties;
+import ch.furchert.usermanagement.repository.MailQueueRepository;
+import ch.furchert.usermanagement.repository.MailQueueRepository.QueuedMail;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sends the mails in {@code mail_queue}, on a thread of its own so a slow SMTP server holds up
+ * neither requests nor the application's other scheduled tasks.
+ * <p>
+ * Each round claims a batch of due mails in a short transaction and sends them outside of it over
+ * one SMTP connection, which is kept open across rounds and closed after {@code idle-timeout}
+ * without mail. Sends are paced to {@code max-per-second}. A mail that cannot be sent is retried
+ * with exponential backoff and marked FAILED after {@code max-attempts}; a mail that cannot even be
+ * rendered fails right away.
+ */
+@Slf4j
+public class MailDispatcher {
+
+    private final MailQueueRepository mailQueue;
+    private final MailTemplates templates;
+    private final MailQueueProperties properties;
+    private final JavaMailSenderImpl mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final long sendIntervalNanos;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+
+    // Rounds run on the dispatcher thread, but drain() may also be called directly
+    private final ReentrantLock lock = new ReentrantLock();
+    private ScheduledExecutorService executor;
+    private Transport transport;
+    private long lastSendNanos;
+    private long nextSendNanos;
+
+    public MailDispatcher(MailQueueRepository mailQueue, MailTemplates templates, MailQueueProperties properties,
+                          JavaMailSenderImpl mailSender, PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry, Clock clock) {
+        this.mailQueue = mailQueue;
+        this.templates = templates;
+        this.properties = properties;
+        this.mailSender = mailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.sendIntervalNanos = properties.maxPerSecond() > 0 ? 1_000_000_000L / properties.maxPerSecond() : 0;
+        this.sent = Counter.builder("mail.sent")
+                .description("Mails handed to the SMTP server")
+                .register(meterRegistry);
+        this.retried = Counter.builder("mail.send.failures")
+                .tag("outcome", "retry")
+                .description("Mails that could not be sent")
+                .register(meterRegistry);
+        this.failed = Counter.builder("mail.send.failures")
+                .tag("outcome", "failed")
+                .description("Mails that could not be sent")
+                .register(meterRegistry);
+    }
+
+    public void start() {
+        if (!properties.dispatcherEnabled()) {
+            log.info("Mail dispatcher disabled, mails stay queued");
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("mail-dispatcher").daemon().factory());
+        long interval = properties.dispatchInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::drain, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        lock.lock();
+        try {
+            closeTransport();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends due mails until none are left and returns how many were sent. Never throws, so the
+     * schedule keeps running when the database is unavailable for a moment.
+     */
+    public int drain() {
+        lock.lock();
+        try {
+            // One NOOP per round instead of one per mail to find connections the server dropped
+            if (transport != null && !transport.isConnected()) {
+                closeTransport();
+            }
+            int total = 0;
+            int claimed;
+            List<Long> delivered;
+            do {
+                delivered = new ArrayList<>();
+                claimed = dispatchBatch(delivered);
+                total += delivered.size();
+                // A batch without a single sent mail means the server is down, wait for the next round
+            } while (claimed == properties.batchSize() && !delivered.isEmpty());
+            if (transport != null && System.nanoTime() - lastSendNanos > properties.idleTimeout().toNanos()) {
+                closeTransport();
+            }
+            return total;
+        } catch (RuntimeException e) {
+            log.warn("Mail dispatch round failed", e);
+            return 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Delay before attempt {@code attempts + 1}: {@code initial-backoff} doubled per earlier
+     * failure, at most {@code max-backoff}.
+     */
+    public Duration backoff(int attempts) {
+        Duration delay = properties.initialBackoff().multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(properties.maxBackoff()) > 0 ? properties.maxBackoff() : delay;
+    }
+
+    private int dispatchBatch(List<Long> delivered) {
+        Instant now = clock.instant();
+        List<QueuedMail> batch = transactionTemplate.execute(
+                status -> mailQueue.claimDue(properties.batchSize(), now, now.plus(properties.lease())));
+        for (int i = 0; i < batch.size(); i++) {
+            QueuedMail mail = batch.get(i);
+            MimeMessage message;
+            try {
+                message = compose(mail);
+            } catch (MessagingException | IllegalArgumentException e) {
+                giveUp(mail, mail.attempts() + 1, e);
+                continue;
+            }
+            Transport connection;
+            try {
+                connection = connection();
+            } catch (MessagingException e) {
+                // Server unreachable: no point in trying the rest of the batch now
+                batch.subList(i, batch.size()).forEach(remaining -> retryLater(remaining, e));
+                break;
+            }
+            pace();
+            try {
+                connection.sendMessage(message, message.getAllRecipients());
+                lastSendNanos = System.nanoTime();
+                delivered.add(mail.id());
+            } catch (MessagingException e) {
+                // The connection may be in any state now, the next mail gets a fresh one
+                closeTransport();
+                retryLater(mail, e);
+            }
+        }
+        if (!delivered.isEmpty()) {
+            // Sent mails are deleted, their bodies carry tokens
+            transactionTemplate.executeWithoutResult(status -> mailQueue.deleteAll(delivered));
+            sent.increment(delivered.size());
+        }
+        return batch.size();
+    }
+
+    private MimeMessage compose(QueuedMail mail) throws MessagingException {
+        MailTemplates.RenderedMail rendered = templates.render(mail.template(), mail.model());
+        MimeMessage message = new MimeMessage(mailSender.getSession());
+        message.setFrom(new InternetAddress(properties.from()));
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(mail.recipient()));
+        message.setSubject(rendered.subject(), StandardCharsets.UTF_8.name());
+        message.setText(rendered.body(), StandardCharsets.UTF_8.name());
+        message.setSentDate(new Date(clock.millis()));
+        message.saveChanges();
+        return message;
+    }
+
+    private Transport connection() throws MessagingException {
+        if (transport == null) {
+            Transport connecting = mailSender.getSession().getTransport(mailSender.getProtocol());
+            connecting.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+            transport = connecting;
+        }
+        return transport;
+    }
+
+    private void pace() {
+        if (sendIntervalNanos == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (nextSendNanos - now > 0) {
+            LockSupport.parkNanos(nextSendNanos - now);
+            now = System.nanoTime();
+        }
+        nextSendNanos = Math.max(now, nextSendNanos) + sendIntervalNanos;
+    }
+
+    private void retryLater(QueuedMail mail, Exception cause) {
+        int attempts = mail.attempts() + 1;
+        if (attempts >= properties.maxAttempts()) {
+            giveUp(mail, attempts, cause);
+            return;
+        }
+        mailQueue.retryAt(mail.id(), attempts, clock.instant().plus(backoff(attempts)), cause.getMessage());
+        retried.increment();
+        log.debug("Mail {} not sent, attempt {}: {}", mail.id(), attempts, cause.getMessage());
+    }
+
+    private void giveUp(QueuedMail mail, int attempts, Exception cause) {
+        mailQueue.fail(mail.id(), attempts, cause.getMessage());
+        failed.increment();
+        log.warn("Mail {} ({}) to {} failed after {} attempts: {}",
+                mail.id(), mail.template(), mail.recipient(), attempts, cause.getMessage());
+    }
+
+    private void closeTransport() {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Closing the SMTP connection failed", e);
+            }
+            transport = null;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ch.furchert.usermanagement.mail;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain text mail templates from {@code classpath:mail/<name>.txt}. The first line is
+ * {@code Subject: ...}, the body follows after a blank line, and {@code {{name}}} placeholders are
+ * filled from the mail's model.
+ * <p>
+ * All templates are parsed once at startup into literal and placeholder segments, so rendering a
+ * mail is a single pass over a StringBuilder without any lookup of the template source.
+ */
+@Component
+public class MailTemplates {
+
+    private static final String SUBJECT = "Subject:";
+
+    private final Map<String, Template> templates = new HashMap<>();
+
+    public MailTemplates(ResourcePatternResolver resourceResolver) {
+        try {
+            for (Resource resource : resourceResolver.getResources("classpath:mail/*.txt")) {
+                String name = resource.getFilename().substring(0, resource.getFilename().length() - ".txt".length());
+                templates.put(name, parse(name, resource.getContentAsString(StandardCharsets.UTF_8)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Mail templates could not be read", e);
+        }
+    }
+
+    public record RenderedMail(String subject, String body) {
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no such template or the model lacks one of its
+     *                                  placeholders
+     */
+    public RenderedMail render(String name, Map<String, String> model) {
+        Template template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("Unknown mail template " + name);
+        }
+        return new RenderedMail(template.subject().render(name, model), template.body().render(name, model));
+    }
+
+    public boolean contains(String name) {
+        return templates.containsKey(name);
+    }
+
+    private static Template parse(String name, String source) {
+        String text = source.replace("\r\n", "\n");
+        int endOfSubject = text.indexOf('\n');
+        if (!text.startsWith(SUBJECT) || endOfSubject < 0) {
+            throw new IllegalStateException("Mail template " + name + " must start with a '" + SUBJECT + "' line");
+        }
+        String body = text.substring(endOfSubject + 1);
+        return new Template(
+                Segments.compile(name, text.substring(SUBJECT.length(), endOfSubject).strip()),
+                Segments.compile(name, body.startsWith("\n") ? body.substring(1) : body));
+    }
+
+    private record Template(Segments subject, Segments body) {
+    }
+
+    /**
+     * Alternating literals and placeholder names: {@code literals[i]} is followed by
+     * {@code names[i]}, and the last literal ends the text.
+     */
+    private record Segments(String[] literals, String[] names, int estimatedLength) {
+
+        static Segments compile(String template, String text) {
+            List<String> literals = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            int position = 0;
+            int open;
+            while ((open = text.indexOf("{{", position)) >= 0) {
+                int close = text.indexOf("}}", open);
+                if (close < 0) {
+                    throw new IllegalStateException("Unclosed placeholder in mail template " + template);
+                }
+                literals.add(text.substring(position, open));
+                names.add(text.substring(open + 2, close).strip());
+                position = close + 2;
+            }
+            literals.add(text.substring(position));
+            return new Segments(literals.toArray(String[]::new), names.toArray(String[]::new), text.length() + 64 * names.size());
+        }
+
+        String render(String template, Map<String, String> model) {
+            StringBuilder text = new StringBuilder(estimatedLength);
+            for (int i = 0; i < names.length; i++) {
+                String value = model.get(names[i]);
+                if (value == null) {
+                    throw new IllegalArgumentException("Mail template " + template + " needs a value for " + names[i]);
+                }
+                text.append(literals[i]).append(value);
+            }
+            return text.append(literals[names.length]).toString();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package ch.furchert.usermanagement.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Records the number of SQL statements per request as {@value #METRIC}, tagged with the matched
+ * route template (never the raw path) to keep cardinality bounded by the number of endpoints.
+ * A jump in this number usually means an N+1 query slipped in.
+ */
+public class JdbcStatementCountFilter extends OncePerRequestFilter {
+
+    public static final String METRIC = "http.server.requests.jdbc.statements";
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public JdbcStatementCountFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        JdbcStatementCounter.reset();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            summary(pattern instanceof String uri ? uri : "UNKNOWN").record(JdbcStatementCounter.current());
+        }
+    }
+
+    private DistributionSummary summary(String uri) {
+        DistributionSummary summary = summaries.get(uri);
+        if (summary == null) {
+            summary = summaries.computeIfAbsent(uri, key -> DistributionSummary.builder(METRIC)
+                    .description("SQL statements prepared by Hibernate per request")
+                    .tag("uri", key)
+                    .register(meterRegistry));
+        }
+        return summary;
+    }
+}
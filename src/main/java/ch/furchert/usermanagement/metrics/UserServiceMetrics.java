@@ -0,0 +1,111 @@
+package ch.furchert.usermanagement.metrics;
+
+import ch.furchert.usermanagement.exception.InvalidTokenException;
+import ch.furchert.usermanagement.exception.UserNotFoundException;
+import ch.furchert.usermanagement.exception.VersionMismatchException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every {@code UserService} call as {@value #TIMER}, tagged with the method name and an
+ * outcome of {@code success}, {@code not_found}, {@code conflict} or {@code error}.
+ * <p>
+ * Meters are registered once per method on first use; afterwards a call costs two
+ * {@code nanoTime} reads and a map lookup, without allocating. Successful signups and password
+ * resets are also counted separately, since those are what dashboards and alerts look at.
+ */
+public class UserServiceMetrics implements MethodInterceptor {
+
+    public static final String TIMER = "user.service";
+    public static final String SIGNUPS = "user.signups";
+    public static final String PASSWORD_RESETS = "user.password.resets";
+
+    private static final Map<String, String> SUCCESS_COUNTERS = Map.of(
+            "createUser", SIGNUPS,
+            "resetPassword", PASSWORD_RESETS,
+            "resetPasswordWithToken", PASSWORD_RESETS);
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final ConcurrentMap<Method, MethodMeters> meters = new ConcurrentHashMap<>();
+
+    // Resolved lazily: advisors are created before the registry is fully configured
+    public UserServiceMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        MethodMeters methodMeters = meters(invocation.getMethod());
+        long start = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            methodMeters.success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (methodMeters.successCounter != null) {
+                methodMeters.successCounter.increment();
+            }
+            return result;
+        } catch (Throwable e) {
+            methodMeters.failure(e).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private MethodMeters meters(Method method) {
+        MethodMeters methodMeters = meters.get(method);
+        if (methodMeters == null) {
+            methodMeters = meters.computeIfAbsent(method, m -> new MethodMeters(meterRegistry.getObject(), m.getName()));
+        }
+        return methodMeters;
+    }
+
+    private static final class MethodMeters {
+        private final Timer success;
+        private final Timer notFound;
+        private final Timer conflict;
+        private final Timer error;
+        private final Counter successCounter;
+
+        private MethodMeters(MeterRegistry registry, String method) {
+            this.success = timer(registry, method, "success");
+            this.notFound = timer(registry, method, "not_found");
+            this.conflict = timer(registry, method, "conflict");
+            this.error = timer(registry, method, "error");
+            String counter = SUCCESS_COUNTERS.get(method);
+            this.successCounter = counter == null ? null : Counter.builder(counter)
+                    .tag("source", "api")
+                    .register(registry);
+        }
+
+        private Timer failure(Throwable e) {
+            if (e instanceof UserNotFoundException || e instanceof InvalidTokenException) {
+                return notFound;
+            }
+            // IllegalArgumentException is how UserServiceImpl reports a taken username or email
+            if (e instanceof IllegalArgumentException || e instanceof DataIntegrityViolationException
+                    || e instanceof VersionMismatchException || e instanceof OptimisticLockingFailureException) {
+                return conflict;
+            }
+            return error;
+        }
+
+        private static Timer timer(MeterRegistry registry, String method, String outcome) {
+            return Timer.builder(TIMER)
+                    .description("UserService calls by method and outcome")
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package ch.furchert.usermanagement.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code mail_queue} table, in plain JDBC.
+ * <p>
+ * Mails are enqueued in the caller's transaction, so a mail is sent if and only if the change that
+ * caused it commits. Dispatchers claim due mails with {@code FOR UPDATE SKIP LOCKED} and push
+ * their {@code next_attempt} out by a lease, which lets several instances drain the queue without
+ * sending a mail twice, and hands a mail to another instance if its dispatcher dies mid-batch.
+ * <p>
+ * A model can hold a live token in its link, so it lives only as long as the mail is pending:
+ * sent mails are deleted and failed ones keep their row without the model.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MailQueueRepository {
+
+    private static final TypeReference<Map<String, String>> MODEL = new TypeReference<>() {
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public record QueuedMail(long id, String recipient, String template, Map<String, String> model, int attempts) {
+    }
+
+    public record NewMail(String recipient, String template, Map<String, String> model) {
+    }
+
+    public void enqueue(String recipient, String template, Map<String, String> model, Instant now) {
+        Timestamp created = Timestamp.from(now);
+        jdbcTemplate.update("insert into mail_queue (recipient, template, model, next_attempt, created) values (?, ?, ?, ?, ?)",
+                recipient, template, toJson(model), created, created);
+    }
+
+    public void enqueueAll(List<NewMail> mails, Instant now) {
+        Timestamp created = Timestamp.from(now);
+        jdbcTemplate.batchUpdate("insert into mail_queue (recipient, template, model, next_attempt, created) values (?, ?, ?, ?, ?)",
+                mails, 500, (statement, mail) -> {
+                    statement.setString(1, mail.recipient());
+                    statement.setString(2, mail.template());
+                    statement.setString(3, toJson(mail.model()));
+                    statement.setTimestamp(4, created);
+                    statement.setTimestamp(5, created);
+                });
+    }
+
+    /**
+     * Claims up to {@code limit} mails due at {@code now}, oldest first, by moving their next
+     * attempt to {@code leaseUntil}. Runs in its own short transaction; the mails are sent after it
+     * committed.
+     */
+    public List<QueuedMail> claimDue(int limit, Instant now, Instant leaseUntil) {
+        RowMapper<QueuedMail> mapper = (rs, rowNum) -> new QueuedMail(
+                rs.getLong("id"),
+                rs.getString("recipient"),
+                rs.getString("template"),
+                fromJson(rs.getString("model")),
+                rs.getInt("attempts"));
+        List<QueuedMail> mails = jdbcTemplate.query("update mail_queue set next_attempt = ? where id in ("
+                        + "select id from mail_queue where mail_status = 'PENDING' and next_attempt <= ? "
+                        + "order by next_attempt limit ? for update skip locked) "
+                        + "returning id, recipient, template, model, attempts",
+                mapper, Timestamp.from(leaseUntil), Timestamp.from(now), limit);
+        // RETURNING does not keep the order of the subquery
+        return mails.stream().sorted(Comparator.comparingLong(QueuedMail::id)).toList();
+    }
+
+    public void deleteAll(List<Long> ids) {
+        jdbcTemplate.batchUpdate("delete from mail_queue where id = ?", ids, 500,
+                (statement, id) -> statement.setLong(1, id));
+    }
+
+    public void retryAt(long id, int attempts, Instant nextAttempt, String error) {
+        jdbcTemplate.update("update mail_queue set attempts = ?, next_attempt = ?, last_error = ? where id = ?",
+                attempts, Timestamp.from(nextAttempt), truncate(error), id);
+    }
+
+    public void fail(long id, int attempts, String error) {
+        jdbcTemplate.update("update mail_queue set mail_status = 'FAILED', model = null, attempts = ?, last_error = ? where id = ?",
+                attempts, truncate(error), id);
+    }
+
+    public long pendingCount() {
+        Long count = jdbcTemplate.queryForObject("select count(*) from mail_queue where mail_status = 'PENDING'", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    private String toJson(Map<String, String> model) {
+        try {
+            return objectMapper.writeValueAsString(model);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Mail model not serializable", e);
+        }
+    }
+
+    private Map<String, String> fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, MODEL);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable mail model", e);
+        }
+    }
+
+    private static String truncate(String error) {
+        return error == null || error.length() <= 1000 ? error : error.substring(0, 1000);
+    }
+}
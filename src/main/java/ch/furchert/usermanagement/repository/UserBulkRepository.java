@@ -0,0 +1,66 @@
+package ch.furchert.usermanagement.repository;
+
+import ch.furchert.usermanagement.entity.Role;
+import ch.furchert.usermanagement.entity.Status;
+import ch.furchert.usermanagement.entity.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Set-based status changes and deletes on {@code user_account}, one statement per chunk of ids.
+ * <p>
+ * Both statements return the rows they touched, which is what the change log entries and the
+ * cache evictions need, so no row is read before or after it is written. They bypass the
+ * persistence context: callers must not hold managed instances of these users.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserBulkRepository {
+
+    private static final String RETURNING = " returning id, username, email, role, user_status";
+
+    private static final RowMapper<User> CHANGED = (rs, rowNum) -> User.builder()
+            .id(rs.getLong("id"))
+            .username(rs.getString("username"))
+            .email(rs.getString("email"))
+            .role(Role.valueOf(rs.getString("role")))
+            .status(rs.getString("user_status") == null ? null : Status.valueOf(rs.getString("user_status")))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Sets {@code status} on the given users that do not have it yet and bumps their version, so
+     * ETags held by clients stop matching. Returns the users that changed.
+     */
+    public List<User> updateStatus(List<Long> ids, Status status) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("update user_account "
+                    + "set user_status = ?, updated = ?, version = version + 1 "
+                    + "where id = any(?) and user_status is distinct from ?" + RETURNING);
+            statement.setString(1, status.name());
+            statement.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+            statement.setArray(3, connection.createArrayOf("bigint", ids.toArray()));
+            statement.setString(4, status.name());
+            return statement;
+        }, CHANGED);
+    }
+
+    /**
+     * Deletes the given users, their tokens go with them ({@code on delete cascade}). Returns the
+     * users that existed.
+     */
+    public List<User> delete(List<Long> ids) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("delete from user_account where id = any(?)" + RETURNING);
+            statement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            return statement;
+        }, CHANGED);
+    }
+}
@@ -0,0 +1,126 @@
+package ch.furchert.usermanagement.repository;
+
+import ch.furchert.usermanagement.dto.UserChangeEvent;
+import ch.furchert.usermanagement.entity.ChangeType;
+import ch.furchert.usermanagement.entity.Role;
+import ch.furchert.usermanagement.entity.Status;
+import ch.furchert.usermanagement.entity.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * The {@code user_change} outbox and change log, in plain JDBC.
+ * <p>
+ * Appends join the caller's transaction (JdbcTemplate shares the JPA connection), so a change is
+ * logged if and only if it commits. Offsets are only handed out by {@link #publishPending}, under
+ * a transaction-scoped advisory lock, which keeps them gapless and in commit order.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserChangeRepository {
+
+    // pg_advisory_xact_lock key of the publisher ("UCHG")
+    static final long PUBLISH_LOCK = 0x55434847L;
+
+    private static final String INSERT = "insert into user_change "
+            + "(change_type, user_id, username, email, role, user_status, changed) values (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final RowMapper<UserChangeEvent> EVENT = (rs, rowNum) -> new UserChangeEvent(
+            rs.getLong("change_offset"),
+            ChangeType.valueOf(rs.getString("change_type")),
+            rs.getLong("user_id"),
+            rs.getString("username"),
+            rs.getString("email"),
+            Role.valueOf(rs.getString("role")),
+            rs.getString("user_status") == null ? null : Status.valueOf(rs.getString("user_status")),
+            rs.getTimestamp("changed"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void append(ChangeType type, User user) {
+        jdbcTemplate.update(INSERT, statement -> setRow(statement, type, user, now()));
+    }
+
+    public void appendAll(ChangeType type, List<User> users) {
+        Timestamp changed = now();
+        jdbcTemplate.batchUpdate(INSERT, users, 500, (statement, user) -> setRow(statement, type, user, changed));
+    }
+
+    public List<UserChangeEvent> findAfter(long offset, int limit) {
+        return jdbcTemplate.query("select change_offset, change_type, user_id, username, email, role, user_status, changed "
+                + "from user_change where change_offset > ? order by change_offset limit ?", EVENT, offset, limit);
+    }
+
+    public long latestOffset() {
+        Long latest = jdbcTemplate.queryForObject("select max(change_offset) from user_change", Long.class);
+        return latest == null ? 0 : latest;
+    }
+
+    /**
+     * Gives up to {@code limit} pending rows the next offsets, in id order. Must run inside a
+     * transaction; returns the number of rows published, 0 if there was nothing to publish or
+     * another instance is publishing right now.
+     */
+    public int publishPending(int limit) {
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject("select pg_try_advisory_xact_lock(?)", Boolean.class, PUBLISH_LOCK))) {
+            return 0;
+        }
+        List<Long> ids = jdbcTemplate.queryForList(
+                "select id from user_change where change_offset is null order by id limit ?", Long.class, limit);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        long first = latestOffset() + 1;
+        Timestamp published = now();
+        jdbcTemplate.batchUpdate("update user_change set change_offset = ?, published = ? where id = ?",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        statement.setLong(1, first + i);
+                        statement.setTimestamp(2, published);
+                        statement.setLong(3, ids.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return ids.size();
+                    }
+                });
+        return ids.size();
+    }
+
+    /**
+     * Deletes up to {@code limit} of the oldest changes published before {@code cutoff}. The newest
+     * published change always stays, so the next offset continues from it even after a quiet
+     * period longer than the retention.
+     */
+    public int deletePublishedBefore(Timestamp cutoff, int limit) {
+        return jdbcTemplate.update("delete from user_change where id in ("
+                + "select id from user_change where change_offset is not null and published < ? "
+                + "and change_offset < (select max(change_offset) from user_change) "
+                + "order by change_offset limit ?)", cutoff, limit);
+    }
+
+    private static void setRow(PreparedStatement statement, ChangeType type, User user, Timestamp changed)
+            throws SQLException {
+        statement.setString(1, type.name());
+        statement.setLong(2, user.getId());
+        statement.setString(3, user.getUsername());
+        statement.setString(4, user.getEmail());
+        statement.setString(5, user.getRole().name());
+        statement.setString(6, user.getStatus() == null ? null : user.getStatus().name());
+        statement.setTimestamp(7, changed);
+    }
+
+    private static Timestamp now() {
+        return new Timestamp(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,23 @@
+package ch.furchert.usermanagement.repository;
+
+import ch.furchert.usermanagement.dto.UserView;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Resolves many users by id, username or email in one statement, mixed into
+ * {@link UserRepository}.
+ */
+public interface UserLookupRepository {
+
+    /**
+     * Passes one {@link UserView} per id to {@code consumer}, in the order of {@code ids} and
+     * {@code null} where there is no such user.
+     */
+    void findViewsByIds(List<Long> ids, Consumer<UserView> consumer);
+
+    void findViewsByUsernames(List<String> usernames, Consumer<UserView> consumer);
+
+    void findViewsByEmails(List<String> emails, Consumer<UserView> consumer);
+}
@@ -0,0 +1,78 @@
+package ch.furchert.usermanagement.repository;
+
+import ch.furchert.usermanagement.dto.UserView;
+import ch.furchert.usermanagement.entity.Role;
+import ch.furchert.usermanagement.entity.Status;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Passes the keys as one array parameter and joins them with {@code unnest(...) with ordinality},
+ * so the statement text is the same for any number of keys, rows come back in the order of the
+ * keys, and a key without a user yields a row of nulls instead of being left out. Each column is
+ * matched through its primary key or unique index.
+ */
+class UserLookupRepositoryImpl implements UserLookupRepository {
+
+    private static final String SELECT = "select u.id, u.username, u.email, u.role, u.user_status, "
+            + "u.created, u.updated, u.last_login, u.version "
+            + "from unnest(?) with ordinality as k(key, position) "
+            + "left join user_account u on u.%s = k.key "
+            + "order by k.position";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    UserLookupRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void findViewsByIds(List<Long> ids, Consumer<UserView> consumer) {
+        find("id", "bigint", ids, consumer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void findViewsByUsernames(List<String> usernames, Consumer<UserView> consumer) {
+        find("username", "varchar", usernames, consumer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void findViewsByEmails(List<String> emails, Consumer<UserView> consumer) {
+        find("email", "varchar", emails, consumer);
+    }
+
+    private void find(String column, String type, List<?> keys, Consumer<UserView> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT.formatted(column));
+            statement.setArray(1, connection.createArrayOf(type, keys.toArray()));
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(view(rs)));
+    }
+
+    private static UserView view(ResultSet rs) throws SQLException {
+        long id = rs.getLong("id");
+        if (rs.wasNull()) {
+            return null;
+        }
+        String status = rs.getString("user_status");
+        return new UserView(id,
+                rs.getString("username"),
+                rs.getString("email"),
+                Role.valueOf(rs.getString("role")),
+                status == null ? null : Status.valueOf(status),
+                rs.getTimestamp("created"),
+                rs.getTimestamp("updated"),
+                rs.getTimestamp("last_login"),
+                rs.getLong("version"));
+    }
+}
@@ -1,16 +1,102 @@
 package ch.furchert.usermanagement.repository;
 
+import ch.furchert.usermanagement.dto.UserVersion;
+import ch.furchert.usermanagement.dto.UserView;
 import ch.furchert.usermanagement.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface UserRepository extends JpaRepository<User, Long>, UserSearchRepository, UserLookupRepository {
+
+    String SELECT_VIEW = "select new ch.furchert.usermanagement.dto.UserView("
+            + "u.id, u.username, u.email, u.role, u.status, u.created, u.updated, u.lastLogin, u.version) "
+            + "from User u ";
+
+    String SELECT_VERSION = "select new ch.furchert.usermanagement.dto.UserVersion("
+            + "u.id, u.version, u.updated, u.lastLogin) from User u ";
 
-public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
 
     Optional<User> findByEmail(String email);
 
+    // Availability checks, answered by a read replica when there is one
+    @Transactional(readOnly = true)
     Boolean existsByUsername(String username);
 
+    @Transactional(readOnly = true)
     Boolean existsByEmail(String email);
+
+    // Projections for the read endpoints: no entity hydration, no dirty checking, no password hash
+    @Transactional(readOnly = true)
+    @Query(SELECT_VIEW + "where u.id = :id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    Optional<UserView> findViewById(Long id);
+
+    @Transactional(readOnly = true)
+    @Query(SELECT_VIEW + "where u.username = :username")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    Optional<UserView> findViewByUsername(String username);
+
+    @Transactional(readOnly = true)
+    @Query(SELECT_VIEW + "where u.email = :email")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    Optional<UserView> findViewByEmail(String email);
+
+    // Keyset page: uses the primary key index, no OFFSET scan
+    @Transactional(readOnly = true)
+    @Query(SELECT_VIEW + "where u.id > :after order by u.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    List<UserView> findViewsAfter(Long after, Limit limit);
+
+    // Validators for conditional GETs: a few narrow columns instead of the full row
+    @Transactional(readOnly = true)
+    @Query(SELECT_VERSION + "where u.id = :id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    Optional<UserVersion> findVersionById(Long id);
+
+    // Same window as findViewsAfter, so the page ETag can be computed before the page is read
+    @Transactional(readOnly = true)
+    @Query(SELECT_VERSION + "where u.id > :after order by u.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    List<UserVersion> findVersionsAfter(Long after, Limit limit);
+
+    /**
+     * Usernames and emails already taken by any of the candidates, in one set-based query.
+     */
+    @Query("select u.username as username, u.email as email from User u "
+            + "where u.username in :usernames or u.email in :emails")
+    List<TakenIdentity> findTakenIdentities(Collection<String> usernames, Collection<String> emails);
+
+    /**
+     * Replaces only the hash, e.g. when re-hashing with a higher BCrypt cost after a login.
+     */
+    @Transactional
+    @Modifying
+    @Query("update User u set u.passwordHash = :passwordHash, u.version = u.version + 1 where u.id = :id")
+    int updatePasswordHash(Long id, String passwordHash);
+
+    // Must be consumed inside a transaction and closed afterwards
+    @Query(SELECT_VIEW + "order by u.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL")
+    })
+    Stream<UserView> streamAllViews();
+
+    interface TakenIdentity {
+        String getUsername();
+
+        String getEmail();
+    }
 }
@@ -0,0 +1,23 @@
+package ch.furchert.usermanagement.repository;
+
+import ch.furchert.usermanagement.dto.UserView;
+import ch.furchert.usermanagement.dto.request.UserSearchCriteria;
+
+import java.util.List;
+
+/**
+ * Dynamic filters that derived query methods cannot express, mixed into {@link UserRepository}.
+ */
+public interface UserSearchRepository {
+
+    /**
+     * One keyset page of users matching all given criteria, ordered by id.
+     */
+    List<UserView> search(UserSearchCriteria criteria, Long after, int limit);
+
+    /**
+     * Ids of the next {@code limit} matching users after {@code after}, locked for update until
+     * the surrounding transaction ends, so they still match when a bulk statement changes them.
+     */
+    List<Long> lockIds(UserSearchCriteria criteria, Long after, int limit);
+}
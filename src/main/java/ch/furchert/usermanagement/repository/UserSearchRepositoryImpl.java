@@ -0,0 +1,109 @@
+package ch.furchert.usermanagement.repository;
+
+import ch.furchert.usermanagement.dto.UserView;
+import ch.furchert.usermanagement.dto.request.UserSearchCriteria;
+import ch.furchert.usermanagement.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Builds the search query from only the criteria that are set, so each filter combination is
+ * a plain conjunction the planner can match against the indexes of migration
+ * {@code V2__search_indexes.sql}.
+ */
+class UserSearchRepositoryImpl implements UserSearchRepository {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private final EntityManager entityManager;
+
+    UserSearchRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserView> search(UserSearchCriteria criteria, Long after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserView> query = cb.createQuery(UserView.class);
+        Root<User> user = query.from(User.class);
+
+        query.select(cb.construct(UserView.class,
+                        user.get("id"), user.get("username"), user.get("email"), user.get("role"),
+                        user.get("status"), user.get("created"), user.get("updated"), user.get("lastLogin"),
+                        user.get("version")))
+                .where(predicates(cb, user, criteria, after))
+                .orderBy(cb.asc(user.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Long> lockIds(UserSearchCriteria criteria, Long after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<User> user = query.from(User.class);
+
+        query.select(user.get("id"))
+                .where(predicates(cb, user, criteria, after))
+                .orderBy(cb.asc(user.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
+
+    private static Predicate[] predicates(CriteriaBuilder cb, Root<User> user, UserSearchCriteria criteria, Long after) {
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.greaterThan(user.get("id"), after == null ? 0L : after));
+        if (criteria.getRole() != null) {
+            predicates.add(cb.equal(user.get("role"), criteria.getRole()));
+        }
+        if (criteria.getStatus() != null) {
+            predicates.add(cb.equal(user.get("status"), criteria.getStatus()));
+        }
+        addRange(cb, predicates, user.get("created"), criteria.getCreatedFrom(), criteria.getCreatedTo());
+        addRange(cb, predicates, user.get("updated"), criteria.getUpdatedFrom(), criteria.getUpdatedTo());
+        addRange(cb, predicates, user.get("lastLogin"), criteria.getLastLoginFrom(), criteria.getLastLoginTo());
+        addPrefix(cb, predicates, user.get("username"), criteria.getUsernamePrefix());
+        addPrefix(cb, predicates, user.get("email"), criteria.getEmailPrefix());
+        return predicates.toArray(Predicate[]::new);
+    }
+
+    private static void addRange(CriteriaBuilder cb, List<Predicate> predicates, Expression<Date> column,
+                                 Instant from, Instant to) {
+        if (from != null) {
+            predicates.add(cb.greaterThanOrEqualTo(column, Date.from(from)));
+        }
+        if (to != null) {
+            predicates.add(cb.lessThan(column, Date.from(to)));
+        }
+    }
+
+    private static void addPrefix(CriteriaBuilder cb, List<Predicate> predicates, Expression<String> column,
+                                  String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            return;
+        }
+        String pattern = prefix.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+        predicates.add(cb.like(cb.lower(column), pattern, LIKE_ESCAPE));
+    }
+}
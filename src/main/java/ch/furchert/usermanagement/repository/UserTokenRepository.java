@@ -0,0 +1,69 @@
+package ch.furchert.usermanagement.repository;
+
+import ch.furchert.usermanagement.entity.TokenPurpose;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The {@code user_token} table, in plain JDBC. Tokens are looked up by their hash only; the
+ * token itself is never stored.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserTokenRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record NewToken(long userId, String tokenHash) {
+    }
+
+    /**
+     * Stores a new token and retires the user's unused ones of the same purpose, so only the link
+     * in the latest mail works. Must run inside a transaction.
+     */
+    public void replace(long userId, TokenPurpose purpose, String tokenHash, Instant created, Instant expires) {
+        Timestamp now = Timestamp.from(created);
+        jdbcTemplate.update("update user_token set used = ? where user_id = ? and purpose = ? and used is null",
+                now, userId, purpose.name());
+        jdbcTemplate.update("insert into user_token (user_id, purpose, token_hash, created, expires) values (?, ?, ?, ?, ?)",
+                userId, purpose.name(), tokenHash, now, Timestamp.from(expires));
+    }
+
+    /**
+     * Stores tokens for users that have none of this purpose yet, as one JDBC batch.
+     */
+    public void insertAll(TokenPurpose purpose, List<NewToken> tokens, Instant created, Instant expires) {
+        Timestamp now = Timestamp.from(created);
+        Timestamp until = Timestamp.from(expires);
+        jdbcTemplate.batchUpdate("insert into user_token (user_id, purpose, token_hash, created, expires) values (?, ?, ?, ?, ?)",
+                tokens, 500, (statement, token) -> {
+                    statement.setLong(1, token.userId());
+                    statement.setString(2, purpose.name());
+                    statement.setString(3, token.tokenHash());
+                    statement.setTimestamp(4, now);
+                    statement.setTimestamp(5, until);
+                });
+    }
+
+    /**
+     * Marks the token as used and returns its user. A single conditional UPDATE, so of two
+     * concurrent redemptions only one gets the user. Empty if the token is unknown, used or expired.
+     */
+    public Optional<Long> redeem(TokenPurpose purpose, String tokenHash, Instant now) {
+        Timestamp used = Timestamp.from(now);
+        List<Long> userIds = jdbcTemplate.queryForList("update user_token set used = ? "
+                        + "where token_hash = ? and purpose = ? and used is null and expires > ? returning user_id",
+                Long.class, used, tokenHash, purpose.name(), used);
+        return userIds.stream().findFirst();
+    }
+
+    public int deleteExpiredBefore(Instant cutoff) {
+        return jdbcTemplate.update("delete from user_token where expires < ?", Timestamp.from(cutoff));
+    }
+}
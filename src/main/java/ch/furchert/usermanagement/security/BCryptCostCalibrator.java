@@ -0,0 +1,55 @@
+package ch.furchert.usermanagement.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Picks the BCrypt cost whose hash time comes closest to a target without exceeding it.
+ * <p>
+ * Every cost step doubles the work, so a single measurement at the lowest cost is enough
+ * to extrapolate all the others.
+ */
+@Slf4j
+public final class BCryptCostCalibrator {
+
+    private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+    private static final int SAMPLES = 3;
+
+    private BCryptCostCalibrator() {
+    }
+
+    public static int calibrate(Duration target, int minCost, int maxCost) {
+        long baseNanos = measure(minCost);
+        int cost = chooseCost(baseNanos, target.toNanos(), minCost, maxCost);
+        log.info("BCrypt calibration: cost {} takes ~{} ms, target {} ms, chose cost {} (~{} ms)",
+                minCost, baseNanos / 1_000_000, target.toMillis(), cost,
+                (baseNanos << (cost - minCost)) / 1_000_000);
+        return cost;
+    }
+
+    static int chooseCost(long baseNanos, long targetNanos, int minCost, int maxCost) {
+        int cost = minCost;
+        while (cost < maxCost && (baseNanos << (cost + 1 - minCost)) <= targetNanos) {
+            cost++;
+        }
+        return cost;
+    }
+
+    private static long measure(int cost) {
+        BCryptPasswordEncoder encoder =
+                new BCryptPasswordEncoder(BCryptPasswordEncoder.BCryptVersion.$2Y, cost, new SecureRandom());
+        encoder.encode(SAMPLE_PASSWORD); // warm-up
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+}
@@ -0,0 +1,166 @@
+package ch.furchert.usermanagement.security;
+
+import ch.furchert.usermanagement.config.JwtProperties;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.DefaultResourceRetriever;
+import com.nimbusds.jose.util.JSONObjectUtils;
+import com.nimbusds.jose.util.ResourceRetriever;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Validates tokens against the signing keys of one issuer, loaded on a background thread.
+ * <p>
+ * Spring Boot's default decoder discovers the issuer on the first request and blocks that request
+ * (and every one arriving meanwhile) on the issuer's metadata and key endpoints. Here discovery and
+ * the first key fetch run on the {@code jwt-issuer} thread from {@link #start()}, retried every
+ * {@code security.jwt.discovery-retry} while the issuer is unreachable. Until they succeed
+ * {@link #isReady()} is false and {@link #decode} fails.
+ * <p>
+ * The keys are then cached for {@code security.jwt.jwks-cache-ttl} and refreshed by Nimbus on its
+ * own thread {@code security.jwt.jwks-refresh-ahead} before they expire, so requests only wait for the issuer
+ * when a token names a key id that is not cached yet, which happens after a key rotation.
+ */
+@Slf4j
+public class IssuerJwtDecoder implements JwtDecoder, AutoCloseable {
+
+    private static final List<String> METADATA_PATHS =
+            List.of("/.well-known/openid-configuration", "/.well-known/oauth-authorization-server");
+
+    private final String issuerUri;
+    private final String jwkSetUri;
+    private final Set<JWSAlgorithm> algorithms;
+    private final JwtProperties properties;
+    private final ResourceRetriever retriever;
+
+    private volatile JwtDecoder delegate;
+    private volatile JWKSource<SecurityContext> keys;
+    private ScheduledExecutorService executor;
+
+    public IssuerJwtDecoder(String issuerUri, String jwkSetUri, Collection<String> algorithms, JwtProperties properties) {
+        this.issuerUri = issuerUri;
+        this.jwkSetUri = jwkSetUri;
+        this.algorithms = algorithms.stream().map(JWSAlgorithm::parse).collect(Collectors.toUnmodifiableSet());
+        this.properties = properties;
+        int timeout = (int) properties.httpTimeout().toMillis();
+        this.retriever = new DefaultResourceRetriever(timeout, timeout, JWKSourceBuilder.DEFAULT_HTTP_SIZE_LIMIT);
+    }
+
+    public void start() {
+        if (issuerUri == null && jwkSetUri == null) {
+            throw new IllegalStateException("Token validation needs spring.security.oauth2.resourceserver.jwt.issuer-uri or jwk-set-uri");
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("jwt-issuer").daemon().factory());
+        executor.execute(this::connect);
+    }
+
+    public boolean isReady() {
+        return delegate != null;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        JwtDecoder decoder = delegate;
+        if (decoder == null) {
+            throw new JwtException("Signing keys of " + (issuerUri != null ? issuerUri : jwkSetUri) + " are not loaded yet");
+        }
+        return decoder.decode(token);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        if (keys instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private void connect() {
+        JWKSource<SecurityContext> source = null;
+        try {
+            URL jwkSetUrl = jwkSetUri != null ? URI.create(jwkSetUri).toURL() : discoverJwkSetUrl();
+            source = JWKSourceBuilder.create(jwkSetUrl, retriever)
+                    .cache(properties.jwksCacheTtl().toMillis(), properties.httpTimeout().toMillis())
+                    .refreshAheadCache(properties.jwksRefreshAhead().toMillis(), true)
+                    .build();
+            // Fetch the keys now, so the first request does not wait for them
+            int loaded = source.get(new JWKSelector(new JWKMatcher.Builder().build()), null).size();
+
+            DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+            processor.setJWSKeySelector(new JWSVerificationKeySelector<>(algorithms, source));
+            // Claims are checked by Spring's validators below, as NimbusJwtDecoder's builders do
+            processor.setJWTClaimsSetVerifier((claims, context) -> {
+            });
+            NimbusJwtDecoder decoder = new NimbusJwtDecoder(processor);
+            decoder.setJwtValidator(issuerUri != null
+                    ? JwtValidators.createDefaultWithIssuer(issuerUri)
+                    : JwtValidators.createDefault());
+            keys = source;
+            delegate = decoder;
+            log.info("Loaded {} signing keys from {}", loaded, jwkSetUrl);
+        } catch (Exception e) {
+            closeQuietly(source);
+            log.warn("Signing keys not available, retrying in {}: {}", properties.discoveryRetry(), e.getMessage());
+            executor.schedule(this::connect, properties.discoveryRetry().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void closeQuietly(JWKSource<SecurityContext> source) {
+        if (source instanceof Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+                // only its refresh threads are left to stop
+            }
+        }
+    }
+
+    /**
+     * Reads {@code jwks_uri} from the issuer's OpenID Connect or OAuth 2.0 authorization server
+     * metadata, and checks the metadata belongs to the configured issuer.
+     */
+    private URL discoverJwkSetUrl() throws Exception {
+        String base = issuerUri.endsWith("/") ? issuerUri.substring(0, issuerUri.length() - 1) : issuerUri;
+        IOException failure = null;
+        for (String path : METADATA_PATHS) {
+            Map<String, Object> metadata;
+            try {
+                metadata = JSONObjectUtils.parse(retriever.retrieveResource(URI.create(base + path).toURL()).getContent());
+            } catch (IOException e) {
+                failure = e;
+                continue;
+            }
+            if (!issuerUri.equals(metadata.get("issuer"))) {
+                throw new IllegalStateException("Metadata at " + base + path + " names issuer " + metadata.get("issuer"));
+            }
+            return URI.create(JSONObjectUtils.getString(metadata, "jwks_uri")).toURL();
+        }
+        throw failure;
+    }
+}
@@ -0,0 +1,135 @@
+package ch.furchert.usermanagement.security;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counts events per key within a sliding time window.
+ * <p>
+ * Keys are spread over a fixed number of stripes, each guarded by its own lock, so unrelated
+ * keys do not contend. {@link ReentrantLock} rather than {@code synchronized} keeps virtual
+ * threads from pinning their carrier while waiting.
+ */
+public class SlidingWindowThrottle {
+
+    private final int limit;
+    private final long windowMillis;
+    private final Clock clock;
+    private final Stripe[] stripes;
+
+    public SlidingWindowThrottle(int limit, Duration window, int stripes, Clock clock) {
+        this.limit = limit;
+        this.windowMillis = window.toMillis();
+        this.clock = clock;
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * @return how long the key still has to wait, or {@link Duration#ZERO} if it is below the limit
+     */
+    public Duration retryAfter(String key) {
+        Stripe stripe = stripe(key);
+        long now = clock.millis();
+        stripe.lock.lock();
+        try {
+            ArrayDeque<Long> events = stripe.events.get(key);
+            if (events == null) {
+                return Duration.ZERO;
+            }
+            expire(events, now);
+            if (events.size() < limit) {
+                return Duration.ZERO;
+            }
+            // At most `limit` events are kept, so the key is free again once the oldest one expires
+            long releaseAt = events.peekFirst() + windowMillis;
+            return Duration.ofMillis(Math.max(1, releaseAt - now));
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void record(String key) {
+        Stripe stripe = stripe(key);
+        long now = clock.millis();
+        stripe.lock.lock();
+        try {
+            ArrayDeque<Long> events = stripe.events.computeIfAbsent(key, k -> new ArrayDeque<>());
+            expire(events, now);
+            events.addLast(now);
+            // Never keep more history than needed to decide
+            while (events.size() > limit) {
+                events.removeFirst();
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void reset(String key) {
+        Stripe stripe = stripe(key);
+        stripe.lock.lock();
+        try {
+            stripe.events.remove(key);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Drops keys whose events have all left the window, bounding memory to active keys.
+     */
+    public void sweep() {
+        long now = clock.millis();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                Iterator<Map.Entry<String, ArrayDeque<Long>>> entries = stripe.events.entrySet().iterator();
+                while (entries.hasNext()) {
+                    ArrayDeque<Long> events = entries.next().getValue();
+                    expire(events, now);
+                    if (events.isEmpty()) {
+                        entries.remove();
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    public int trackedKeys() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                count += stripe.events.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return count;
+    }
+
+    private void expire(ArrayDeque<Long> events, long now) {
+        while (!events.isEmpty() && events.peekFirst() <= now - windowMillis) {
+            events.removeFirst();
+        }
+    }
+
+    private Stripe stripe(String key) {
+        return stripes[Math.floorMod(key.hashCode(), stripes.length)];
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, ArrayDeque<Long>> events = new HashMap<>();
+    }
+}
@@ -0,0 +1,203 @@
+package ch.furchert.usermanagement.service;
+
+import ch.furchert.usermanagement.config.MailQueueProperties;
+import ch.furchert.usermanagement.entity.Status;
+import ch.furchert.usermanagement.entity.TokenPurpose;
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.exception.InvalidTokenException;
+import ch.furchert.usermanagement.mail.MailDispatcher;
+import ch.furchert.usermanagement.repository.MailQueueRepository;
+import ch.furchert.usermanagement.repository.MailQueueRepository.NewMail;
+import ch.furchert.usermanagement.repository.UserTokenRepository;
+import ch.furchert.usermanagement.repository.UserTokenRepository.NewToken;
+import ch.furchert.usermanagement.security.SlidingWindowThrottle;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Single-use tokens for e-mail verification and password reset, and the mails carrying them.
+ * <p>
+ * Nothing here talks to the SMTP server: mails are written to {@code mail_queue} in the caller's
+ * transaction and sent later by the {@link ch.furchert.usermanagement.mail.MailDispatcher}, so a
+ * slow or unreachable mail server never holds up a request.
+ * <p>
+ * Accounts are only verified by mail if someone sends the mails ({@code mail-queue.verify-accounts},
+ * by default whether this instance has a dispatcher); otherwise new accounts start {@code ACTIVE}.
+ */
+@Slf4j
+@Service
+public class AccountMailService {
+
+    public static final String VERIFY_EMAIL_TEMPLATE = "verify-email";
+    public static final String PASSWORD_RESET_TEMPLATE = "password-reset";
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final UserTokenRepository tokenRepository;
+    private final MailQueueRepository mailQueue;
+    private final MailQueueProperties properties;
+    private final SlidingWindowThrottle resetThrottle;
+    private final SecureRandom random = new SecureRandom();
+    private final Clock clock;
+    private final boolean verifyAccounts;
+
+    @Autowired
+    public AccountMailService(UserTokenRepository tokenRepository, MailQueueRepository mailQueue,
+                              MailQueueProperties properties, ObjectProvider<MailDispatcher> dispatcher) {
+        this(tokenRepository, mailQueue, properties, Clock.systemUTC(), properties.verifyAccounts() != null
+                ? properties.verifyAccounts()
+                : dispatcher.getIfAvailable() != null);
+    }
+
+    AccountMailService(UserTokenRepository tokenRepository, MailQueueRepository mailQueue,
+                       MailQueueProperties properties, Clock clock, boolean verifyAccounts) {
+        this.tokenRepository = tokenRepository;
+        this.mailQueue = mailQueue;
+        this.properties = properties;
+        this.clock = clock;
+        this.verifyAccounts = verifyAccounts;
+        if (properties.linkBaseUrl() == null || properties.linkBaseUrl().isBlank()) {
+            throw new IllegalStateException("mail-queue.link-base-url must point at the frontend that handles the mailed links");
+        }
+        this.resetThrottle = new SlidingWindowThrottle(properties.maxResetRequests(),
+                properties.resetRequestWindow(), 16, clock);
+        if (!verifyAccounts) {
+            log.info("New accounts start ACTIVE without a verification mail (no mail dispatcher or mail-queue.verify-accounts=false)");
+        }
+    }
+
+    /**
+     * The status new accounts start with: {@code UNVERIFIED} if they get a verification mail,
+     * {@code ACTIVE} otherwise.
+     */
+    public Status newAccountStatus() {
+        return verifyAccounts ? Status.UNVERIFIED : Status.ACTIVE;
+    }
+
+    /**
+     * Issues a verification token for a new user and queues the mail with its link, if accounts are
+     * verified at all. Must run in the transaction that writes the user.
+     */
+    public void sendVerification(User user) {
+        if (verifyAccounts) {
+            queue(user, TokenPurpose.VERIFY_EMAIL, properties.verificationValidity(), VERIFY_EMAIL_TEMPLATE, "/verify-email");
+        }
+    }
+
+    /**
+     * {@link #sendVerification} for many new users, as one batch of tokens and one of mails. The
+     * users have no tokens yet, so there are none to retire.
+     */
+    public void sendVerifications(List<User> users) {
+        if (!verifyAccounts || users.isEmpty()) {
+            return;
+        }
+        Instant now = clock.instant();
+        Duration validity = properties.verificationValidity();
+        List<NewToken> tokens = new ArrayList<>(users.size());
+        List<NewMail> mails = new ArrayList<>(users.size());
+        for (User user : users) {
+            String token = newToken();
+            tokens.add(new NewToken(user.getId(), hash(token)));
+            mails.add(new NewMail(user.getEmail(), VERIFY_EMAIL_TEMPLATE, model(user, validity, "/verify-email", token)));
+        }
+        tokenRepository.insertAll(TokenPurpose.VERIFY_EMAIL, tokens, now, now.plus(validity));
+        mailQueue.enqueueAll(mails, now);
+    }
+
+    /**
+     * Issues a password reset token and queues the mail with its link; earlier reset links of the
+     * user stop working. Must run inside a transaction.
+     */
+    public void sendPasswordReset(User user) {
+        queue(user, TokenPurpose.RESET_PASSWORD, properties.resetValidity(), PASSWORD_RESET_TEMPLATE, "/reset-password");
+    }
+
+    /**
+     * Counts a password reset request for the address. False once the address had
+     * {@code max-reset-requests} within the window, whether or not an account uses it, so the
+     * limit neither floods a mailbox nor tells anything about the address.
+     */
+    public boolean tryAcquireResetMail(String email) {
+        String key = email.toLowerCase(Locale.ROOT);
+        if (!resetThrottle.retryAfter(key).isZero()) {
+            return false;
+        }
+        resetThrottle.record(key);
+        return true;
+    }
+
+    /**
+     * Uses up the token and returns the id of the user it was issued to. Joins the caller's
+     * transaction, so the token stays valid if what it was redeemed for rolls back.
+     *
+     * @throws InvalidTokenException if the token is unknown, expired or already used
+     */
+    public long redeem(TokenPurpose purpose, String token) {
+        return tokenRepository.redeem(purpose, hash(token), clock.instant())
+                .orElseThrow(InvalidTokenException::new);
+    }
+
+    @Scheduled(fixedDelayString = "${mail-queue.token-cleanup-interval:1h}")
+    public void deleteExpiredTokens() {
+        tokenRepository.deleteExpiredBefore(clock.instant());
+    }
+
+    @Scheduled(fixedRate = 60_000)
+    public void sweepThrottle() {
+        resetThrottle.sweep();
+    }
+
+    private void queue(User user, TokenPurpose purpose, Duration validity, String template, String path) {
+        String token = newToken();
+        Instant now = clock.instant();
+        tokenRepository.replace(user.getId(), purpose, hash(token), now, now.plus(validity));
+        mailQueue.enqueue(user.getEmail(), template, model(user, validity, path, token), now);
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private Map<String, String> model(User user, Duration validity, String path, String token) {
+        return Map.of(
+                "username", user.getUsername(),
+                "validity", describe(validity),
+                "link", properties.linkBaseUrl().replaceAll("/+$", "") + path + "?token=" + token);
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String describe(Duration validity) {
+        if (validity.toHours() > 0 && validity.toMinutesPart() == 0) {
+            return validity.toHours() == 1 ? "1 hour" : validity.toHours() + " hours";
+        }
+        return validity.toMinutes() == 1 ? "1 minute" : validity.toMinutes() + " minutes";
+    }
+}
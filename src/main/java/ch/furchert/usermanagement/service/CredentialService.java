@@ -0,0 +1,139 @@
+package ch.furchert.usermanagement.service;
+
+import ch.furchert.usermanagement.cache.UserCache;
+import ch.furchert.usermanagement.config.LoginThrottleProperties;
+import ch.furchert.usermanagement.entity.Status;
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.exception.AccountNotActiveException;
+import ch.furchert.usermanagement.exception.HashingCapacityExceededException;
+import ch.furchert.usermanagement.exception.InvalidCredentialsException;
+import ch.furchert.usermanagement.exception.LoginThrottledException;
+import ch.furchert.usermanagement.exception.UserNotFoundException;
+import ch.furchert.usermanagement.repository.UserRepository;
+import ch.furchert.usermanagement.security.SlidingWindowThrottle;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Checks a username/email and password pair for the auth service.
+ * <p>
+ * Unknown logins are compared against a dummy hash of the same cost, so response time does not
+ * reveal whether an account exists. Failed attempts are throttled per account and per client. An
+ * account has one budget whether it is named by username or email, so the account is looked up
+ * before its budget is checked; an unknown login gets a budget of its own.
+ */
+@Slf4j
+@Service
+public class CredentialService {
+
+    private static final String DUMMY_PASSWORD = "dummy-password-for-unknown-users";
+
+    private final UserService userService;
+    private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final PasswordEncoder passwordEncoder;
+    private final LastLoginRecorder lastLoginRecorder;
+    private final SlidingWindowThrottle accountThrottle;
+    private final SlidingWindowThrottle clientThrottle;
+    private final Clock clock;
+
+    private volatile String dummyHash;
+
+    @Autowired
+    public CredentialService(UserService userService, UserRepository userRepository, UserCache userCache,
+                             PasswordEncoder passwordEncoder, LastLoginRecorder lastLoginRecorder,
+                             LoginThrottleProperties properties) {
+        this(userService, userRepository, userCache, passwordEncoder, lastLoginRecorder, properties, Clock.systemUTC());
+    }
+
+    CredentialService(UserService userService, UserRepository userRepository, UserCache userCache,
+                      PasswordEncoder passwordEncoder, LastLoginRecorder lastLoginRecorder,
+                      LoginThrottleProperties properties, Clock clock) {
+        this.userService = userService;
+        this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.passwordEncoder = passwordEncoder;
+        this.lastLoginRecorder = lastLoginRecorder;
+        this.clock = clock;
+        this.accountThrottle = new SlidingWindowThrottle(properties.maxFailuresPerAccount(),
+                properties.window(), properties.stripes(), clock);
+        this.clientThrottle = new SlidingWindowThrottle(properties.maxFailuresPerClient(),
+                properties.window(), properties.stripes(), clock);
+    }
+
+    public User verify(String login, String password, String clientAddress) {
+        Duration clientWait = clientThrottle.retryAfter(clientAddress);
+        if (!clientWait.isZero()) {
+            throw new LoginThrottledException(clientWait);
+        }
+        User user = lookup(login);
+        String accountKey = user != null ? "id:" + user.getId() : "login:" + login.toLowerCase(Locale.ROOT);
+        Duration accountWait = accountThrottle.retryAfter(accountKey);
+        if (!accountWait.isZero()) {
+            throw new LoginThrottledException(accountWait);
+        }
+
+        boolean matches = passwordEncoder.matches(password, user != null ? user.getPasswordHash() : dummyHash());
+        if (user == null || !matches) {
+            accountThrottle.record(accountKey);
+            clientThrottle.record(clientAddress);
+            throw new InvalidCredentialsException();
+        }
+        accountThrottle.reset(accountKey);
+
+        if (user.getStatus() != Status.ACTIVE) {
+            throw new AccountNotActiveException(user.getStatus());
+        }
+        upgradeHashIfNeeded(user, password);
+        lastLoginRecorder.record(user, clock.millis());
+        return user;
+    }
+
+    @Scheduled(fixedRate = 60_000)
+    public void sweepThrottles() {
+        accountThrottle.sweep();
+        clientThrottle.sweep();
+    }
+
+    public int throttledKeys() {
+        return accountThrottle.trackedKeys() + clientThrottle.trackedKeys();
+    }
+
+    private User lookup(String login) {
+        try {
+            return login.contains("@") ? userService.getUserByEmail(login) : userService.getUserByUsername(login);
+        } catch (UserNotFoundException e) {
+            return null;
+        }
+    }
+
+    private void upgradeHashIfNeeded(User user, String password) {
+        if (!passwordEncoder.upgradeEncoding(user.getPasswordHash())) {
+            return;
+        }
+        try {
+            userRepository.updatePasswordHash(user.getId(), passwordEncoder.encode(password));
+            userCache.evict(user);
+        } catch (HashingCapacityExceededException e) {
+            // Not worth failing a successful login for; try again next time
+            log.debug("Skipping rehash of user {}, hashing pool saturated", user.getId());
+        }
+    }
+
+    private String dummyHash() {
+        String hash = dummyHash;
+        if (hash == null) {
+            // Computed lazily with the calibrated cost so unknown users take as long as known ones
+            hash = passwordEncoder.encode(DUMMY_PASSWORD);
+            dummyHash = hash;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,78 @@
+package ch.furchert.usermanagement.service;
+
+import ch.furchert.usermanagement.cache.UserCache;
+import ch.furchert.usermanagement.entity.User;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes {@code last_login} asynchronously.
+ * <p>
+ * Logins are collected in memory, coalesced per user (only the latest one matters) and
+ * flushed as a single JDBC batch, so a login storm costs one UPDATE per user and flush interval
+ * instead of one per login.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LastLoginRecorder {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserCache userCache;
+
+    private final Map<Long, PendingLogin> pending = new ConcurrentHashMap<>();
+
+    public void record(User user, long loginAtMillis) {
+        pending.merge(user.getId(), new PendingLogin(user.getUsername(), user.getEmail(), loginAtMillis),
+                (previous, next) -> previous.at() >= next.at() ? previous : next);
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${security.login-throttle.last-login-flush-interval:5s}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, PendingLogin>> batch = new ArrayList<>(pending.size());
+        for (Long id : pending.keySet()) {
+            PendingLogin login = pending.remove(id);
+            if (login != null) {
+                batch.add(Map.entry(id, login));
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate("update user_account set last_login = ?, version = version + 1 where id = ?", batch, 500,
+                    (statement, entry) -> {
+                        statement.setTimestamp(1, new Timestamp(entry.getValue().at()));
+                        statement.setLong(2, entry.getKey());
+                    });
+        } catch (RuntimeException e) {
+            log.warn("Could not write last_login for {} users, retrying with the next flush", batch.size(), e);
+            batch.forEach(entry -> pending.merge(entry.getKey(), entry.getValue(),
+                    (newer, older) -> newer.at() >= older.at() ? newer : older));
+            return;
+        }
+        batch.forEach(entry -> userCache.evict(entry.getKey(), entry.getValue().username(), entry.getValue().email()));
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private record PendingLogin(String username, String email, long at) {
+    }
+}
@@ -0,0 +1,48 @@
+package ch.furchert.usermanagement.service;
+
+import ch.furchert.usermanagement.entity.User;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+
+/**
+ * Turns a unique constraint violation on {@code user_account} back into the message the API
+ * reports for a taken username or email.
+ */
+final class UniqueConstraintViolations {
+
+    static final String USERNAME_TAKEN = "Username is already taken";
+    static final String EMAIL_IN_USE = "Email is already in use";
+
+    private UniqueConstraintViolations() {
+    }
+
+    /**
+     * @return the conflict message, or {@code null} if the violated constraint is not known
+     */
+    static String conflictMessage(DataIntegrityViolationException e) {
+        String constraint = constraintName(e);
+        if (constraint == null) {
+            return null;
+        }
+        // Databases differ in case and may append index suffixes
+        constraint = constraint.toLowerCase(Locale.ROOT);
+        if (constraint.contains(User.USERNAME_CONSTRAINT)) {
+            return USERNAME_TAKEN;
+        }
+        if (constraint.contains(User.EMAIL_CONSTRAINT)) {
+            return EMAIL_IN_USE;
+        }
+        return null;
+    }
+
+    private static String constraintName(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return violation.getConstraintName();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,127 @@
+package ch.furchert.usermanagement.service;
+
+import ch.furchert.usermanagement.cache.UserCache;
+import ch.furchert.usermanagement.config.UserBulkProperties;
+import ch.furchert.usermanagement.dto.request.UserSearchCriteria;
+import ch.furchert.usermanagement.entity.ChangeType;
+import ch.furchert.usermanagement.entity.Status;
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.repository.UserBulkRepository;
+import ch.furchert.usermanagement.repository.UserChangeRepository;
+import ch.furchert.usermanagement.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Changes the status of, or deletes, many users at once, selected by id or by search criteria.
+ * <p>
+ * The work is split into chunks of {@code user-bulk.chunk-size} users, each one set-based
+ * statement in its own transaction together with its change log entries. A long operation thus
+ * never holds more than one chunk of row locks, and a failure keeps the chunks committed before
+ * it. Cache entries are evicted after each commit.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserBulkService {
+
+    public static final String ROWS = "user.bulk.rows";
+
+    private final UserRepository userRepository;
+    private final UserBulkRepository bulkRepository;
+    private final UserChangeRepository changeRepository;
+    private final UserCache userCache;
+    private final PlatformTransactionManager transactionManager;
+    private final UserBulkProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Sets {@code status} on the listed users. Unknown ids and users that already have the status
+     * are skipped; returns the number of users changed.
+     */
+    public int changeStatus(Collection<Long> ids, Status status) {
+        return run("status", ChangeType.UPDATED, chunks(ids), chunk -> bulkRepository.updateStatus(chunk, status));
+    }
+
+    /**
+     * Sets {@code status} on every user matching {@code filter}; returns the number of users changed.
+     */
+    public int changeStatus(UserSearchCriteria filter, Status status) {
+        return run("status", ChangeType.UPDATED, matching(filter), chunk -> bulkRepository.updateStatus(chunk, status));
+    }
+
+    /**
+     * Deletes the listed users, skipping unknown ids; returns the number of users deleted.
+     */
+    public int delete(Collection<Long> ids) {
+        return run("delete", ChangeType.DELETED, chunks(ids), bulkRepository::delete);
+    }
+
+    /**
+     * Deletes every user matching {@code filter}; returns the number of users deleted.
+     */
+    public int delete(UserSearchCriteria filter) {
+        return run("delete", ChangeType.DELETED, matching(filter), bulkRepository::delete);
+    }
+
+    private int run(String operation, ChangeType type, ChunkSource source, Function<List<Long>, List<User>> statement) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int affected = 0;
+        long after = 0;
+        while (true) {
+            long from = after;
+            Chunk chunk = transaction.execute(status -> {
+                List<Long> ids = source.next(from, properties.chunkSize());
+                List<User> changed = ids.isEmpty() ? List.of() : statement.apply(ids);
+                if (!changed.isEmpty()) {
+                    changeRepository.appendAll(type, changed);
+                }
+                return new Chunk(ids, changed);
+            });
+            chunk.changed().forEach(userCache::evict);
+            affected += chunk.changed().size();
+            meterRegistry.counter(ROWS, "operation", operation).increment(chunk.changed().size());
+            if (chunk.ids().size() < properties.chunkSize()) {
+                break;
+            }
+            after = chunk.ids().getLast();
+        }
+        log.info("Bulk {} affected {} users", operation, affected);
+        return affected;
+    }
+
+    // Sorted, so each chunk covers one id range and locks rows in the same order as the filtered path
+    private static ChunkSource chunks(Collection<Long> ids) {
+        List<Long> sorted = ids.stream().filter(Objects::nonNull).distinct().sorted().toList();
+        return (after, limit) -> {
+            int found = Collections.binarySearch(sorted, after);
+            int from = found >= 0 ? found + 1 : -found - 1;
+            return sorted.subList(from, Math.min(from + limit, sorted.size()));
+        };
+    }
+
+    private ChunkSource matching(UserSearchCriteria filter) {
+        return (after, limit) -> userRepository.lockIds(filter, after, limit);
+    }
+
+    /**
+     * The next ids after {@code after}, at most {@code limit} of them, in ascending order.
+     */
+    @FunctionalInterface
+    private interface ChunkSource {
+        List<Long> next(long after, int limit);
+    }
+
+    private record Chunk(List<Long> ids, List<User> changed) {
+    }
+}
@@ -0,0 +1,345 @@
+package ch.furchert.usermanagement.service;
+
+import ch.furchert.usermanagement.config.UserChangeProperties;
+import ch.furchert.usermanagement.dto.UserChangeEvent;
+import ch.furchert.usermanagement.exception.ChangeOffsetExpiredException;
+import ch.furchert.usermanagement.repository.UserChangeRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serves the published user changes to consumers, either as long-polls or as streams (SSE, gRPC).
+ * <p>
+ * Waiting consumers hold no thread and no connection: long-polls are parked as
+ * {@link DeferredResult}s and streams as {@link Subscription}s. They are woken when this instance
+ * publishes, or by the {@code poll-interval} check of the log for changes published elsewhere.
+ * Consumers waiting on the same offset share a single read of the log.
+ * <p>
+ * Stream events are written by a virtual thread per subscription, never by the waking thread: a
+ * slow or stalled client holds up only its own stream, not the publisher or other scheduled jobs.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserChangeFeed {
+
+    private final UserChangeRepository changeRepository;
+    private final UserChangeProperties properties;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Waiter> waiters = new ArrayList<>();
+    private final List<Subscription> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService delivery = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("change-delivery-", 0).factory());
+    private volatile long latestOffset;
+
+    /**
+     * Offset of the newest published change; where a consumer that just loaded all users starts.
+     */
+    public long head() {
+        return changeRepository.latestOffset();
+    }
+
+    public int consumerCount() {
+        lock.lock();
+        try {
+            return waiters.size() + subscribers.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} changes after {@code after}, oldest first.
+     *
+     * @throws ChangeOffsetExpiredException if changes right after {@code after} were already
+     *                                      deleted by the retention cleanup
+     */
+    public List<UserChangeEvent> read(long after, int limit) {
+        List<UserChangeEvent> changes = changeRepository.findAfter(after, Math.clamp(limit, 1, properties.maxBatchSize()));
+        // Offsets are gapless, so a hole in front of the first one means it was cleaned up
+        if (!changes.isEmpty() && changes.getFirst().offset() > after + 1) {
+            throw new ChangeOffsetExpiredException(after, changes.getFirst().offset());
+        }
+        return changes;
+    }
+
+    /**
+     * Completes right away if there are changes after {@code after}; otherwise parks the request
+     * until some are published or {@code wait} has passed, then completes with an empty list.
+     */
+    public DeferredResult<List<UserChangeEvent>> poll(long after, int limit, Duration wait) {
+        List<UserChangeEvent> changes = read(after, limit);
+        Duration timeout = wait.compareTo(properties.maxWait()) > 0 ? properties.maxWait() : wait;
+        DeferredResult<List<UserChangeEvent>> result = new DeferredResult<>(timeout.toMillis(), List.of());
+        if (!changes.isEmpty() || !timeout.isPositive()) {
+            result.setResult(changes);
+            return result;
+        }
+
+        Waiter waiter = new Waiter(after, limit, result);
+        result.onCompletion(() -> remove(waiter));
+        lock.lock();
+        try {
+            waiters.add(waiter);
+        } finally {
+            lock.unlock();
+        }
+        // Published between the read above and registering
+        if (latestOffset > after) {
+            wake(List.of(waiter));
+        }
+        return result;
+    }
+
+    /**
+     * Streams changes after {@code after} as SSE events named {@code changes}, each carrying a
+     * batch as JSON array and the offset of its last change as event id.
+     */
+    public SseEmitter subscribe(long after) {
+        SseEmitter emitter = new SseEmitter(properties.streamTimeout().toMillis());
+        SseSink sink = new SseSink(emitter);
+        Subscription subscription = subscribe(after, sink);
+        emitter.onCompletion(() -> {
+            sink.close();
+            subscription.cancel();
+        });
+        emitter.onTimeout(() -> {
+            sink.close();
+            emitter.complete();
+        });
+        emitter.onError(e -> {
+            sink.close();
+            subscription.cancel();
+        });
+        // Backlog is sent by the next poll-interval tick, after the response has been committed
+        return emitter;
+    }
+
+    /**
+     * Passes changes after {@code after} to {@code sink} in batches of at most
+     * {@code max-batch-size}, until the subscription is cancelled. The backlog follows on the next
+     * wake-up, or right away with {@link Subscription#deliver()}.
+     */
+    public Subscription subscribe(long after, ChangeSink sink) {
+        Subscription subscription = new Subscription(sink, after);
+        subscribers.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Called by the publisher after committing offsets up to {@code offset}.
+     */
+    public void published(long offset) {
+        List<Waiter> ready = new ArrayList<>();
+        lock.lock();
+        try {
+            if (offset <= latestOffset) {
+                return;
+            }
+            latestOffset = offset;
+            for (Waiter waiter : waiters) {
+                if (waiter.after() < offset) {
+                    ready.add(waiter);
+                }
+            }
+            waiters.removeAll(ready);
+        } finally {
+            lock.unlock();
+        }
+        wake(ready);
+        deliverToSubscribers();
+    }
+
+    @Scheduled(fixedDelayString = "${user-changes.poll-interval:1s}")
+    public void refresh() {
+        published(changeRepository.latestOffset());
+        deliverToSubscribers();
+    }
+
+    private void wake(List<Waiter> ready) {
+        Map<Long, List<UserChangeEvent>> readsByOffset = new HashMap<>();
+        for (Waiter waiter : ready) {
+            try {
+                List<UserChangeEvent> changes = readsByOffset.computeIfAbsent(waiter.after(),
+                        after -> read(after, properties.maxBatchSize()));
+                waiter.result().setResult(changes.subList(0, Math.min(waiter.limit(), changes.size())));
+            } catch (RuntimeException e) {
+                waiter.result().setErrorResult(e);
+            }
+        }
+    }
+
+    private void deliverToSubscribers() {
+        for (Subscription subscriber : subscribers) {
+            if (subscriber.offset < latestOffset) {
+                subscriber.deliver();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        delivery.shutdownNow();
+    }
+
+    private void remove(Waiter waiter) {
+        lock.lock();
+        try {
+            waiters.remove(waiter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Waiter(long after, int limit, DeferredResult<List<UserChangeEvent>> result) {
+    }
+
+    /**
+     * Where a {@link Subscription} sends its batches. Called by one delivery thread at a time.
+     */
+    public interface ChangeSink {
+
+        /**
+         * Whether the consumer takes another batch now. If not, delivery pauses until the next
+         * wake-up or the next {@link Subscription#deliver()}.
+         */
+        default boolean isReady() {
+            return true;
+        }
+
+        void send(List<UserChangeEvent> batch) throws IOException;
+
+        /**
+         * The changes after the subscription's offset were already deleted by the retention
+         * cleanup. The subscription has been cancelled.
+         */
+        void expired(ChangeOffsetExpiredException e);
+
+        /**
+         * {@link #send} failed. The subscription has been cancelled.
+         */
+        void failed(Exception e);
+    }
+
+    public final class Subscription {
+        private final ChangeSink sink;
+        private final ReentrantLock sending = new ReentrantLock();
+        private final AtomicBoolean queued = new AtomicBoolean();
+        private volatile long offset;
+
+        private Subscription(ChangeSink sink, long offset) {
+            this.sink = sink;
+            this.offset = offset;
+        }
+
+        /**
+         * Sends what the consumer has not seen yet, as long as it is ready, on a delivery thread.
+         * Returns right away; calls while a delivery is queued are folded into it.
+         */
+        public void deliver() {
+            if (!queued.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                delivery.execute(this::send);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                queued.set(false);
+            }
+        }
+
+        private void send() {
+            sending.lock();
+            try {
+                // Cleared under the lock, so a wake-up from now on queues another round
+                queued.set(false);
+                List<UserChangeEvent> batch;
+                while (sink.isReady() && !(batch = read(offset, properties.maxBatchSize())).isEmpty()) {
+                    sink.send(batch);
+                    offset = batch.getLast().offset();
+                }
+            } catch (ChangeOffsetExpiredException e) {
+                cancel();
+                sink.expired(e);
+            } catch (IOException | RuntimeException e) {
+                // Also a failed read or a call cancelled mid-send: only this subscriber is dropped
+                cancel();
+                sink.failed(e);
+            } finally {
+                sending.unlock();
+            }
+        }
+
+        public void cancel() {
+            subscribers.remove(this);
+        }
+    }
+
+    /**
+     * SSE events named {@code changes}, each a batch as JSON array with the offset of its last
+     * change as event id. Ready until the emitter completes, fails or times out, so the backlog is
+     * not read for a client that is gone.
+     */
+    private static final class SseSink implements ChangeSink {
+
+        private final SseEmitter emitter;
+        private volatile boolean open = true;
+
+        private SseSink(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void close() {
+            open = false;
+        }
+
+        @Override
+        public boolean isReady() {
+            return open;
+        }
+
+        @Override
+        public void send(List<UserChangeEvent> batch) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(batch.getLast().offset()))
+                    .name("changes")
+                    .data(batch, MediaType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void expired(ChangeOffsetExpiredException e) {
+            try {
+                emitter.send(SseEmitter.event().name("expired").data(e.getMessage()));
+                emitter.complete();
+            } catch (IOException | IllegalStateException closed) {
+                emitter.completeWithError(closed);
+            }
+        }
+
+        @Override
+        public void failed(Exception e) {
+            log.debug("Dropping change stream subscriber: {}", e.getMessage());
+            emitter.completeWithError(e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ch.furchert.usermanagement.service;
+
+import ch.furchert.usermanagement.config.UserChangeProperties;
+import ch.furchert.usermanagement.repository.UserChangeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * Drains the {@code user_change} outbox: pending rows get their offsets in batches, which makes
+ * them visible to consumers, and published rows are deleted once they fall out of the retention.
+ * <p>
+ * Only one instance publishes at a time (advisory lock), the others skip the round.
+ */
+@Slf4j
+@Component
+public class UserChangePublisher {
+
+    private final UserChangeRepository changeRepository;
+    private final UserChangeFeed changeFeed;
+    private final UserChangeProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter published;
+
+    public UserChangePublisher(UserChangeRepository changeRepository, UserChangeFeed changeFeed,
+                               UserChangeProperties properties, PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry) {
+        this.changeRepository = changeRepository;
+        this.changeFeed = changeFeed;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.published = Counter.builder("user.changes.published")
+                .description("Outbox rows handed to the change feed")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${user-changes.publish-interval:200ms}")
+    public void publish() {
+        int count;
+        do {
+            count = transactionTemplate.execute(status -> changeRepository.publishPending(properties.publishBatchSize()));
+            if (count > 0) {
+                published.increment(count);
+                // After commit, so woken consumers can read what was just published
+                changeFeed.published(changeRepository.latestOffset());
+            }
+        } while (count == properties.publishBatchSize());
+    }
+
+    @Scheduled(fixedDelayString = "${user-changes.cleanup-interval:1h}")
+    public void cleanup() {
+        deletePublishedBefore(Instant.now().minus(properties.retention()));
+    }
+
+    /**
+     * Deletes changes published before {@code cutoff}, one short statement per batch.
+     */
+    public int deletePublishedBefore(Instant cutoff) {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = changeRepository.deletePublishedBefore(Timestamp.from(cutoff), properties.cleanupBatchSize());
+            total += deleted;
+        } while (deleted == properties.cleanupBatchSize());
+        if (total > 0) {
+            log.info("Deleted {} user changes published before {}", total, cutoff);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,219 @@
+package ch.furchert.usermanagement.service;
+
+import ch.furchert.usermanagement.cache.UserCache;
+import ch.furchert.usermanagement.cache.UserExistenceIndex;
+import ch.furchert.usermanagement.dto.request.CreateUserRequest;
+import ch.furchert.usermanagement.dto.response.BulkImportResult;
+import ch.furchert.usermanagement.dto.response.BulkImportResult.Outcome;
+import ch.furchert.usermanagement.entity.ChangeType;
+import ch.furchert.usermanagement.entity.Role;
+import ch.furchert.usermanagement.entity.Status;
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.metrics.UserServiceMetrics;
+import ch.furchert.usermanagement.repository.UserChangeRepository;
+import ch.furchert.usermanagement.repository.UserRepository;
+import ch.furchert.usermanagement.repository.UserRepository.TakenIdentity;
+import ch.furchert.usermanagement.security.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Creates many users at once: validation and de-duplication happen in memory, conflicts with
+ * existing accounts are found with one query per chunk (skipped when the existence index rules out
+ * every name in it), passwords are hashed in parallel and the rows go to the database as JDBC
+ * batches. A name the index has not caught up with yet is still rejected by the unique constraints.
+ * <p>
+ * Imported accounts start like signups: {@code UNVERIFIED} with a verification mail, queued in the
+ * same transaction, or {@code ACTIVE} where accounts are not verified by mail.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserImportService {
+
+    /**
+     * Rows per conflict query and per insert transaction; keeps IN lists and locks short.
+     */
+    static final int CHUNK_SIZE = 500;
+
+    private final UserRepository userRepository;
+    private final UserChangeRepository changeRepository;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final MeterRegistry meterRegistry;
+    private final UserExistenceIndex existenceIndex;
+    private final UserCache userCache;
+    private final AccountMailService accountMailService;
+
+    public List<BulkImportResult> importUsers(List<CreateUserRequest> requests) {
+        BulkImportResult[] results = new BulkImportResult[requests.size()];
+        List<Integer> accepted = validateAndDeduplicate(requests, results);
+
+        for (int from = 0; from < accepted.size(); from += CHUNK_SIZE) {
+            List<Integer> chunk = accepted.subList(from, Math.min(from + CHUNK_SIZE, accepted.size()));
+            importChunk(requests, chunk, results);
+        }
+        return Arrays.asList(results);
+    }
+
+    private List<Integer> validateAndDeduplicate(List<CreateUserRequest> requests, BulkImportResult[] results) {
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        List<Integer> accepted = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            CreateUserRequest request = requests.get(i);
+            Set<ConstraintViolation<CreateUserRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                results[i] = result(i, request, Outcome.INVALID, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+            } else if (!usernames.add(request.getUsername())) {
+                results[i] = result(i, request, Outcome.DUPLICATE, "Username appears more than once in the import");
+            } else if (!emails.add(request.getEmail())) {
+                results[i] = result(i, request, Outcome.DUPLICATE, "Email appears more than once in the import");
+            } else {
+                accepted.add(i);
+            }
+        }
+        return accepted;
+    }
+
+    private void importChunk(List<CreateUserRequest> requests, List<Integer> chunk, BulkImportResult[] results) {
+        // Only names the existence index may have seen can be taken; a chunk of new names needs no query
+        List<String> usernames = chunk.stream()
+                .map(i -> requests.get(i).getUsername())
+                .filter(existenceIndex::mightContainUsername)
+                .toList();
+        List<String> emails = chunk.stream()
+                .map(i -> requests.get(i).getEmail())
+                .filter(existenceIndex::mightContainEmail)
+                .toList();
+        Set<String> takenUsernames = new HashSet<>();
+        Set<String> takenEmails = new HashSet<>();
+        if (!usernames.isEmpty() || !emails.isEmpty()) {
+            for (TakenIdentity taken : userRepository.findTakenIdentities(usernames, emails)) {
+                takenUsernames.add(taken.getUsername());
+                takenEmails.add(taken.getEmail());
+            }
+        }
+
+        List<Integer> insertable = new ArrayList<>(chunk.size());
+        for (int i : chunk) {
+            CreateUserRequest request = requests.get(i);
+            if (takenUsernames.contains(request.getUsername())) {
+                results[i] = result(i, request, Outcome.CONFLICT, UniqueConstraintViolations.USERNAME_TAKEN);
+            } else if (takenEmails.contains(request.getEmail())) {
+                results[i] = result(i, request, Outcome.CONFLICT, UniqueConstraintViolations.EMAIL_IN_USE);
+            } else {
+                insertable.add(i);
+            }
+        }
+        if (insertable.isEmpty()) {
+            return;
+        }
+
+        List<String> hashes = passwordEncoder.encodeAll(insertable.stream()
+                .map(i -> requests.get(i).getPassword())
+                .toList());
+        Status status = accountMailService.newAccountStatus();
+        List<User> users = new ArrayList<>(insertable.size());
+        for (int n = 0; n < insertable.size(); n++) {
+            users.add(newUser(requests.get(insertable.get(n)), hashes.get(n), status));
+        }
+
+        try {
+            insertBatch(users);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent signup grabbed one of the names between the check and the insert
+            log.debug("Batch insert hit a unique constraint, retrying chunk row by row", e);
+            users = insertOneByOne(requests, insertable, users, results);
+        }
+        int createdCount = 0;
+        for (int n = 0; n < insertable.size(); n++) {
+            int i = insertable.get(n);
+            if (results[i] == null) {
+                BulkImportResult created = result(i, requests.get(i), Outcome.CREATED, null);
+                created.setId(users.get(n).getId());
+                results[i] = created;
+                existenceIndex.add(users.get(n).getUsername(), users.get(n).getEmail());
+                // As for a signup: lookups of the new user go to the primary for a while
+                userCache.evict(users.get(n));
+                createdCount++;
+            }
+        }
+        meterRegistry.counter(UserServiceMetrics.SIGNUPS, "source", "bulk").increment(createdCount);
+    }
+
+    private void insertBatch(List<User> users) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userRepository.saveAll(users);
+            // Through the repository, so a unique violation arrives translated as DataIntegrityViolationException
+            userRepository.flush();
+            changeRepository.appendAll(ChangeType.CREATED, users);
+            accountMailService.sendVerifications(users);
+            entityManager.clear();
+        });
+    }
+
+    private List<User> insertOneByOne(List<CreateUserRequest> requests, List<Integer> insertable,
+                                      List<User> users, BulkImportResult[] results) {
+        List<User> saved = new ArrayList<>(users.size());
+        for (int n = 0; n < insertable.size(); n++) {
+            int i = insertable.get(n);
+            // The failed batch left its entities with ids and versions; fresh ones are inserted as new
+            User user = newUser(requests.get(i), users.get(n).getPasswordHash(), users.get(n).getStatus());
+            try {
+                saved.add(new TransactionTemplate(transactionManager).execute(status -> {
+                    User created = userRepository.saveAndFlush(user);
+                    changeRepository.append(ChangeType.CREATED, created);
+                    accountMailService.sendVerification(created);
+                    return created;
+                }));
+            } catch (DataIntegrityViolationException e) {
+                String conflict = UniqueConstraintViolations.conflictMessage(e);
+                results[i] = result(i, requests.get(i), Outcome.CONFLICT,
+                        conflict != null ? conflict : "Username or email is already in use");
+                saved.add(user);
+            }
+        }
+        return saved;
+    }
+
+    private static User newUser(CreateUserRequest request, String passwordHash, Status status) {
+        return User.builder()
+                .username(request.getUsername())
+                .email(request.getEmail())
+                .role(Role.USER)
+                .status(status)
+                .lastLogin(null)
+                .passwordHash(passwordHash)
+                .build();
+    }
+
+    private static BulkImportResult result(int index, CreateUserRequest request, Outcome outcome, String message) {
+        return BulkImportResult.builder()
+                .index(index)
+                .username(request.getUsername())
+                .outcome(outcome)
+                .message(message)
+                .build();
+    }
+}
@@ -1,16 +1,37 @@
 package ch.furchert.usermanagement.service;
 
 import ch.furchert.usermanagement.dto.UserDto;
+import ch.furchert.usermanagement.dto.UserVersion;
+import ch.furchert.usermanagement.dto.UserView;
 import ch.furchert.usermanagement.dto.request.CreateUserRequest;
+import ch.furchert.usermanagement.dto.request.UserSearchCriteria;
 import ch.furchert.usermanagement.entity.User;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserService {
     User createUser(CreateUserRequest userRequest);
     User getUserById(Long id);
-    List<User> getAllUsers();
-    User updateUser(Long id, UserDto userDto);
+    User getUserByUsername(String username);
+    User getUserByEmail(String email);
+    UserView getUserView(Long id);
+    UserView getUserViewByUsername(String username);
+    UserView getUserViewByEmail(String email);
+    UserVersion getUserVersion(Long id);
+    boolean isUsernameAvailable(String username);
+    boolean isEmailAvailable(String email);
+    List<UserView> getUsers(Long after, int limit);
+    List<UserVersion> getUserVersions(Long after, int limit);
+    void streamUsers(Consumer<UserView> consumer);
+    void lookupUsersByIds(List<Long> ids, Consumer<UserView> consumer);
+    void lookupUsersByUsernames(List<String> usernames, Consumer<UserView> consumer);
+    void lookupUsersByEmails(List<String> emails, Consumer<UserView> consumer);
+    List<UserView> searchUsers(UserSearchCriteria criteria, Long after, int limit);
+    User updateUser(Long id, UserDto userDto, Long expectedVersion);
     void deleteUser(Long id);
     void resetPassword(Long id, String newPassword);
+    void verifyEmail(String token);
+    void requestPasswordReset(String email);
+    void resetPasswordWithToken(String token, String newPassword);
 }
@@ -1,17 +1,34 @@
 package ch.furchert.usermanagement.service;
 
+import ch.furchert.usermanagement.cache.UserCache;
+import ch.furchert.usermanagement.cache.UserExistenceIndex;
+import ch.furchert.usermanagement.config.ReplicaRoutingDataSource;
 import ch.furchert.usermanagement.dto.UserDto;
+import ch.furchert.usermanagement.dto.UserVersion;
+import ch.furchert.usermanagement.dto.UserView;
 import ch.furchert.usermanagement.dto.request.CreateUserRequest;
+import ch.furchert.usermanagement.dto.request.UserSearchCriteria;
+import ch.furchert.usermanagement.entity.ChangeType;
 import ch.furchert.usermanagement.entity.Role;
 import ch.furchert.usermanagement.entity.Status;
+import ch.furchert.usermanagement.entity.TokenPurpose;
 import ch.furchert.usermanagement.entity.User;
 import ch.furchert.usermanagement.exception.UserNotFoundException;
+import ch.furchert.usermanagement.exception.VersionMismatchException;
+import ch.furchert.usermanagement.repository.UserChangeRepository;
 import ch.furchert.usermanagement.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -19,59 +36,266 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder; // If you're using Spring Security for hashing
+    private final UserCache userCache;
+    private final UserChangeRepository changeRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final AccountMailService accountMailService;
+    private final UserExistenceIndex existenceIndex;
 
+    /**
+     * Relies on the unique constraints of {@code user_account} instead of checking first: one
+     * round trip, and two concurrent signups for the same name cannot both succeed.
+     * <p>
+     * With mail verification the account stays {@code UNVERIFIED} until the link in the
+     * verification mail, queued in the same transaction, is opened.
+     */
     @Override
     public User createUser(CreateUserRequest userRequest) {
-        // Check for existing username
-        if (userRepository.existsByUsername(userRequest.getUsername())) {
-            throw new IllegalArgumentException("Username is already taken");
-        }
-        // Check for existing email
-        if (userRepository.existsByEmail(userRequest.getEmail())) {
-            throw new IllegalArgumentException("Email is already in use");
-        }
-
         User user = User.builder()
                 .username(userRequest.getUsername())
                 .email(userRequest.getEmail())
                 .role(Role.USER)
-                .status(Status.ACTIVE)
+                .status(accountMailService.newAccountStatus())
                 .lastLogin(null)
                 .passwordHash(passwordEncoder.encode(userRequest.getPassword()))
                 .build();
-        return userRepository.save(user);
+        try {
+            User created = saveAndLog(ChangeType.CREATED, user, accountMailService::sendVerification);
+            existenceIndex.add(created.getUsername(), created.getEmail());
+            // Nothing cached yet, but lookups of the new user now go to the primary for a while
+            userCache.evict(created);
+            return created;
+        } catch (DataIntegrityViolationException e) {
+            String conflict = UniqueConstraintViolations.conflictMessage(e);
+            if (conflict == null) {
+                // Unknown constraint name, find out which value clashes the slow way
+                conflict = ReplicaRoutingDataSource.onPrimary(() -> userRepository.existsByUsername(userRequest.getUsername()))
+                        ? UniqueConstraintViolations.USERNAME_TAKEN
+                        : UniqueConstraintViolations.EMAIL_IN_USE;
+            }
+            throw new IllegalArgumentException(conflict, e);
+        }
     }
 
+    // Entity lookups bypass the cache: callers need the password hash or a managed instance.
+    // Concurrent ones for the same key, e.g. logins of a reconnecting fleet, share one query
     @Override
     public User getUserById(Long id) {
-        return userRepository.findById(id)
-                .orElseThrow(() -> new UserNotFoundException(id));
+        return userCache.loadUser(UserCache.BY_ID, id, () -> findUser(id));
+    }
+
+    @Override
+    public User getUserByUsername(String username) {
+        return userCache.loadUser(UserCache.BY_USERNAME, username, () -> userRepository.findByUsername(username)
+                .orElseThrow(() -> new UserNotFoundException("username", username)));
+    }
+
+    @Override
+    public User getUserByEmail(String email) {
+        return userCache.loadUser(UserCache.BY_EMAIL, email, () -> userRepository.findByEmail(email)
+                .orElseThrow(() -> new UserNotFoundException("email", email)));
+    }
+
+    @Override
+    public UserView getUserView(Long id) {
+        return userCache.getById(id, () -> userRepository.findViewById(id)
+                .orElseThrow(() -> new UserNotFoundException(id)));
+    }
+
+    @Override
+    public UserView getUserViewByUsername(String username) {
+        return userCache.getByUsername(username, () -> userRepository.findViewByUsername(username)
+                .orElseThrow(() -> new UserNotFoundException("username", username)));
+    }
+
+    @Override
+    public UserView getUserViewByEmail(String email) {
+        return userCache.getByEmail(email, () -> userRepository.findViewByEmail(email)
+                .orElseThrow(() -> new UserNotFoundException("email", email)));
+    }
+
+    // Not cached: this is what a cached copy on the client is validated against
+    @Override
+    public UserVersion getUserVersion(Long id) {
+        return userCache.readYourWrites(UserCache.BY_ID, id, () -> userRepository.findVersionById(id)
+                .orElseThrow(() -> new UserNotFoundException(id)));
+    }
+
+    // Exact match, like the unique constraints; the index only rules out names nobody has
+    @Override
+    public boolean isUsernameAvailable(String username) {
+        return !existenceIndex.usernameExists(username, () -> userRepository.existsByUsername(username));
+    }
+
+    @Override
+    public boolean isEmailAvailable(String email) {
+        return !existenceIndex.emailExists(email, () -> userRepository.existsByEmail(email));
+    }
+
+    @Override
+    public List<UserView> getUsers(Long after, int limit) {
+        return userRepository.findViewsAfter(after == null ? 0L : after, Limit.of(limit));
+    }
+
+    @Override
+    public List<UserVersion> getUserVersions(Long after, int limit) {
+        return userRepository.findVersionsAfter(after == null ? 0L : after, Limit.of(limit));
+    }
+
+    /**
+     * Read-only transaction: Spring switches the Hibernate session to {@code FlushMode.MANUAL},
+     * and the projection rows are never attached to the persistence context.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamUsers(Consumer<UserView> consumer) {
+        try (Stream<UserView> users = userRepository.streamAllViews()) {
+            users.forEach(consumer);
+        }
+    }
+
+    /**
+     * One query for the whole batch, uncached: {@code consumer} gets a view per key in request
+     * order, {@code null} for keys without a user, instead of a {@link UserNotFoundException}.
+     */
+    @Override
+    public void lookupUsersByIds(List<Long> ids, Consumer<UserView> consumer) {
+        userRepository.findViewsByIds(ids, consumer);
+    }
+
+    @Override
+    public void lookupUsersByUsernames(List<String> usernames, Consumer<UserView> consumer) {
+        userRepository.findViewsByUsernames(usernames, consumer);
+    }
+
+    @Override
+    public void lookupUsersByEmails(List<String> emails, Consumer<UserView> consumer) {
+        userRepository.findViewsByEmails(emails, consumer);
     }
 
     @Override
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public List<UserView> searchUsers(UserSearchCriteria criteria, Long after, int limit) {
+        return userRepository.search(criteria, after, limit);
     }
 
+    /**
+     * With an {@code expectedVersion} the update is rejected before anything is written if the
+     * user changed since the caller read it. A write racing in between is still caught by the
+     * {@code @Version} check of the UPDATE and surfaces as an optimistic locking failure.
+     */
     @Override
-    public User updateUser(Long id, UserDto userDto) {
-        User existingUser = getUserById(id);
+    public User updateUser(Long id, UserDto userDto, Long expectedVersion) {
+        User existingUser = findUserForUpdate(id);
+        if (expectedVersion != null && !expectedVersion.equals(existingUser.getVersion())) {
+            throw new VersionMismatchException(id, existingUser.getVersion());
+        }
+        String oldUsername = existingUser.getUsername();
+        String oldEmail = existingUser.getEmail();
         existingUser.setUsername(userDto.getUsername());
         existingUser.setEmail(userDto.getEmail());
         existingUser.setRole(Role.valueOf(userDto.getRole()));
-        return userRepository.save(existingUser);
+        User savedUser = saveAndLog(ChangeType.UPDATED, existingUser);
+        existenceIndex.add(savedUser.getUsername(), savedUser.getEmail());
+        userCache.evict(id, oldUsername, oldEmail);
+        userCache.evict(savedUser);
+        return savedUser;
     }
 
     @Override
     public void deleteUser(Long id) {
-        User user = getUserById(id);
-        userRepository.delete(user);
+        User user = findUserForUpdate(id);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userRepository.delete(user);
+            userRepository.flush();
+            changeRepository.append(ChangeType.DELETED, user);
+        });
+        userCache.evict(user);
     }
 
     @Override
     public void resetPassword(Long id, String newPassword) {
-        User user = getUserById(id);
+        User user = findUserForUpdate(id);
         user.setPasswordHash(passwordEncoder.encode(newPassword));
-        userRepository.save(user);
+        saveAndLog(ChangeType.PASSWORD_RESET, user);
+        userCache.evict(user);
+    }
+
+    @Override
+    public void verifyEmail(String token) {
+        User user = new TransactionTemplate(transactionManager).execute(status -> {
+            User verified = findUser(accountMailService.redeem(TokenPurpose.VERIFY_EMAIL, token));
+            if (verified.getStatus() == Status.UNVERIFIED) {
+                verified.setStatus(Status.ACTIVE);
+                verified = userRepository.saveAndFlush(verified);
+                changeRepository.append(ChangeType.UPDATED, verified);
+            }
+            return verified;
+        });
+        userCache.evict(user);
+    }
+
+    /**
+     * Answers the same whether or not the address belongs to an account: the mail is only
+     * queued here, so the request takes about as long either way. Blocked accounts get no mail.
+     */
+    @Override
+    public void requestPasswordReset(String email) {
+        if (!accountMailService.tryAcquireResetMail(email)) {
+            return;
+        }
+        userRepository.findByEmail(email)
+                .filter(user -> user.getStatus() != Status.BLOCKED)
+                .ifPresent(user -> new TransactionTemplate(transactionManager)
+                        .executeWithoutResult(status -> accountMailService.sendPasswordReset(user)));
+    }
+
+    /**
+     * Hashes before the transaction, which then only redeems the token and writes the user. The
+     * mail reached the address, so an account still waiting for its verification is verified too.
+     */
+    @Override
+    public void resetPasswordWithToken(String token, String newPassword) {
+        String passwordHash = passwordEncoder.encode(newPassword);
+        User user = new TransactionTemplate(transactionManager).execute(status -> {
+            User resetUser = findUser(accountMailService.redeem(TokenPurpose.RESET_PASSWORD, token));
+            resetUser.setPasswordHash(passwordHash);
+            if (resetUser.getStatus() == Status.UNVERIFIED) {
+                resetUser.setStatus(Status.ACTIVE);
+            }
+            User saved = userRepository.saveAndFlush(resetUser);
+            changeRepository.append(ChangeType.PASSWORD_RESET, saved);
+            return saved;
+        });
+        userCache.evict(user);
+    }
+
+    private User saveAndLog(ChangeType type, User user) {
+        return saveAndLog(type, user, saved -> {
+        });
+    }
+
+    /**
+     * Writes the user and its {@code user_change} outbox row in one transaction, together with
+     * whatever {@code alsoInTransaction} writes for it. Hashing and lookups happen before, so the
+     * transaction only holds a connection for the writes.
+     */
+    private User saveAndLog(ChangeType type, User user, Consumer<User> alsoInTransaction) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            // Flush first: the row lock on the user orders concurrent changes to it in the outbox
+            User saved = userRepository.saveAndFlush(user);
+            changeRepository.append(type, saved);
+            alsoInTransaction.accept(saved);
+            return saved;
+        });
+    }
+
+    private User findUser(Long id) {
+        return userRepository.findById(id)
+                .orElseThrow(() -> new UserNotFoundException(id));
+    }
+
+    // findById is read-only and may go to a replica, whose copy can be older than the row the write will meet
+    private User findUserForUpdate(Long id) {
+        return ReplicaRoutingDataSource.onPrimary(() -> findUser(id));
     }
 }
@@ -0,0 +1,20 @@
+-- Schema as previously generated by Hibernate (ddl-auto=update). Databases that already have it are
+-- baselined at this version instead (spring.flyway.baseline-on-migrate).
+
+CREATE SEQUENCE user_account_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE user_account
+(
+    id            BIGINT       NOT NULL,
+    username      VARCHAR(20)  NOT NULL,
+    email         VARCHAR(255) NOT NULL,
+    password_hash VARCHAR(255) NOT NULL,
+    role          VARCHAR(255) NOT NULL CHECK (role IN ('USER', 'ADMIN')),
+    user_status   VARCHAR(255) CHECK (user_status IN ('UNVERIFIED', 'ACTIVE', 'INACTIVE', 'BLOCKED')),
+    created       TIMESTAMP(6) NOT NULL,
+    updated       TIMESTAMP(6) NOT NULL,
+    last_login    TIMESTAMP(6),
+    CONSTRAINT user_account_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_user_account_username UNIQUE (username),
+    CONSTRAINT uk_user_account_email UNIQUE (email)
+);
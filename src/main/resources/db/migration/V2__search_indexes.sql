@@ -0,0 +1,11 @@
+-- Indexes behind GET /users/search. CONCURRENTLY keeps user_account writable while they build; Flyway
+-- runs a migration made only of such statements outside a transaction. If a build fails it leaves an
+-- INVALID index behind: drop it and re-run, IF NOT EXISTS would otherwise skip it.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_account_status_id ON user_account (user_status, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_account_role_id ON user_account (role, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_account_last_login ON user_account (last_login);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_account_created ON user_account (created);
+-- Case-insensitive prefix filters (lower(column) LIKE 'prefix%'); text_pattern_ops works under any collation
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_account_lower_username ON user_account (lower(username) text_pattern_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_account_lower_email ON user_account (lower(email) text_pattern_ops);
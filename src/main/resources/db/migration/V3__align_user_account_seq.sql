@@ -0,0 +1,11 @@
+-- Databases created with the former IDENTITY id are baselined at V1 and so lack the sequence V1
+-- creates; their ids came from the column's own identity sequence. Create ours and drop the
+-- identity so the schema matches V1's either way.
+CREATE SEQUENCE IF NOT EXISTS user_account_seq START WITH 1 INCREMENT BY 50;
+ALTER TABLE user_account ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+-- Move the sequence past the existing rows once; Hibernate's pooled optimizer hands out the 50
+-- ids below each value.
+SELECT setval('user_account_seq', max_id + 50)
+FROM (SELECT MAX(id) AS max_id FROM user_account) existing
+WHERE max_id IS NOT NULL;
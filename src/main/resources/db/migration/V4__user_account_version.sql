@@ -0,0 +1,3 @@
+-- Optimistic locking counter behind the ETag and If-Match handling of /users/{id}.
+-- A constant default is stored in the catalog (PostgreSQL 11+), so this does not rewrite the table.
+ALTER TABLE user_account ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,22 @@
+-- Transactional outbox of user mutations, written in the same transaction as the change itself.
+-- The publisher later gives each row a gapless change_offset; consumers page through it by offset.
+-- The id is an identity column (one value per row, no pooled ranges) so that two changes of the
+-- same user, which are serialized by its row lock, always get ascending ids.
+CREATE TABLE user_change
+(
+    id            BIGINT GENERATED ALWAYS AS IDENTITY,
+    change_offset BIGINT,
+    change_type   VARCHAR(20)  NOT NULL CHECK (change_type IN ('CREATED', 'UPDATED', 'DELETED', 'PASSWORD_RESET')),
+    user_id       BIGINT       NOT NULL,
+    username      VARCHAR(20)  NOT NULL,
+    email         VARCHAR(255) NOT NULL,
+    role          VARCHAR(255) NOT NULL,
+    user_status   VARCHAR(255),
+    changed       TIMESTAMP(6) NOT NULL,
+    published     TIMESTAMP(6),
+    CONSTRAINT user_change_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_user_change_offset UNIQUE (change_offset)
+);
+
+-- The publisher's queue: only rows still waiting for an offset
+CREATE INDEX idx_user_change_unpublished ON user_change (id) WHERE change_offset IS NULL;
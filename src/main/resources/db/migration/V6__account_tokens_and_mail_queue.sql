@@ -0,0 +1,37 @@
+-- Single-use tokens sent by e-mail (address verification, password reset). Only the SHA-256 of a
+-- token is stored here; the token itself is in the mail, and in mail_queue until it is sent.
+CREATE TABLE user_token
+(
+    id         BIGINT GENERATED ALWAYS AS IDENTITY,
+    user_id    BIGINT       NOT NULL,
+    purpose    VARCHAR(20)  NOT NULL CHECK (purpose IN ('VERIFY_EMAIL', 'RESET_PASSWORD')),
+    token_hash VARCHAR(64)  NOT NULL,
+    created    TIMESTAMP(6) NOT NULL,
+    expires    TIMESTAMP(6) NOT NULL,
+    used       TIMESTAMP(6),
+    CONSTRAINT user_token_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_user_token_hash UNIQUE (token_hash),
+    CONSTRAINT fk_user_token_user FOREIGN KEY (user_id) REFERENCES user_account (id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_user_token_user_id ON user_token (user_id, purpose) WHERE used IS NULL;
+
+-- Mails waiting to be sent, written in the same transaction as the change that causes them and
+-- drained by the MailDispatcher. Sent mails are deleted; after max-attempts a row stays as FAILED
+-- with its model, which holds the link and so the token, cleared.
+CREATE TABLE mail_queue
+(
+    id           BIGINT GENERATED ALWAYS AS IDENTITY,
+    recipient    VARCHAR(255)  NOT NULL,
+    template     VARCHAR(50)   NOT NULL,
+    model        TEXT,
+    mail_status  VARCHAR(20)   NOT NULL DEFAULT 'PENDING' CHECK (mail_status IN ('PENDING', 'FAILED')),
+    attempts     INT           NOT NULL DEFAULT 0,
+    next_attempt TIMESTAMP(6)  NOT NULL,
+    last_error   VARCHAR(1000),
+    created      TIMESTAMP(6)  NOT NULL,
+    CONSTRAINT mail_queue_pkey PRIMARY KEY (id)
+);
+
+-- The dispatcher's queue: only mails still to be sent, by due time
+CREATE INDEX idx_mail_queue_due ON mail_queue (next_attempt) WHERE mail_status = 'PENDING';
@@ -0,0 +1,406 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.config.MailQueueProperties;
+import ch.furchert.usermanagement.dto.request.CreateUserRequest;
+import ch.furchert.usermanagement.dto.response.BulkImportResult;
+import ch.furchert.usermanagement.dto.response.BulkImportResult.Outcome;
+import ch.furchert.usermanagement.entity.Role;
+import ch.furchert.usermanagement.entity.Status;
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.mail.MailDispatcher;
+import ch.furchert.usermanagement.mail.MailTemplates;
+import ch.furchert.usermanagement.repository.MailQueueRepository;
+import ch.furchert.usermanagement.repository.UserRepository;
+import ch.furchert.usermanagement.repository.UserTokenRepository;
+import ch.furchert.usermanagement.service.AccountMailService;
+import ch.furchert.usermanagement.service.UserImportService;
+import ch.furchert.usermanagement.service.UserService;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verification and password reset mails end to end, against a GreenMail SMTP server. The
+ * dispatcher's own thread is off so each test decides when queued mails are sent.
+ */
+@SpringBootTest(properties = {
+        "spring.mail.host=localhost",
+        "spring.mail.port=3025",
+        "mail-queue.dispatcher-enabled=false",
+        "mail-queue.max-per-second=0"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AccountMailTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private static final Pattern TOKEN = Pattern.compile("token=([A-Za-z0-9_-]+)");
+    private static final Pattern LINK = Pattern.compile("https?://\\S+");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MailDispatcher mailDispatcher;
+
+    @Autowired
+    private MailQueueRepository mailQueue;
+
+    @Autowired
+    private UserTokenRepository tokenRepository;
+
+    @Autowired
+    private MailTemplates mailTemplates;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        // Mails queued by signups in other test classes would be sent along with ours
+        jdbcTemplate.update("delete from mail_queue");
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testSignupIsVerifiedThroughTheMailedLink() throws Exception {
+        // Execute: the signup only queues the mail
+        User user = userService.createUser(createRequest("mail_verify"));
+        assertEquals(Status.UNVERIFIED, user.getStatus());
+        assertEquals(0, greenMail.getReceivedMessages().length);
+        assertEquals(1, mailDispatcher.drain());
+
+        // Assertions
+        MimeMessage mail = singleMail("mail_verify@example.com");
+        assertEquals("Confirm your e-mail address", mail.getSubject());
+        assertTrue(body(mail).contains("Hello mail_verify,"));
+        String token = token(mail);
+
+        mockMvc.perform(post("/users/verify-email")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"token\":\"" + token + "\"}"))
+                .andExpect(status().isNoContent());
+        assertEquals(Status.ACTIVE, userRepository.findById(user.getId()).orElseThrow().getStatus());
+
+        // A token works once; sent mails are gone from the queue
+        mockMvc.perform(post("/users/verify-email")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"token\":\"" + token + "\"}"))
+                .andExpect(status().isBadRequest());
+        assertEquals(0, mailQueue.pendingCount());
+    }
+
+    @Test
+    void testImportedAccountsAreVerifiedLikeSignups() throws Exception {
+        // Execute
+        userImportService.importUsers(List.of(createRequest("mail_import1"), createRequest("mail_import2")));
+        assertEquals(2, mailDispatcher.drain());
+
+        // Assertions: both start UNVERIFIED and each mail's link verifies its own account
+        User imported = userRepository.findByUsername("mail_import2").orElseThrow();
+        assertEquals(Status.UNVERIFIED, imported.getStatus());
+        MimeMessage mail = null;
+        for (MimeMessage received : greenMail.getReceivedMessages()) {
+            if (received.getAllRecipients()[0].toString().equals("mail_import2@example.com")) {
+                mail = received;
+            }
+        }
+        assertNotNull(mail);
+        mockMvc.perform(post("/users/verify-email")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"token\":\"" + token(mail) + "\"}"))
+                .andExpect(status().isNoContent());
+        assertEquals(Status.ACTIVE, userRepository.findById(imported.getId()).orElseThrow().getStatus());
+        assertEquals(Status.UNVERIFIED, userRepository.findByUsername("mail_import1").orElseThrow().getStatus());
+    }
+
+    @Test
+    void testImportFallbackKeepsChangesAndMailsOfTheOtherRows() throws Exception {
+        // Mock dependencies: a user saved past the existence index, as if it had been inserted between
+        // the import's conflict check and its batch insert, so only the insert finds the duplicate
+        userRepository.save(User.builder()
+                .username("mail_race")
+                .email("mail_race@example.com")
+                .passwordHash("hash")
+                .role(Role.USER)
+                .status(Status.ACTIVE)
+                .build());
+
+        // Execute: the batch fails and the chunk is retried row by row
+        List<BulkImportResult> results = userImportService.importUsers(List.of(
+                createRequest("mail_retry1"), createRequest("mail_race"), createRequest("mail_retry2")));
+
+        // Assertions: the other rows are created with their change row and verification mail
+        assertEquals(List.of(Outcome.CREATED, Outcome.CONFLICT, Outcome.CREATED),
+                results.stream().map(BulkImportResult::getOutcome).toList());
+        for (BulkImportResult created : List.of(results.get(0), results.get(2))) {
+            assertEquals(Status.UNVERIFIED, userRepository.findById(created.getId()).orElseThrow().getStatus());
+            assertEquals(1, jdbcTemplate.queryForObject(
+                    "select count(*) from user_change where user_id = ? and change_type = 'CREATED'",
+                    Integer.class, created.getId()));
+        }
+        assertEquals(2, mailDispatcher.drain());
+        Set<String> recipients = new HashSet<>();
+        for (MimeMessage received : greenMail.getReceivedMessages()) {
+            recipients.add(received.getAllRecipients()[0].toString());
+        }
+        assertEquals(Set.of("mail_retry1@example.com", "mail_retry2@example.com"), recipients);
+    }
+
+    @Test
+    void testPasswordIsResetThroughTheMailedLink() throws Exception {
+        User user = userService.createUser(createRequest("mail_reset"));
+        jdbcTemplate.update("delete from mail_queue");
+
+        // Execute
+        mockMvc.perform(post("/users/password-reset-requests")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"mail_reset@example.com\"}"))
+                .andExpect(status().isAccepted());
+        mockMvc.perform(post("/users/password-reset-requests")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"nobody@example.com\"}"))
+                .andExpect(status().isAccepted());
+        assertEquals(1, mailDispatcher.drain());
+
+        // Assertions
+        MimeMessage mail = singleMail("mail_reset@example.com");
+        assertEquals("Reset your password", mail.getSubject());
+        String token = token(mail);
+
+        mockMvc.perform(post("/users/password-reset")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"token\":\"" + token + "\",\"password\":\"new-password123\"}"))
+                .andExpect(status().isNoContent());
+        User reset = userRepository.findById(user.getId()).orElseThrow();
+        assertTrue(passwordEncoder.matches("new-password123", reset.getPasswordHash()));
+        // The mail reached the address, which verifies it as well
+        assertEquals(Status.ACTIVE, reset.getStatus());
+
+        mockMvc.perform(post("/users/password-reset")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"token\":\"" + token + "\",\"password\":\"other-password123\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testMailedLinksOpenTheFrontendPages() throws Exception {
+        // Execute: a signup and a reset request, each mailing a link
+        User user = userService.createUser(createRequest("mail_link"));
+        assertEquals(1, mailDispatcher.drain());
+        URI verifyLink = link(singleMail("mail_link@example.com"));
+        greenMail.purgeEmailFromAllMailboxes();
+        mockMvc.perform(post("/users/password-reset-requests")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"mail_link@example.com\"}"))
+                .andExpect(status().isAccepted());
+        assertEquals(1, mailDispatcher.drain());
+        URI resetLink = link(singleMail("mail_link@example.com"));
+
+        // Assertions: each link opens its page of the configured frontend, which makes the documented call
+        assertEquals("https://app.example.com/account/verify-email", withoutQuery(verifyLink));
+        assertEquals("https://app.example.com/account/reset-password", withoutQuery(resetLink));
+        mockMvc.perform(post("/users/verify-email")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"token\":\"" + queryToken(verifyLink) + "\"}"))
+                .andExpect(status().isNoContent());
+        assertEquals(Status.ACTIVE, userRepository.findById(user.getId()).orElseThrow().getStatus());
+        mockMvc.perform(post("/users/password-reset")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"token\":\"" + queryToken(resetLink) + "\",\"password\":\"new-password123\"}"))
+                .andExpect(status().isNoContent());
+        assertTrue(passwordEncoder.matches("new-password123",
+                userRepository.findById(user.getId()).orElseThrow().getPasswordHash()));
+    }
+
+    @Test
+    void testMissingLinkBaseUrlIsRejected() {
+        MailQueueProperties properties = properties(Map.of());
+
+        // Execute and assertions: without a frontend, every mailed link would lead nowhere
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> new AccountMailService(
+                tokenRepository, mailQueue, properties,
+                new StaticListableBeanFactory().getBeanProvider(MailDispatcher.class)));
+        assertTrue(e.getMessage().contains("mail-queue.link-base-url"));
+    }
+
+    @Test
+    void testResetMailsAreLimitedPerAddress() throws Exception {
+        userService.createUser(createRequest("mail_limit"));
+        jdbcTemplate.update("delete from mail_queue");
+
+        // Execute
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(post("/users/password-reset-requests")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"email\":\"mail_limit@example.com\"}"))
+                    .andExpect(status().isAccepted());
+        }
+
+        // Assertions: the default limit of 3 per hour, and only the newest link works
+        assertEquals(3, mailDispatcher.drain());
+        MimeMessage[] mails = greenMail.getReceivedMessages();
+        mockMvc.perform(post("/users/password-reset")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"token\":\"" + token(mails[0]) + "\",\"password\":\"new-password123\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/users/password-reset")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"token\":\"" + token(mails[2]) + "\",\"password\":\"new-password123\"}"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void testUnsentMailsAreRetriedWithBackoffAndFinallyFail() throws IOException {
+        JavaMailSenderImpl unreachable = new JavaMailSenderImpl();
+        unreachable.setHost("localhost");
+        unreachable.setPort(closedPort());
+        MailDispatcher dispatcher = new MailDispatcher(mailQueue, mailTemplates,
+                properties(Map.of("mail-queue.max-attempts", "2", "mail-queue.initial-backoff", "0s")),
+                unreachable, transactionManager, new SimpleMeterRegistry(), Clock.systemUTC());
+        mailQueue.enqueue("broken@example.com", "no-such-template", Map.of(), Instant.now());
+        mailQueue.enqueue("retry@example.com", AccountMailService.VERIFY_EMAIL_TEMPLATE,
+                Map.of("username", "retry", "validity", "1 hour", "link", "http://localhost/verify"), Instant.now());
+
+        // Execute
+        assertEquals(0, dispatcher.drain());
+
+        // Assertions: a template that cannot be rendered fails at once, an unreachable server is retried
+        assertEquals(Map.of("retry@example.com", "PENDING:1", "broken@example.com", "FAILED:1"), queueState());
+        assertEquals(0, dispatcher.drain());
+        assertEquals(Map.of("retry@example.com", "FAILED:2", "broken@example.com", "FAILED:1"), queueState());
+        assertEquals(0, mailQueue.pendingCount());
+        // A failed mail keeps no link, and so no token
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from mail_queue where model is not null", Integer.class));
+    }
+
+    @Test
+    void testBackoffDoublesUpToTheMaximum() {
+        MailDispatcher dispatcher = new MailDispatcher(mailQueue, mailTemplates, properties(Map.of()),
+                new JavaMailSenderImpl(), transactionManager, new SimpleMeterRegistry(), Clock.systemUTC());
+
+        // Assertions: 30s initial backoff, at most 1h
+        assertEquals(Duration.ofSeconds(30), dispatcher.backoff(1));
+        assertEquals(Duration.ofMinutes(2), dispatcher.backoff(3));
+        assertEquals(Duration.ofMinutes(32), dispatcher.backoff(7));
+        assertEquals(Duration.ofHours(1), dispatcher.backoff(30));
+    }
+
+    private Map<String, String> queueState() {
+        return Map.copyOf(jdbcTemplate.query("select recipient, mail_status, attempts from mail_queue",
+                rs -> {
+                    Map<String, String> state = new HashMap<>();
+                    while (rs.next()) {
+                        state.put(rs.getString(1), rs.getString(2) + ":" + rs.getInt(3));
+                    }
+                    return state;
+                }));
+    }
+
+    private static MailQueueProperties properties(Map<String, String> values) {
+        return new Binder(new MapConfigurationPropertySource(values)).bindOrCreate("mail-queue", MailQueueProperties.class);
+    }
+
+    private static MimeMessage singleMail(String recipient) throws Exception {
+        MimeMessage[] mails = greenMail.getReceivedMessages();
+        assertEquals(1, mails.length);
+        assertEquals(recipient, mails[0].getAllRecipients()[0].toString());
+        return mails[0];
+    }
+
+    private static URI link(MimeMessage mail) throws Exception {
+        Matcher matcher = LINK.matcher(body(mail));
+        assertTrue(matcher.find(), "mail contains a link");
+        return URI.create(matcher.group());
+    }
+
+    private static String withoutQuery(URI link) {
+        return link.getScheme() + "://" + link.getAuthority() + link.getPath();
+    }
+
+    private static String queryToken(URI link) {
+        return UriComponentsBuilder.fromUri(link).build().getQueryParams().getFirst("token");
+    }
+
+    private static String token(MimeMessage mail) throws Exception {
+        Matcher matcher = TOKEN.matcher(body(mail));
+        assertTrue(matcher.find(), "mail contains a link with a token");
+        return matcher.group(1);
+    }
+
+    // Decoded, unlike the raw (quoted-printable) body GreenMailUtil returns
+    private static String body(MimeMessage mail) throws Exception {
+        return (String) mail.getContent();
+    }
+
+    private static int closedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static CreateUserRequest createRequest(String username) {
+        CreateUserRequest request = new CreateUserRequest();
+        request.setUsername(username);
+        request.setEmail(username + "@example.com");
+        request.setPassword("password123");
+        return request;
+    }
+}
@@ -0,0 +1,107 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.dto.request.CreateUserRequest;
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.repository.UserRepository;
+import ch.furchert.usermanagement.service.UserImportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Latency of resolving 500 users over HTTP: one {@code GET /users/{id}} per user, as the
+ * dashboard did, versus one {@code POST /users/lookup}. The cache is off, so every single
+ * lookup is a query. Run with {@code mvn test -DexcludedGroups= -Dgroups=benchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.cache.type=none")
+@ActiveProfiles("test")
+class BatchLookupBenchmarkTest {
+
+    private static final int BATCH = 500;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 20;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void compareBatchLookupWithSingleGets() throws Exception {
+        List<CreateUserRequest> requests = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            requests.add(UserImportServiceTest.request("batch" + i, "batch" + i + "@example.com"));
+        }
+        userImportService.importUsers(requests);
+        List<Long> ids = userRepository.findAll().stream().map(User::getId).toList();
+        assertEquals(BATCH, ids.size());
+        HttpRequest lookup = HttpRequest.newBuilder(uri("/users/lookup"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"ids\":" + ids + "}"))
+                .build();
+
+        List<Long> single = new ArrayList<>();
+        List<Long> batch = new ArrayList<>();
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (Long id : ids) {
+                assertEquals(200, send(HttpRequest.newBuilder(uri("/users/" + id)).build()).statusCode());
+            }
+            long singleNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            HttpResponse<String> response = send(lookup);
+            long batchNanos = System.nanoTime() - start;
+            assertEquals(200, response.statusCode());
+
+            if (round >= WARMUP_ROUNDS) {
+                single.add(singleNanos);
+                batch.add(batchNanos);
+            }
+        }
+
+        System.out.printf("%d x GET /users/{id}: median %.1f ms%nPOST /users/lookup (%d ids): median %.1f ms%n",
+                BATCH, median(single) / 1e6, BATCH, median(batch) / 1e6);
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static long median(List<Long> nanos) {
+        List<Long> sorted = new ArrayList<>(nanos);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+}
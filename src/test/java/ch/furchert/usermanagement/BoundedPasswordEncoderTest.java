@@ -0,0 +1,79 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.exception.HashingCapacityExceededException;
+import ch.furchert.usermanagement.security.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.aot.DisabledInAotMode;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisabledInAotMode // Mockito mocks cannot be created in a native image
+class BoundedPasswordEncoderTest {
+
+    @Test
+    void testEncode_RunsOnHashingPool() {
+        // Mock dependencies
+        PasswordEncoder delegate = mock(PasswordEncoder.class);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        // Mock behavior: report which thread did the work
+        when(delegate.encode("password123")).thenAnswer(invocation -> Thread.currentThread().getName());
+
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(delegate, 1, 1,
+                Duration.ofSeconds(5), Duration.ofSeconds(1), meterRegistry)) {
+            // Execute
+            String result = encoder.encode("password123");
+
+            // Assertions
+            assertTrue(result.startsWith("password-hashing-"));
+            assertEquals(1, meterRegistry.get("password.hashing").tag("operation", "encode").timer().count());
+        }
+    }
+
+    @Test
+    void testEncode_SaturatedPoolIsRejected() throws Exception {
+        // Mock dependencies
+        PasswordEncoder delegate = mock(PasswordEncoder.class);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Mock behavior: the first hash blocks the only worker
+        when(delegate.encode(anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "hashed";
+        });
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(delegate, 1, 1,
+                Duration.ofSeconds(5), Duration.ofSeconds(2), meterRegistry)) {
+            // Execute: one running, one queued, the third must be refused
+            callers.submit(() -> encoder.encode("first"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            callers.submit(() -> encoder.encode("second"));
+            while (meterRegistry.get("password.hashing.queue.size").gauge().value() < 1) {
+                Thread.onSpinWait();
+            }
+
+            HashingCapacityExceededException exception = assertThrows(HashingCapacityExceededException.class,
+                    () -> encoder.encode("third"));
+
+            // Assertions
+            assertEquals(Duration.ofSeconds(2), exception.getRetryAfter());
+            assertEquals(1, meterRegistry.get("password.hashing.rejected").counter().count());
+        } finally {
+            release.countDown();
+            callers.shutdown();
+        }
+    }
+}
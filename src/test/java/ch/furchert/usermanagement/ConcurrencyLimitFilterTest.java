@@ -0,0 +1,53 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.config.ConcurrencyLimitFilter;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServlet;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitFilterTest {
+
+    @Test
+    void testSyncRequestReleasesItsSlotOnReturn() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ZERO);
+
+        // Execute
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/users/1"), response, new MockFilterChain());
+
+        // Assertions
+        assertEquals(200, response.getStatus());
+        assertEquals(1, filter.availablePermits());
+    }
+
+    @Test
+    void testAsyncRequestKeepsItsSlotUntilComplete() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ZERO);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/stream");
+        request.setAsyncSupported(true);
+
+        // Execute: the handler starts async work and returns, like a stream or a DeferredResult
+        filter.doFilter(request, new MockHttpServletResponse(),
+                new MockFilterChain(new HttpServlet() {
+                }, (req, res, chain) -> req.startAsync()));
+
+        // Assertions: the slot is held while the async work runs, so the next request is turned away
+        assertEquals(0, filter.availablePermits());
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/users/1"), rejected, new MockFilterChain());
+        assertEquals(503, rejected.getStatus());
+
+        // Completing the async work frees the slot, and a second signal does not free it twice
+        AsyncContext asyncContext = request.getAsyncContext();
+        asyncContext.complete();
+        asyncContext.complete();
+        assertEquals(1, filter.availablePermits());
+    }
+}
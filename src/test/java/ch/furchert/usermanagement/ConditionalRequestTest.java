@@ -0,0 +1,127 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.dto.UserDto;
+import ch.furchert.usermanagement.dto.request.CreateUserRequest;
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.service.LastLoginRecorder;
+import ch.furchert.usermanagement.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConditionalRequestTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private LastLoginRecorder lastLoginRecorder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void testVersionDrivesETagAndIfMatch() throws Exception {
+        User user = createUser("etag_user");
+
+        // A fresh user has version 0
+        MvcResult first = mockMvc.perform(get("/users/{id}", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andReturn();
+        String lastModified = first.getResponse().getHeader("Last-Modified");
+
+        mockMvc.perform(get("/users/{id}", user.getId()).header("If-None-Match", "\"0\""))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/users/{id}", user.getId()).header("If-Modified-Since", lastModified))
+                .andExpect(status().isNotModified());
+
+        // Execute: an update with the current ETag bumps the version
+        mockMvc.perform(put("/users/{id}", user.getId())
+                        .header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update("etag_user2"))))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+
+        // Assertions: the stale ETag no longer validates, and a second writer holding it loses
+        mockMvc.perform(get("/users/{id}", user.getId()).header("If-None-Match", "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+        mockMvc.perform(put("/users/{id}", user.getId())
+                        .header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update("etag_user3"))))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string("ETag", "\"1\""));
+        assertEquals("etag_user2", userService.getUserById(user.getId()).getUsername());
+    }
+
+    @Test
+    void testLastLoginChangesETag() throws Exception {
+        User user = createUser("login_etag_user");
+
+        // Execute
+        lastLoginRecorder.record(user, System.currentTimeMillis());
+        lastLoginRecorder.flush();
+
+        // Assertions: lastLogin is part of the representation, so the version moves with it
+        mockMvc.perform(get("/users/{id}", user.getId()).header("If-None-Match", "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+        assertNotNull(userService.getUserById(user.getId()).getLastLogin());
+    }
+
+    @Test
+    void testPageETagChangesWhenAUserInThePageChanges() throws Exception {
+        User user = createUser("page_etag_user");
+        String after = String.valueOf(user.getId() - 1);
+
+        String eTag = mockMvc.perform(get("/users").param("after", after).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/users").param("after", after).param("limit", "1").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        // Execute
+        userService.updateUser(user.getId(), update("page_etag_user2"), null);
+
+        // Assertions
+        mockMvc.perform(get("/users").param("after", after).param("limit", "1").header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+    }
+
+    private User createUser(String username) {
+        CreateUserRequest request = new CreateUserRequest();
+        request.setUsername(username);
+        request.setEmail(username + "@example.com");
+        request.setPassword("password123");
+        return userService.createUser(request);
+    }
+
+    private static UserDto update(String username) {
+        return UserDto.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .role("USER")
+                .build();
+    }
+}
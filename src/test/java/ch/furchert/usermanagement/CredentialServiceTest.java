@@ -0,0 +1,225 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.cache.UserCache;
+import ch.furchert.usermanagement.config.LoginThrottleProperties;
+import ch.furchert.usermanagement.entity.Status;
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.exception.AccountNotActiveException;
+import ch.furchert.usermanagement.exception.InvalidCredentialsException;
+import ch.furchert.usermanagement.exception.LoginThrottledException;
+import ch.furchert.usermanagement.exception.UserNotFoundException;
+import ch.furchert.usermanagement.repository.UserRepository;
+import ch.furchert.usermanagement.security.SlidingWindowThrottle;
+import ch.furchert.usermanagement.service.CredentialService;
+import ch.furchert.usermanagement.service.LastLoginRecorder;
+import ch.furchert.usermanagement.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.aot.DisabledInAotMode;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisabledInAotMode // Mockito mocks cannot be created in a native image
+class CredentialServiceTest {
+
+    private UserService userService;
+    private UserRepository userRepository;
+    private PasswordEncoder passwordEncoder;
+    private LastLoginRecorder lastLoginRecorder;
+    private CredentialService credentialService;
+
+    @BeforeEach
+    void setUp() {
+        userService = mock(UserService.class);
+        userRepository = mock(UserRepository.class);
+        passwordEncoder = mock(PasswordEncoder.class);
+        lastLoginRecorder = mock(LastLoginRecorder.class);
+        LoginThrottleProperties properties = new LoginThrottleProperties(Duration.ofMinutes(15), 3, 50, 4, Duration.ofSeconds(5));
+        credentialService = new CredentialService(userService, userRepository, new UserCache(new NoOpCacheManager()),
+                passwordEncoder, lastLoginRecorder, properties);
+    }
+
+    @Test
+    void testVerify_ValidCredentials() {
+        // Existing user
+        User user = user(Status.ACTIVE);
+
+        // Mock behavior
+        when(userService.getUserByUsername("john")).thenReturn(user);
+        when(passwordEncoder.matches("password123", "hashed_password")).thenReturn(true);
+
+        // Execute
+        User result = credentialService.verify("john", "password123", "10.0.0.1");
+
+        // Assertions
+        assertSame(user, result);
+
+        // Verify interactions: last login queued, no rehash needed
+        verify(lastLoginRecorder, times(1)).record(eq(user), anyLong());
+        verify(userRepository, never()).updatePasswordHash(anyLong(), anyString());
+    }
+
+    @Test
+    void testVerify_LooksUpByEmail() {
+        // Mock behavior
+        when(userService.getUserByEmail("john@example.com")).thenReturn(user(Status.ACTIVE));
+        when(passwordEncoder.matches("password123", "hashed_password")).thenReturn(true);
+
+        // Execute
+        credentialService.verify("john@example.com", "password123", "10.0.0.1");
+
+        // Verify interactions
+        verify(userService, never()).getUserByUsername(anyString());
+    }
+
+    @Test
+    void testVerify_UnknownUserComparesAgainstDummyHash() {
+        // Mock behavior
+        when(userService.getUserByUsername("ghost")).thenThrow(new UserNotFoundException("username", "ghost"));
+        when(passwordEncoder.encode(anyString())).thenReturn("dummy_hash");
+
+        // Execute and assert exception
+        assertThrows(InvalidCredentialsException.class,
+                () -> credentialService.verify("ghost", "password123", "10.0.0.1"));
+
+        // Verify interactions: the same expensive comparison as for a real account
+        verify(passwordEncoder, times(1)).matches("password123", "dummy_hash");
+        verify(lastLoginRecorder, never()).record(any(), anyLong());
+    }
+
+    @Test
+    void testVerify_RehashesOutdatedHash() {
+        // Existing user
+        User user = user(Status.ACTIVE);
+
+        // Mock behavior: hash was produced with a lower cost than the current one
+        when(userService.getUserByUsername("john")).thenReturn(user);
+        when(passwordEncoder.matches("password123", "hashed_password")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("hashed_password")).thenReturn(true);
+        when(passwordEncoder.encode("password123")).thenReturn("stronger_hash");
+
+        // Execute
+        credentialService.verify("john", "password123", "10.0.0.1");
+
+        // Verify interactions
+        verify(userRepository, times(1)).updatePasswordHash(1L, "stronger_hash");
+    }
+
+    @Test
+    void testVerify_InactiveAccountIsRejectedAfterPasswordCheck() {
+        // Mock behavior
+        when(userService.getUserByUsername("john")).thenReturn(user(Status.BLOCKED));
+        when(passwordEncoder.matches("password123", "hashed_password")).thenReturn(true);
+
+        // Execute and assert exception
+        AccountNotActiveException exception = assertThrows(AccountNotActiveException.class,
+                () -> credentialService.verify("john", "password123", "10.0.0.1"));
+
+        assertEquals("Account is BLOCKED", exception.getMessage());
+        verify(lastLoginRecorder, never()).record(any(), anyLong());
+    }
+
+    @Test
+    void testVerify_ThrottlesAfterRepeatedFailures() {
+        // Mock behavior
+        when(userService.getUserByUsername("john")).thenReturn(user(Status.ACTIVE));
+        when(passwordEncoder.matches("wrong", "hashed_password")).thenReturn(false);
+
+        // Execute: three failures exhaust the per-account budget
+        for (int i = 0; i < 3; i++) {
+            assertThrows(InvalidCredentialsException.class,
+                    () -> credentialService.verify("john", "wrong", "10.0.0.1"));
+        }
+        LoginThrottledException exception = assertThrows(LoginThrottledException.class,
+                () -> credentialService.verify("john", "password123", "10.0.0.2"));
+
+        // Assertions: rejected before hashing
+        assertTrue(exception.getRetryAfter().compareTo(Duration.ZERO) > 0);
+        verify(passwordEncoder, times(3)).matches(anyString(), anyString());
+    }
+
+    @Test
+    void testVerify_UsernameAndEmailShareOneBudget() {
+        // Mock behavior
+        when(userService.getUserByUsername("john")).thenReturn(user(Status.ACTIVE));
+        when(userService.getUserByEmail("john@example.com")).thenReturn(user(Status.ACTIVE));
+        when(passwordEncoder.matches("wrong", "hashed_password")).thenReturn(false);
+
+        // Execute: the budget of three is used up through both identifiers
+        for (String login : new String[]{"john", "john@example.com", "john"}) {
+            assertThrows(InvalidCredentialsException.class,
+                    () -> credentialService.verify(login, "wrong", "10.0.0.1"));
+        }
+
+        // Assertions: neither identifier gets another attempt
+        assertThrows(LoginThrottledException.class,
+                () -> credentialService.verify("john@example.com", "wrong", "10.0.0.2"));
+        assertThrows(LoginThrottledException.class,
+                () -> credentialService.verify("john", "wrong", "10.0.0.3"));
+        verify(passwordEncoder, times(3)).matches(anyString(), anyString());
+    }
+
+    @Test
+    void testSlidingWindowThrottle_ReleasesKeyWhenOldestEventExpires() {
+        MutableClock clock = new MutableClock();
+        SlidingWindowThrottle throttle = new SlidingWindowThrottle(2, Duration.ofMinutes(1), 4, clock);
+
+        throttle.record("key");
+        clock.advance(Duration.ofSeconds(20));
+        throttle.record("key");
+
+        assertEquals(Duration.ofSeconds(40), throttle.retryAfter("key"));
+
+        clock.advance(Duration.ofSeconds(40));
+        assertEquals(Duration.ZERO, throttle.retryAfter("key"));
+
+        clock.advance(Duration.ofMinutes(1));
+        throttle.sweep();
+        assertEquals(0, throttle.trackedKeys());
+    }
+
+    private static User user(Status status) {
+        return User.builder()
+                .id(1L)
+                .username("john")
+                .email("john@example.com")
+                .passwordHash("hashed_password")
+                .status(status)
+                .build();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ch.furchert.usermanagement;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Points the datasource at a real PostgreSQL server that runs from a temp directory, without
+ * Docker, whenever {@code embedded-postgres.enabled=true} (set by the {@code test} profile).
+ * One server is shared by every Spring context in the JVM and stopped on exit; Flyway migrates it
+ * on first use like any other database.
+ */
+public class EmbeddedPostgresEnvironment implements EnvironmentPostProcessor, Ordered {
+
+    private static EmbeddedPostgres postgres;
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!environment.getProperty("embedded-postgres.enabled", Boolean.class, false)) {
+            return;
+        }
+        environment.getPropertySources().addFirst(new MapPropertySource("embeddedPostgres", Map.of(
+                "spring.datasource.url", server().getJdbcUrl("postgres", "postgres"),
+                "spring.datasource.username", "postgres",
+                "spring.datasource.password", "")));
+    }
+
+    @Override
+    public int getOrder() {
+        // After the config data (application-test.properties) has been loaded
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+    private static synchronized EmbeddedPostgres server() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not start embedded PostgreSQL", e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException ignored) {
+                    // The temp directory is cleaned up on the next start
+                }
+            }));
+        }
+        return postgres;
+    }
+}
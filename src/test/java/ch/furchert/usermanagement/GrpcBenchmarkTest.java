@@ -0,0 +1,119 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.grpc.GrpcServer;
+import ch.furchert.usermanagement.grpc.v1.GetUserRequest;
+import ch.furchert.usermanagement.grpc.v1.UserLookupGrpc;
+import ch.furchert.usermanagement.repository.UserRepository;
+import ch.furchert.usermanagement.service.UserService;
+import com.sun.management.OperatingSystemMXBean;
+import io.grpc.ManagedChannel;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Latency and CPU of one user lookup by id, as {@code GET /users/{id}} (HTTP/1.1 keep-alive, JSON)
+ * and as the {@code GetUser} RPC (HTTP/2, protobuf), one call at a time from a single client. The
+ * users are cached, so this is mostly the transport and encoding. CPU is the whole process,
+ * client and server, per call. Run with {@code mvn test -DexcludedGroups= -Dgroups=benchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class GrpcBenchmarkTest {
+
+    private static final int USERS = 100;
+    private static final int WARMUP_CALLS = 5_000;
+    private static final int CALLS = 20_000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private GrpcServer grpcServer;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final OperatingSystemMXBean os = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void compareGrpcWithRest() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = userService.createUser(UserImportServiceTest.request("bench" + i, "bench" + i + "@example.com"));
+            ids.add(user.getId());
+        }
+        ManagedChannel channel = NettyChannelBuilder.forAddress("localhost", grpcServer.getPort()).usePlaintext().build();
+        UserLookupGrpc.UserLookupBlockingStub users = UserLookupGrpc.newBlockingStub(channel);
+
+        try {
+            Call rest = id -> {
+                HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users/" + id)).build();
+                assertEquals(200, client.send(request, HttpResponse.BodyHandlers.ofByteArray()).statusCode());
+            };
+            Call grpc = id -> users.withDeadlineAfter(5, TimeUnit.SECONDS)
+                    .getUser(GetUserRequest.newBuilder().setId(id).build());
+
+            measure(ids, rest, WARMUP_CALLS);
+            measure(ids, grpc, WARMUP_CALLS);
+            Result restResult = measure(ids, rest, CALLS);
+            Result grpcResult = measure(ids, grpc, CALLS);
+
+            System.out.printf("GET /users/{id}: p50 %.0f µs, p99 %.0f µs, CPU %.0f µs/call%n",
+                    restResult.p50Micros(), restResult.p99Micros(), restResult.cpuMicrosPerCall());
+            System.out.printf("GetUser RPC:     p50 %.0f µs, p99 %.0f µs, CPU %.0f µs/call%n",
+                    grpcResult.p50Micros(), grpcResult.p99Micros(), grpcResult.cpuMicrosPerCall());
+        } finally {
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private Result measure(List<Long> ids, Call call, int calls) throws Exception {
+        long[] nanos = new long[calls];
+        long cpuStart = os.getProcessCpuTime();
+        for (int i = 0; i < calls; i++) {
+            long start = System.nanoTime();
+            call.run(ids.get(i % ids.size()));
+            nanos[i] = System.nanoTime() - start;
+        }
+        long cpu = os.getProcessCpuTime() - cpuStart;
+        Arrays.sort(nanos);
+        return new Result(nanos[calls / 2] / 1e3, nanos[calls * 99 / 100] / 1e3, cpu / 1e3 / calls);
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        void run(long id) throws Exception;
+    }
+
+    private record Result(double p50Micros, double p99Micros, double cpuMicrosPerCall) {
+    }
+}
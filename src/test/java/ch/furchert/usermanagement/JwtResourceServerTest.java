@@ -0,0 +1,216 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.config.IssuerReadinessFilter;
+import ch.furchert.usermanagement.config.JwtProperties;
+import ch.furchert.usermanagement.repository.UserRepository;
+import ch.furchert.usermanagement.security.CachingJwtDecoder;
+import ch.furchert.usermanagement.security.IssuerJwtDecoder;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Bearer token validation with {@code security.jwt.required=true}, against a stand-in issuer on a
+ * local port that serves OpenID Connect metadata and a key set.
+ */
+@SpringBootTest(properties = "security.jwt.required=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class JwtResourceServerTest {
+
+    private static final RSAKey SIGNING_KEY = generateKey("issuer-key");
+    private static final AtomicInteger KEY_SET_REQUESTS = new AtomicInteger();
+    private static final HttpServer ISSUER = startIssuer();
+    private static final String ISSUER_URI = "http://localhost:" + ISSUER.getAddress().getPort();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CachingJwtDecoder jwtDecoder;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @DynamicPropertySource
+    static void issuer(DynamicPropertyRegistry registry) {
+        registry.add("spring.security.oauth2.resourceserver.jwt.issuer-uri", () -> ISSUER_URI);
+    }
+
+    @AfterAll
+    static void stopIssuer() {
+        ISSUER.stop(0);
+    }
+
+    @BeforeEach
+    void awaitKeys() throws InterruptedException {
+        for (int i = 0; i < 100 && !jwtDecoder.isReady(); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(jwtDecoder.isReady());
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testUserEndpointsRequireValidToken() throws Exception {
+        String valid = token(SIGNING_KEY, ISSUER_URI, Instant.now().plusSeconds(300));
+
+        // Execute and Assertions
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/users").header(HttpHeaders.AUTHORIZATION, "Bearer " + valid))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users").header(HttpHeaders.AUTHORIZATION,
+                        "Bearer " + token(generateKey("issuer-key"), ISSUER_URI, Instant.now().plusSeconds(300))))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/users").header(HttpHeaders.AUTHORIZATION,
+                        "Bearer " + token(SIGNING_KEY, "http://other-issuer", Instant.now().plusSeconds(300))))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/users").header(HttpHeaders.AUTHORIZATION,
+                        "Bearer " + token(SIGNING_KEY, ISSUER_URI, Instant.now().minusSeconds(300))))
+                .andExpect(status().isUnauthorized());
+
+        // Signup and availability are used before there is a token
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"jwt_user\",\"email\":\"jwt_user@example.com\",\"password\":\"password123\"}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/users/availability").param("username", "jwt_user"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testValidatedTokensAndKeysAreReused() {
+        String token = token(SIGNING_KEY, ISSUER_URI, Instant.now().plusSeconds(300));
+        int keySetRequests = KEY_SET_REQUESTS.get();
+
+        // Execute
+        var first = jwtDecoder.decode(token);
+        var second = jwtDecoder.decode(token);
+        jwtDecoder.decode(token(SIGNING_KEY, ISSUER_URI, Instant.now().plusSeconds(600)));
+
+        // Assertions: the second decode is a cache hit, and no request fetched the keys again
+        assertSame(first, second);
+        assertEquals("jwt-subject", first.getSubject());
+        assertEquals(keySetRequests, KEY_SET_REQUESTS.get());
+    }
+
+    @Test
+    void testBearerRequestsWaitForUnreachableIssuer() throws Exception {
+        JwtProperties properties = new JwtProperties(true, Duration.ofMinutes(5), Duration.ofMinutes(1),
+                Duration.ofMinutes(1), Duration.ofMillis(200), 100);
+        IssuerJwtDecoder unreachable = new IssuerJwtDecoder("http://localhost:1", null, List.of("RS256"), properties);
+        IssuerReadinessFilter filter = new IssuerReadinessFilter(unreachable::isReady, properties.discoveryRetry());
+
+        // Execute
+        unreachable.start();
+        MockHttpServletRequest withToken = new MockHttpServletRequest("GET", "/users");
+        withToken.addHeader(HttpHeaders.AUTHORIZATION, "Bearer some-token");
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(withToken, rejected, new MockFilterChain());
+        MockHttpServletResponse passed = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/users"), passed, new MockFilterChain());
+
+        // Assertions
+        assertFalse(unreachable.isReady());
+        assertThrows(JwtException.class, () -> unreachable.decode("some-token"));
+        assertEquals(503, rejected.getStatus());
+        assertEquals("60", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(200, passed.getStatus());
+        unreachable.close();
+    }
+
+    private static String token(RSAKey key, String issuer, Instant expiresAt) {
+        try {
+            SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(),
+                    new JWTClaimsSet.Builder()
+                            .issuer(issuer)
+                            .subject("jwt-subject")
+                            .issueTime(Date.from(expiresAt.minusSeconds(600)))
+                            .expirationTime(Date.from(expiresAt))
+                            .build());
+            jwt.sign(new RSASSASigner(key));
+            return jwt.serialize();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static RSAKey generateKey(String keyId) {
+        try {
+            return new RSAKeyGenerator(2048).keyID(keyId).generate();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static HttpServer startIssuer() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            String issuer = "http://localhost:" + server.getAddress().getPort();
+            server.createContext("/.well-known/openid-configuration", exchange -> respond(exchange,
+                    "{\"issuer\":\"" + issuer + "\",\"jwks_uri\":\"" + issuer + "/jwks\"}"));
+            server.createContext("/jwks", exchange -> {
+                KEY_SET_REQUESTS.incrementAndGet();
+                respond(exchange, new JWKSet(SIGNING_KEY.toPublicJWK()).toString());
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
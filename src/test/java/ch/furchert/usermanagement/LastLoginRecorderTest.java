@@ -0,0 +1,53 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.entity.Role;
+import ch.furchert.usermanagement.entity.Status;
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.repository.UserRepository;
+import ch.furchert.usermanagement.service.LastLoginRecorder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class LastLoginRecorderTest {
+
+    @Autowired
+    private LastLoginRecorder lastLoginRecorder;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testFlush_CoalescesLoginsPerUser() {
+        // Existing user
+        User user = userRepository.save(User.builder()
+                .username("john")
+                .email("john@example.com")
+                .passwordHash("hash")
+                .role(Role.USER)
+                .status(Status.ACTIVE)
+                .build());
+
+        // Execute: a burst of logins for the same user, out of order
+        lastLoginRecorder.record(user, 2_000_000L);
+        lastLoginRecorder.record(user, 3_000_000L);
+        lastLoginRecorder.record(user, 1_000_000L);
+        assertEquals(1, lastLoginRecorder.pendingCount());
+        lastLoginRecorder.flush();
+
+        // Assertions: the latest login was written
+        assertEquals(0, lastLoginRecorder.pendingCount());
+        assertEquals(3_000_000L, userRepository.findById(user.getId()).orElseThrow().getLastLogin().getTime());
+    }
+}
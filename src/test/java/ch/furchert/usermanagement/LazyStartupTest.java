@@ -0,0 +1,43 @@
+package ch.furchert.usermanagement;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@code startup.lazy-init=true} defers springdoc, the default of {@code startup.lazy-packages}, to
+ * its first request, while scheduled and event-driven application beans are still created at startup.
+ */
+@SpringBootTest(properties = "startup.lazy-init=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class LazyStartupTest {
+
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void testSpringdocIsCreatedOnFirstUseAndApplicationBeansStayEager() throws Exception {
+        // Assertions
+        assertTrue(beanFactory.getBeanDefinition("openApiResource").isLazyInit());
+        assertFalse(beanFactory.containsSingleton("openApiResource"));
+        assertFalse(beanFactory.getBeanDefinition("userChangePublisher").isLazyInit());
+        assertFalse(beanFactory.getBeanDefinition("userExistenceIndex").isLazyInit());
+
+        // Execute: the first request for the API docs creates them
+        mockMvc.perform(get("/api-docs"))
+                .andExpect(status().isOk());
+        assertTrue(beanFactory.containsSingleton("openApiResource"));
+    }
+}
@@ -0,0 +1,88 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.mail.MailDispatcher;
+import ch.furchert.usermanagement.mail.MailTemplates;
+import ch.furchert.usermanagement.repository.MailQueueRepository;
+import ch.furchert.usermanagement.service.AccountMailService;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Mails per second through the dispatcher, which sends a batch over one reused SMTP connection,
+ * against {@code JavaMailSender.send} per mail, which connects for every message. Unthrottled,
+ * against a local GreenMail server. Run with {@code mvn test -DexcludedGroups= -Dgroups=benchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.mail.host=localhost",
+        "spring.mail.port=3025",
+        "mail-queue.dispatcher-enabled=false",
+        "mail-queue.max-per-second=0",
+        "mail-queue.batch-size=100"})
+@ActiveProfiles("test")
+class MailThroughputBenchmarkTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private static final int MAILS = 2_000;
+
+    @Autowired
+    private MailDispatcher mailDispatcher;
+
+    @Autowired
+    private MailQueueRepository mailQueue;
+
+    @Autowired
+    private MailTemplates mailTemplates;
+
+    @Autowired
+    private JavaMailSenderImpl mailSender;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void compareDispatcherWithConnectionPerMail() throws Exception {
+        jdbcTemplate.update("delete from mail_queue");
+        Map<String, String> model = Map.of("username", "bench", "validity", "1 hour", "link", "http://localhost/verify?token=x");
+        for (int i = 0; i < MAILS; i++) {
+            mailQueue.enqueue("bench" + i + "@example.com", AccountMailService.VERIFY_EMAIL_TEMPLATE, model, Instant.now());
+        }
+        long start = System.nanoTime();
+        assertEquals(MAILS, mailDispatcher.drain());
+        long dispatcherNanos = System.nanoTime() - start;
+
+        MailTemplates.RenderedMail rendered = mailTemplates.render(AccountMailService.VERIFY_EMAIL_TEMPLATE, model);
+        start = System.nanoTime();
+        for (int i = 0; i < MAILS; i++) {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+            helper.setFrom("no-reply@localhost");
+            helper.setTo("single" + i + "@example.com");
+            helper.setSubject(rendered.subject());
+            helper.setText(rendered.body());
+            mailSender.send(message);
+        }
+        long perMailNanos = System.nanoTime() - start;
+
+        assertEquals(2 * MAILS, greenMail.getReceivedMessages().length);
+        System.out.printf("connection per mail: %,.0f mails/s%ndispatcher:          %,.0f mails/s%n",
+                MAILS / (perMailNanos / 1e9), MAILS / (dispatcherNanos / 1e9));
+    }
+}
@@ -0,0 +1,38 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.config.NativeConfig;
+import ch.furchert.usermanagement.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NativeHintsTest {
+
+    private static final Pattern SELECT_NEW = Pattern.compile("select new ([\\w.]+)\\(");
+
+    @Test
+    void testProjectionsAndMailTemplatesAreRegistered() throws Exception {
+        RuntimeHints hints = new RuntimeHints();
+
+        // Execute
+        new NativeConfig.Hints().registerHints(hints, getClass().getClassLoader());
+
+        // Assertions: every "select new" target can be constructed in the native image
+        for (String query : Stream.of(UserRepository.SELECT_VIEW, UserRepository.SELECT_VERSION).toList()) {
+            Matcher matcher = SELECT_NEW.matcher(query);
+            assertTrue(matcher.find(), query);
+            Class<?> projection = Class.forName(matcher.group(1));
+            assertTrue(RuntimeHintsPredicates.reflection().onType(projection)
+                    .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS).test(hints), projection.getName());
+        }
+        assertTrue(RuntimeHintsPredicates.resource().forResource("mail/verify-email.txt").test(hints));
+        assertTrue(RuntimeHintsPredicates.resource().forResource("mail/password-reset.txt").test(hints));
+    }
+}
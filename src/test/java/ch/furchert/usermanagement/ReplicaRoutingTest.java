@@ -0,0 +1,200 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.config.ReplicaRoutingDataSource;
+import ch.furchert.usermanagement.dto.UserView;
+import ch.furchert.usermanagement.dto.request.CreateUserRequest;
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.repository.UserRepository;
+import ch.furchert.usermanagement.service.UserImportService;
+import ch.furchert.usermanagement.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Read-only transactions against two local PostgreSQL servers standing in for replicas. They are
+ * not streaming from the primary: each holds its own marker user, and the replayed WAL position
+ * is read from a table the tests set, so lag can be simulated.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext
+class ReplicaRoutingTest {
+
+    private static final long MARKER_ID = 1_000_001L;
+    private static final String CAUGHT_UP = "7FFFFFFF/FFFFFFFF";
+    private static final String LAGGING = "0/0";
+
+    private static final List<EmbeddedPostgres> REPLICAS = List.of(startReplica(1), startReplica(2));
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void replicas(DynamicPropertyRegistry registry) {
+        registry.add("replicas.urls", () -> REPLICAS.stream()
+                .map(replica -> replica.getJdbcUrl("postgres", "postgres"))
+                .collect(Collectors.joining(",")));
+        registry.add("replicas.username", () -> "postgres");
+        registry.add("replicas.password", () -> "");
+        registry.add("replicas.position-query", () -> "select lsn from replica_position");
+        // The tests run the checks themselves
+        registry.add("replicas.check-interval", () -> "1h");
+        registry.add("replicas.sticky-window", () -> "1m");
+    }
+
+    @AfterAll
+    static void stopReplicas() throws IOException {
+        for (EmbeddedPostgres replica : REPLICAS) {
+            replica.close();
+        }
+    }
+
+    @BeforeEach
+    void catchUp() {
+        setPosition(0, CAUGHT_UP);
+        setPosition(1, CAUGHT_UP);
+        checkTwice();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testReadOnlyTransactionsAlternateBetweenReplicas() {
+        double replicaReads = reads("replica-1") + reads("replica-2");
+
+        // Execute
+        Set<String> servedBy = IntStream.range(0, 4)
+                .mapToObj(i -> userRepository.findViewById(MARKER_ID).map(UserView::username).orElseThrow())
+                .collect(Collectors.toSet());
+
+        // Assertions: both replicas answered, the primary does not have the marker at all
+        assertEquals(Set.of("on_replica_1", "on_replica_2"), servedBy);
+        assertEquals(List.of("replica-1", "replica-2"), routing().availableReplicas());
+        assertEquals(replicaReads + 4, reads("replica-1") + reads("replica-2"));
+        assertNotNull(meterRegistry.find("hikaricp.connections").tag("pool", "replica-1").gauge());
+        assertNotNull(meterRegistry.find("hikaricp.connections").tag("pool", "primary").gauge());
+        assertEquals(1.0, meterRegistry.get("db.replica.available").tag("replica", "replica-2").gauge().value());
+        assertFalse(ReplicaRoutingDataSource.onPrimary(() -> userRepository.findViewById(MARKER_ID)).isPresent());
+    }
+
+    @Test
+    void testWriterReadsItsOwnChange() {
+        CreateUserRequest request = new CreateUserRequest();
+        request.setUsername("replica_writer");
+        request.setEmail("replica_writer@example.com");
+        request.setPassword("password123");
+
+        // Execute
+        User created = userService.createUser(request);
+        Long imported = userImportService.importUsers(List.of(
+                UserImportServiceTest.request("replica_import", "replica_import@example.com"))).get(0).getId();
+
+        // Assertions: the write went to the primary, and lookups of the new user follow it there
+        // although the replicas never see it
+        assertEquals("replica_writer", userService.getUserView(created.getId()).username());
+        assertEquals(created.getVersion(), userService.getUserVersion(created.getId()).version());
+        assertEquals(Optional.empty(), userRepository.findViewById(created.getId()));
+        assertEquals("replica_import", userService.getUserView(imported).username());
+        assertEquals("replica_import", userService.getUserViewByEmail("replica_import@example.com").username());
+    }
+
+    @Test
+    void testLaggingReplicasAreSkipped() {
+        setPosition(1, LAGGING);
+        checkTwice();
+
+        // Execute
+        List<String> oneLagging = IntStream.range(0, 4)
+                .mapToObj(i -> userRepository.findViewById(MARKER_ID).map(UserView::username).orElseThrow())
+                .toList();
+        setPosition(0, LAGGING);
+        checkTwice();
+        double primaryReads = reads("primary");
+        Optional<UserView> bothLagging = userRepository.findViewById(MARKER_ID);
+
+        // Assertions
+        assertEquals(List.of("on_replica_1", "on_replica_1", "on_replica_1", "on_replica_1"), oneLagging);
+        assertEquals(List.of(), routing().availableReplicas());
+        assertEquals(Optional.empty(), bothLagging);
+        assertEquals(primaryReads + 1, reads("primary"));
+        assertTrue(meterRegistry.get("db.replica.lag").tag("replica", "replica-1").gauge().value() > 0);
+    }
+
+    private ReplicaRoutingDataSource routing() {
+        return (ReplicaRoutingDataSource) dataSource;
+    }
+
+    // The first check records the primary's position, the second compares the replicas with it
+    private void checkTwice() {
+        routing().check();
+        routing().check();
+    }
+
+    private double reads(String target) {
+        return meterRegistry.get("db.replica.reads").tag("target", target).counter().count();
+    }
+
+    private static void setPosition(int replica, String lsn) {
+        new JdbcTemplate(REPLICAS.get(replica).getPostgresDatabase())
+                .update("update replica_position set lsn = ?::pg_lsn", lsn);
+    }
+
+    private static EmbeddedPostgres startReplica(int number) {
+        try {
+            EmbeddedPostgres replica = EmbeddedPostgres.start();
+            Flyway.configure()
+                    .dataSource(replica.getPostgresDatabase())
+                    .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                    .load()
+                    .migrate();
+            JdbcTemplate jdbc = new JdbcTemplate(replica.getPostgresDatabase());
+            jdbc.execute("create table replica_position (lsn pg_lsn not null)");
+            jdbc.update("insert into replica_position values (?::pg_lsn)", CAUGHT_UP);
+            jdbc.update("""
+                    insert into user_account (id, username, email, password_hash, role, user_status, created, updated)
+                    values (?, ?, ?, 'hash', 'USER', 'ACTIVE', now(), now())""",
+                    MARKER_ID, "on_replica_" + number, "on_replica_" + number + "@example.com");
+            return replica;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
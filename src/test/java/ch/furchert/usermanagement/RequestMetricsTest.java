@@ -0,0 +1,43 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.metrics.JdbcStatementCountFilter;
+import ch.furchert.usermanagement.metrics.UserServiceMetrics;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RequestMetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void testGetUser_RecordsServiceTimerAndStatementCount() throws Exception {
+        // Execute
+        mockMvc.perform(get("/users/{id}", 987654L))
+                .andExpect(status().isNotFound());
+
+        // Assertions: the service call is timed as not_found and its query counted under the route
+        assertEquals(1, meterRegistry.get(UserServiceMetrics.TIMER)
+                .tags("method", "getUserView", "outcome", "not_found").timer().count());
+        DistributionSummary statements = meterRegistry.get(JdbcStatementCountFilter.METRIC)
+                .tag("uri", "/users/{id}").summary();
+        assertEquals(1, statements.count());
+        assertEquals(1, statements.totalAmount());
+    }
+}
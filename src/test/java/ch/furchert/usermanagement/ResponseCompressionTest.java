@@ -0,0 +1,115 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.dto.request.CreateUserRequest;
+import ch.furchert.usermanagement.repository.UserRepository;
+import ch.furchert.usermanagement.service.UserImportService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Formats and compression as a client sees them, through Tomcat: listings are gzipped when the
+ * client accepts it, whatever the format, and decode to the same users.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class ResponseCompressionTest {
+
+    private static final int USERS = 100;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() {
+        List<CreateUserRequest> requests = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            requests.add(UserImportServiceTest.request("gzip" + i, "gzip" + i + "@example.com"));
+        }
+        userImportService.importUsers(requests);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testPagesAreCompressedInEveryFormat() throws Exception {
+        // Execute
+        HttpResponse<byte[]> json = get("/users", "application/json", "gzip");
+        HttpResponse<byte[]> cbor = get("/users", "application/cbor", "gzip");
+        HttpResponse<byte[]> smile = get("/users", "application/x-jackson-smile", "gzip");
+        HttpResponse<byte[]> plain = get("/users", "application/cbor", "identity");
+
+        // Assertions
+        for (HttpResponse<byte[]> response : List.of(json, cbor, smile)) {
+            assertEquals(200, response.statusCode());
+            assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+        }
+        assertTrue(plain.headers().firstValue("Content-Encoding").isEmpty());
+        assertArrayEquals(plain.body(), gunzip(cbor.body()));
+
+        JsonNode page = new CBORMapper().readTree(plain.body());
+        assertEquals(USERS, page.size());
+        assertEquals(page, new CBORMapper().readTree(gunzip(cbor.body())));
+        assertEquals(USERS, new SmileMapper().readTree(gunzip(smile.body())).size());
+        assertTrue(cbor.body().length < json.body().length);
+    }
+
+    @Test
+    void testStreamIsCompressed() throws Exception {
+        // Execute
+        HttpResponse<byte[]> response = get("/users/stream", "application/x-jackson-smile", "gzip");
+
+        // Assertions
+        assertEquals(200, response.statusCode());
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+        try (MappingIterator<JsonNode> users = new SmileMapper().readerFor(JsonNode.class)
+                .readValues(gunzip(response.body()))) {
+            assertEquals(USERS, users.readAll().size());
+        }
+    }
+
+    private HttpResponse<byte[]> get(String path, String accept, String acceptEncoding) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept", accept)
+                .header("Accept-Encoding", acceptEncoding)
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static byte[] gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package ch.furchert.usermanagement;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationState;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SchemaMigrationTest {
+
+    private static final List<String> SEARCH_INDEXES = List.of(
+            "idx_user_account_status_id",
+            "idx_user_account_role_id",
+            "idx_user_account_last_login",
+            "idx_user_account_created",
+            "idx_user_account_lower_username",
+            "idx_user_account_lower_email");
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testMigrate_AppliesAllVersionsAndBuildsValidIndexes() {
+        // Assertions: every migration succeeded (the context only starts if Hibernate validated the schema)
+        MigrationInfo[] applied = flyway.info().applied();
+        assertEquals("1", applied[0].getVersion().getVersion());
+        assertEquals(0, flyway.info().pending().length);
+        assertTrue(Arrays.stream(applied).allMatch(info -> info.getState() == MigrationState.SUCCESS));
+        assertEquals(SEARCH_INDEXES, validIndexes(jdbcTemplate));
+    }
+
+    @Test
+    void testMigrate_BaselinesSchemaCreatedByHibernate() {
+        // A database as left behind by ddl-auto=update at the baseline: an IDENTITY id and no user_account_seq
+        jdbcTemplate.execute("drop database if exists legacy");
+        jdbcTemplate.execute("create database legacy");
+        String url = jdbcTemplate.execute((java.sql.Connection connection) -> connection.getMetaData().getURL())
+                .replaceFirst("/postgres\\?", "/legacy?");
+        SingleConnectionDataSource legacy = new SingleConnectionDataSource(url, "postgres", "", true);
+        try {
+            JdbcTemplate legacyJdbc = new JdbcTemplate(legacy);
+            legacyJdbc.execute("""
+                    create table user_account (id bigint generated by default as identity primary key, username varchar(20) not null unique,
+                        email varchar(255) not null unique, password_hash varchar(255) not null,
+                        role varchar(255) not null, user_status varchar(255), created timestamp(6) not null,
+                        updated timestamp(6) not null, last_login timestamp(6))""");
+            legacyJdbc.execute("""
+                    insert into user_account (username, email, password_hash, role, user_status, created, updated)
+                    values ('legacy', 'legacy@example.com', 'hash', 'USER', 'ACTIVE', now(), now())""");
+            legacyJdbc.execute("""
+                    insert into user_account (id, username, email, password_hash, role, user_status, created, updated)
+                    values (120, 'legacy2', 'legacy2@example.com', 'hash', 'USER', 'ACTIVE', now(), now())""");
+
+            // Execute
+            Flyway.configure()
+                    .dataSource(legacy)
+                    .baselineOnMigrate(true)
+                    .baselineVersion("1")
+                    .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                    .load()
+                    .migrate();
+
+            // Assertions: V1 is skipped, the indexes are added, the identity is gone and new ids start past the existing rows
+            assertEquals(SEARCH_INDEXES, validIndexes(legacyJdbc));
+            assertEquals("NO", legacyJdbc.queryForObject(
+                    "select is_identity from information_schema.columns where table_name = 'user_account' and column_name = 'id'",
+                    String.class));
+            long next = legacyJdbc.queryForObject("select nextval('user_account_seq')", Long.class);
+            assertTrue(next - 49 > 120, "pooled id range starting at " + (next - 49) + " overlaps existing ids");
+        } finally {
+            legacy.destroy();
+            jdbcTemplate.execute("drop database legacy");
+        }
+    }
+
+    private static List<String> validIndexes(JdbcTemplate jdbc) {
+        return jdbc.queryForList("""
+                select c.relname from pg_index i join pg_class c on c.oid = i.indexrelid
+                where i.indrelid = 'user_account'::regclass and i.indisvalid and c.relname like 'idx_%'
+                order by c.oid""", String.class);
+    }
+}
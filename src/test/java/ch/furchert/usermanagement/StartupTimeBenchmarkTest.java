@@ -0,0 +1,55 @@
+package ch.furchert.usermanagement;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Application start to ready, against an already migrated database as on every normal restart:
+ * Flyway checking its history plus Hibernate validating, versus Hibernate's {@code ddl-auto=update}
+ * introspecting the schema. Run with {@code mvn test -DexcludedGroups= -Dgroups=benchmark}.
+ */
+@Tag("benchmark")
+class StartupTimeBenchmarkTest {
+
+    private static final int WARMUP = 2;
+    private static final int RUNS = 7;
+
+    @Test
+    void compareSchemaManagementStartup() {
+        // Migrate once so both variants see the same, complete schema
+        start().close();
+
+        long flyway = medianStartupMillis();
+        long update = medianStartupMillis("spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=update");
+
+        System.out.printf("Startup (median of %d): flyway + validate %d ms, ddl-auto=update %d ms%n", RUNS, flyway, update);
+    }
+
+    private static long medianStartupMillis(String... properties) {
+        List<Long> timings = new ArrayList<>();
+        for (int i = 0; i < WARMUP + RUNS; i++) {
+            long start = System.nanoTime();
+            try (ConfigurableApplicationContext ignored = start(properties)) {
+                if (i >= WARMUP) {
+                    timings.add((System.nanoTime() - start) / 1_000_000);
+                }
+            }
+        }
+        Collections.sort(timings);
+        return timings.get(timings.size() / 2);
+    }
+
+    private static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(UserManagementServiceApplication.class)
+                .profiles("test")
+                .properties("server.port=0", "logging.level.root=WARN")
+                .properties(properties)
+                .run();
+    }
+}
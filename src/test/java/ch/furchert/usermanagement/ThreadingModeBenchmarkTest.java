@@ -0,0 +1,127 @@
+package ch.furchert.usermanagement;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Same mixed workload (90% reads by id, 10% signups) against platform and virtual request threads.
+ * Tomcat is held at 20 threads so the platform run is thread-bound as in production under load.
+ * Run with {@code mvn test -DexcludedGroups= -Dgroups=benchmark}.
+ */
+@Tag("benchmark")
+class ThreadingModeBenchmarkTest {
+
+    private static final int CLIENTS = 200;
+    private static final int REQUESTS_PER_CLIENT = 50;
+    private static final int SEEDED_USERS = 100;
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+            properties = {"spring.threads.virtual.enabled=false", "server.tomcat.threads.max=20"})
+    @ActiveProfiles("test")
+    class PlatformThreads extends Workload {
+        @Test
+        void mixedReadSignupTraffic() throws Exception {
+            run("platform");
+        }
+    }
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+            properties = {"spring.threads.virtual.enabled=true", "server.tomcat.threads.max=20"})
+    @ActiveProfiles("test")
+    class VirtualThreads extends Workload {
+        @Test
+        void mixedReadSignupTraffic() throws Exception {
+            run("virtual");
+        }
+    }
+
+    abstract static class Workload {
+
+        private static final AtomicInteger SIGNUPS = new AtomicInteger();
+
+        @LocalServerPort
+        private int port;
+
+        private final HttpClient client = HttpClient.newHttpClient();
+
+        void run(String mode) throws Exception {
+            for (int i = 0; i < SEEDED_USERS; i++) {
+                assertEquals(201, send(signup(mode + "-seed" + i)).statusCode());
+            }
+
+            List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+            AtomicInteger rejected = new AtomicInteger();
+            ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                futures.add(clients.submit(() -> {
+                    for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                        HttpRequest request = ThreadLocalRandom.current().nextInt(10) == 0
+                                ? signup(mode + "-u" + SIGNUPS.incrementAndGet())
+                                : HttpRequest.newBuilder(uri("/users/by-username/" + mode + "-seed"
+                                + ThreadLocalRandom.current().nextInt(SEEDED_USERS))).build();
+                        long sent = System.nanoTime();
+                        if (send(request).statusCode() == 503) {
+                            rejected.incrementAndGet();
+                        }
+                        latencies.add(System.nanoTime() - sent);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - start;
+            clients.close();
+
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            System.out.printf("%s threads: %,.0f req/s, p50 %.1f ms, p99 %.1f ms, %d rejected%n", mode,
+                    sorted.size() / (elapsed / 1e9),
+                    sorted.get(sorted.size() / 2) / 1e6,
+                    sorted.get((int) (sorted.size() * 0.99)) / 1e6,
+                    rejected.get());
+        }
+
+        private HttpRequest signup(String username) {
+            String body = """
+                    {"username":"%s","email":"%s@example.com","password":"password123"}"""
+                    .formatted(username, username);
+            return HttpRequest.newBuilder(uri("/users"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+
+        private HttpResponse<String> send(HttpRequest request) throws Exception {
+            return client.send(request, HttpResponse.BodyHandlers.ofString());
+        }
+
+        private URI uri(String path) {
+            return URI.create("http://localhost:" + port + path);
+        }
+    }
+}
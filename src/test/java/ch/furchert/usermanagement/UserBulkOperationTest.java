@@ -0,0 +1,123 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.dto.request.UserSearchCriteria;
+import ch.furchert.usermanagement.entity.Role;
+import ch.furchert.usermanagement.entity.Status;
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.repository.UserRepository;
+import ch.furchert.usermanagement.service.UserBulkService;
+import ch.furchert.usermanagement.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs with a chunk size of 2, so every operation here spans several chunks and transactions.
+ */
+@SpringBootTest(properties = "user-bulk.chunk-size=2")
+@ActiveProfiles("test")
+class UserBulkOperationTest {
+
+    @Autowired
+    private UserBulkService userBulkService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testChangeStatusByIdsSkipsUnchangedAndEvictsCache() {
+        List<User> users = createUsers("ids_site", 5);
+        users.get(4).setStatus(Status.BLOCKED);
+        userRepository.save(users.get(4));
+        // Cached before the bulk change
+        assertEquals(Status.ACTIVE, userService.getUserView(users.getFirst().getId()).status());
+        long version = userRepository.findById(users.getFirst().getId()).orElseThrow().getVersion();
+
+        // Execute
+        List<Long> ids = new ArrayList<>(users.stream().map(User::getId).toList());
+        ids.add(-1L);
+        ids.add(users.getFirst().getId());
+        int affected = userBulkService.changeStatus(ids, Status.BLOCKED);
+
+        // Assertions
+        assertEquals(4, affected);
+        assertEquals(Status.BLOCKED, userService.getUserView(users.getFirst().getId()).status());
+        assertEquals(version + 1, userRepository.findById(users.getFirst().getId()).orElseThrow().getVersion());
+        assertEquals(4, changes("UPDATED", users));
+    }
+
+    @Test
+    void testChangeStatusByFilterOnlyTouchesMatchingUsers() {
+        List<User> site = createUsers("old_site", 5);
+        List<User> others = createUsers("new_site", 2);
+        UserSearchCriteria filter = new UserSearchCriteria();
+        filter.setUsernamePrefix("old_site");
+        filter.setStatus(Status.ACTIVE);
+
+        // Execute
+        int affected = userBulkService.changeStatus(filter, Status.INACTIVE);
+
+        // Assertions
+        assertEquals(5, affected);
+        site.forEach(user -> assertEquals(Status.INACTIVE, userRepository.findById(user.getId()).orElseThrow().getStatus()));
+        others.forEach(user -> assertEquals(Status.ACTIVE, userRepository.findById(user.getId()).orElseThrow().getStatus()));
+        assertEquals(0, userBulkService.changeStatus(filter, Status.INACTIVE));
+    }
+
+    @Test
+    void testDeleteByFilterAndByIds() {
+        List<User> site = createUsers("gone_site", 5);
+        List<User> others = createUsers("kept_site", 3);
+        UserSearchCriteria filter = new UserSearchCriteria();
+        filter.setUsernamePrefix("gone_site");
+
+        // Execute
+        int byFilter = userBulkService.delete(filter);
+        int byIds = userBulkService.delete(List.of(others.get(0).getId(), others.get(1).getId(), site.getFirst().getId()));
+
+        // Assertions
+        assertEquals(5, byFilter);
+        assertEquals(2, byIds);
+        assertEquals(List.of(others.get(2).getId()), userRepository.findAll().stream().map(User::getId).toList());
+        assertEquals(5, changes("DELETED", site));
+        assertEquals(2, changes("DELETED", others));
+    }
+
+    private List<User> createUsers(String prefix, int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(User.builder()
+                    .username(prefix + i)
+                    .email(prefix + i + "@example.com")
+                    .passwordHash("hash")
+                    .role(Role.USER)
+                    .status(Status.ACTIVE)
+                    .build());
+        }
+        return userRepository.saveAll(users);
+    }
+
+    private int changes(String type, List<User> users) {
+        return jdbcTemplate.queryForObject("select count(*) from user_change where change_type = ? and user_id = any(?)",
+                Integer.class, type, users.stream().map(User::getId).toArray(Long[]::new));
+    }
+}
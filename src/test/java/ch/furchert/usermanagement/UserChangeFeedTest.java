@@ -0,0 +1,261 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.dto.UserChangeEvent;
+import ch.furchert.usermanagement.dto.UserDto;
+import ch.furchert.usermanagement.dto.request.CreateUserRequest;
+import ch.furchert.usermanagement.entity.ChangeType;
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.exception.ChangeOffsetExpiredException;
+import ch.furchert.usermanagement.service.UserChangeFeed;
+import ch.furchert.usermanagement.service.UserChangePublisher;
+import ch.furchert.usermanagement.service.UserImportService;
+import ch.furchert.usermanagement.service.UserService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserChangeFeedTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserChangeFeed changeFeed;
+
+    @Autowired
+    private UserChangePublisher changePublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void testMutationsArriveInOrderWithGaplessOffsets() throws Exception {
+        long head = changeFeed.head();
+
+        // Execute
+        User user = userService.createUser(createRequest("feed_user"));
+        userService.updateUser(user.getId(), UserDto.builder()
+                .username("feed_user2")
+                .email("feed_user2@example.com")
+                .role("ADMIN")
+                .build(), null);
+        userService.resetPassword(user.getId(), "new-password");
+        userService.deleteUser(user.getId());
+        changePublisher.publish();
+
+        // Assertions
+        List<UserChangeEvent> changes = poll(head, 0).stream()
+                .filter(change -> change.userId().equals(user.getId()))
+                .toList();
+        assertEquals(List.of(ChangeType.CREATED, ChangeType.UPDATED, ChangeType.PASSWORD_RESET, ChangeType.DELETED),
+                changes.stream().map(UserChangeEvent::type).toList());
+        assertEquals("feed_user", changes.get(0).username());
+        assertEquals("feed_user2", changes.get(1).username());
+        for (int i = 1; i < changes.size(); i++) {
+            assertEquals(changes.get(i - 1).offset() + 1, changes.get(i).offset());
+        }
+    }
+
+    @Test
+    void testLongPollWaitsForNextChange() throws Exception {
+        changePublisher.publish();
+        long head = changeFeed.head();
+
+        // Execute: nothing new yet, so the request is parked
+        MvcResult pending = mockMvc.perform(get("/users/changes")
+                        .param("after", String.valueOf(head))
+                        .param("wait", "10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        userService.createUser(createRequest("poll_user"));
+        changePublisher.publish();
+
+        // Assertions
+        List<UserChangeEvent> changes = objectMapper.readValue(mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), new TypeReference<>() {
+        });
+        assertEquals(1, changes.size());
+        assertEquals(head + 1, changes.getFirst().offset());
+        assertEquals("poll_user", changes.getFirst().username());
+    }
+
+    @Test
+    void testStreamSendsBatchesWithOffsetAsEventId() throws Exception {
+        changePublisher.publish();
+        long head = changeFeed.head();
+        MvcResult stream = mockMvc.perform(get("/users/changes/stream")
+                        .header("Last-Event-ID", String.valueOf(head))
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Execute
+        userService.createUser(createRequest("sse_user"));
+        changePublisher.publish();
+
+        // Assertions: written by the subscription's delivery thread
+        String body = awaitBody(stream, "sse_user");
+        assertTrue(body.contains("id:" + (head + 1)), body);
+        assertTrue(body.contains("event:changes"), body);
+        assertTrue(body.contains("\"username\":\"sse_user\""), body);
+    }
+
+    @Test
+    void testStalledOrFailingSubscribersDoNotHoldUpOthers() throws Exception {
+        changePublisher.publish();
+        long head = changeFeed.head();
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Exception> failures = new CopyOnWriteArrayList<>();
+        BlockingQueue<List<UserChangeEvent>> received = new LinkedBlockingQueue<>();
+
+        // Mock dependencies: a client that stops reading, one whose send fails, and a healthy one
+        UserChangeFeed.Subscription slow = changeFeed.subscribe(head, new TestSink(batch -> {
+            stalled.countDown();
+            release.await();
+        }, failures));
+        UserChangeFeed.Subscription broken = changeFeed.subscribe(head, new TestSink(batch -> {
+            throw new IllegalArgumentException("boom");
+        }, failures));
+        UserChangeFeed.Subscription healthy = changeFeed.subscribe(head, new TestSink(received::add, failures));
+
+        try {
+            // Execute
+            userService.createUser(createRequest("stalled_feed"));
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> changePublisher.publish());
+
+            // Assertions: publishing returned while one client is stuck, and the healthy one got the change
+            assertTrue(stalled.await(5, TimeUnit.SECONDS));
+            List<UserChangeEvent> batch = received.poll(5, TimeUnit.SECONDS);
+            assertNotNull(batch);
+            assertEquals("stalled_feed", batch.getFirst().username());
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (failures.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(1, failures.size());
+            assertInstanceOf(IllegalArgumentException.class, failures.getFirst());
+        } finally {
+            release.countDown();
+            slow.cancel();
+            broken.cancel();
+            healthy.cancel();
+        }
+    }
+
+    @Test
+    void testBulkImportIsLoggedAndExpiredOffsetsAreGone() throws Exception {
+        long head = changeFeed.head();
+        userImportService.importUsers(List.of(createRequest("bulk_feed1"), createRequest("bulk_feed2")));
+        changePublisher.publish();
+        assertEquals(List.of("bulk_feed1", "bulk_feed2"),
+                poll(head, 0).stream().map(UserChangeEvent::username).toList());
+
+        // Execute: everything is past retention, only the newest change is kept
+        changePublisher.deletePublishedBefore(Instant.now().plusSeconds(60));
+
+        // Assertions
+        mockMvc.perform(get("/users/changes").param("after", String.valueOf(head)))
+                .andExpect(status().isGone());
+        assertEquals(1, poll(changeFeed.head() - 1, 0).size());
+    }
+
+    private List<UserChangeEvent> poll(long after, int waitSeconds) throws Exception {
+        List<UserChangeEvent> all = new ArrayList<>();
+        while (true) {
+            MvcResult result = mockMvc.perform(get("/users/changes")
+                            .param("after", String.valueOf(after))
+                            .param("wait", String.valueOf(waitSeconds)))
+                    .andReturn();
+            List<UserChangeEvent> batch = objectMapper.readValue(mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            if (batch.isEmpty()) {
+                return all;
+            }
+            all.addAll(batch);
+            after = batch.getLast().offset();
+        }
+    }
+
+    private static String awaitBody(MvcResult stream, String expected) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        String body = stream.getResponse().getContentAsString();
+        while (!body.contains(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+            body = stream.getResponse().getContentAsString();
+        }
+        return body;
+    }
+
+    private static CreateUserRequest createRequest(String username) {
+        CreateUserRequest request = new CreateUserRequest();
+        request.setUsername(username);
+        request.setEmail(username + "@example.com");
+        request.setPassword("password123");
+        return request;
+    }
+
+    @FunctionalInterface
+    private interface Send {
+        void send(List<UserChangeEvent> batch) throws Exception;
+    }
+
+    private record TestSink(Send send, List<Exception> failures) implements UserChangeFeed.ChangeSink {
+
+        @Override
+        public void send(List<UserChangeEvent> batch) {
+            try {
+                send.send(batch);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void expired(ChangeOffsetExpiredException e) {
+            failures.add(e);
+        }
+
+        @Override
+        public void failed(Exception e) {
+            failures.add(e);
+        }
+    }
+}
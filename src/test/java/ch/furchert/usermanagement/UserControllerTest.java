@@ -1,11 +1,26 @@
 package ch.furchert.usermanagement;
 
+import ch.furchert.usermanagement.config.ResponseFormatConfig;
+import ch.furchert.usermanagement.config.SecurityConfig;
 import ch.furchert.usermanagement.controller.UserController;
 import ch.furchert.usermanagement.dto.UserDto;
+import ch.furchert.usermanagement.dto.UserVersion;
+import ch.furchert.usermanagement.dto.UserView;
 import ch.furchert.usermanagement.dto.request.CreateUserRequest;
+import ch.furchert.usermanagement.dto.request.UserSearchCriteria;
+import ch.furchert.usermanagement.entity.Role;
+import ch.furchert.usermanagement.entity.Status;
 import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.exception.GlobalExceptionHandler;
+import ch.furchert.usermanagement.exception.VersionMismatchException;
+import ch.furchert.usermanagement.service.UserBulkService;
+import ch.furchert.usermanagement.service.UserImportService;
 import ch.furchert.usermanagement.service.UserService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -13,21 +28,30 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.aot.DisabledInAotMode;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+@DisabledInAotMode // Mockito mocks cannot be created in a native image
 @WebMvcTest(UserController.class)
+@Import({UserController.class, SecurityConfig.class, GlobalExceptionHandler.class, ResponseFormatConfig.class})
 class UserControllerTest {
 
     @Autowired
@@ -36,6 +60,9 @@ class UserControllerTest {
     @Autowired
     private UserService userService; // This will use the manually defined mock
 
+    @Autowired
+    private UserBulkService userBulkService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -45,11 +72,21 @@ class UserControllerTest {
         public UserService userService() {
             return mock(UserService.class);
         }
+
+        @Bean
+        public UserImportService userImportService() {
+            return mock(UserImportService.class);
+        }
+
+        @Bean
+        public UserBulkService userBulkService() {
+            return mock(UserBulkService.class);
+        }
     }
 
     @BeforeEach
     void setUp() {
-        Mockito.reset(userService); // Reset the mock for a clean state before each test
+        Mockito.reset(userService, userBulkService); // Reset the mocks for a clean state before each test
     }
 
     @Test
@@ -84,18 +121,10 @@ class UserControllerTest {
 
     @Test
     void testGetUserById() throws Exception {
-        User user = User.builder()
-                .id(1L)
-                .username("john")
-                .email("john@example.com")
-                .role(ch.furchert.usermanagement.entity.Role.USER)
-                .status(ch.furchert.usermanagement.entity.Status.ACTIVE)
-                .created(new Date())
-                .updated(new Date())
-                .lastLogin(null)
-                .build();
+        UserView user = new UserView(1L, "john", "john@example.com",
+                Role.USER, Status.ACTIVE, new Date(), new Date(), null, 0L);
 
-        when(userService.getUserById(1L)).thenReturn(user);
+        when(userService.getUserView(1L)).thenReturn(user);
 
         mockMvc.perform(get("/users/1")
                         .accept(MediaType.APPLICATION_JSON))
@@ -103,38 +132,370 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.username").value("john"))
                 .andExpect(jsonPath("$.email").value("john@example.com"));
 
-        verify(userService, times(1)).getUserById(1L);
+        verify(userService, times(1)).getUserView(1L);
+    }
+
+    @Test
+    void testGetUserById_IfNoneMatchAnsweredFromVersion() throws Exception {
+        Date updated = Date.from(Instant.parse("2025-03-01T10:00:00Z"));
+        Date lastLogin = Date.from(Instant.parse("2025-03-02T08:30:00Z"));
+
+        when(userService.getUserVersion(1L)).thenReturn(new UserVersion(1L, 3L, updated, lastLogin));
+
+        mockMvc.perform(get("/users/1")
+                        .header("If-None-Match", "\"3\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(header().dateValue("Last-Modified", lastLogin.getTime()))
+                .andExpect(content().string(""));
+
+        verify(userService, times(1)).getUserVersion(1L);
+        verify(userService, never()).getUserView(anyLong());
+    }
+
+    @Test
+    void testGetUserById_ChangedUserIsReturnedWithNewETag() throws Exception {
+        Date updated = Date.from(Instant.parse("2025-03-01T10:00:00Z"));
+        UserView user = new UserView(1L, "john", "john@example.com",
+                Role.USER, Status.ACTIVE, updated, updated, null, 4L);
+
+        when(userService.getUserVersion(1L)).thenReturn(new UserVersion(1L, 4L, updated, null));
+        when(userService.getUserView(1L)).thenReturn(user);
+
+        mockMvc.perform(get("/users/1")
+                        .header("If-None-Match", "\"3\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(header().dateValue("Last-Modified", updated.getTime()))
+                .andExpect(jsonPath("$.username").value("john"));
     }
 
     @Test
     void testGetAllUsers() throws Exception {
-        User user1 = User.builder()
-                .id(1L)
-                .username("john")
-                .email("john@example.com")
-                .role(ch.furchert.usermanagement.entity.Role.USER)
-                .status(ch.furchert.usermanagement.entity.Status.ACTIVE)
-                .build();
+        UserView user1 = new UserView(1L, "john", "john@example.com",
+                Role.USER, Status.ACTIVE, null, null, null, 0L);
 
-        User user2 = User.builder()
-                .id(2L)
-                .username("jane")
-                .email("jane@example.com")
-                .role(ch.furchert.usermanagement.entity.Role.USER)
-                .status(ch.furchert.usermanagement.entity.Status.ACTIVE)
-                .build();
+        UserView user2 = new UserView(2L, "jane", "jane@example.com",
+                Role.USER, Status.ACTIVE, null, null, null, 0L);
 
-        List<User> users = Arrays.asList(user1, user2);
+        List<UserView> users = Arrays.asList(user1, user2);
 
-        when(userService.getAllUsers()).thenReturn(users);
+        when(userService.getUsers(null, 100)).thenReturn(users);
 
         mockMvc.perform(get("/users")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].username").value("john"))
-                .andExpect(jsonPath("$[1].username").value("jane"));
+                .andExpect(jsonPath("$[1].username").value("jane"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+
+        verify(userService, times(1)).getUsers(null, 100);
+    }
+
+    @Test
+    void testGetAllUsers_FullPageReturnsCursor() throws Exception {
+        UserView user1 = new UserView(7L, "john", "john@example.com",
+                Role.USER, Status.ACTIVE, null, null, null, 0L);
+
+        UserView user2 = new UserView(9L, "jane", "jane@example.com",
+                Role.USER, Status.ACTIVE, null, null, null, 0L);
+
+        when(userService.getUsers(5L, 2)).thenReturn(Arrays.asList(user1, user2));
+
+        mockMvc.perform(get("/users")
+                        .param("after", "5")
+                        .param("limit", "2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().string("X-Next-Cursor", "9"));
+
+        verify(userService, times(1)).getUsers(5L, 2);
+    }
+
+    @Test
+    void testGetAllUsers_IfNoneMatchAnsweredFromVersions() throws Exception {
+        UserView user1 = new UserView(7L, "john", "john@example.com",
+                Role.USER, Status.ACTIVE, null, null, null, 2L);
+
+        UserView user2 = new UserView(9L, "jane", "jane@example.com",
+                Role.USER, Status.ACTIVE, null, null, null, 0L);
+
+        when(userService.getUsers(null, 100)).thenReturn(List.of(user1, user2));
+        when(userService.getUserVersions(null, 100)).thenReturn(List.of(
+                new UserVersion(7L, 2L, null, null), new UserVersion(9L, 0L, null, null)));
+
+        String eTag = mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/users")
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag));
+
+        // The second request never read the page itself
+        verify(userService, times(1)).getUsers(null, 100);
+
+        // A bumped version inside the page invalidates the ETag
+        when(userService.getUserVersions(null, 100)).thenReturn(List.of(
+                new UserVersion(7L, 3L, null, null), new UserVersion(9L, 0L, null, null)));
+
+        mockMvc.perform(get("/users")
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testGetAllUsers_BinaryFormats() throws Exception {
+        Date created = Date.from(Instant.parse("2024-05-01T10:00:00Z"));
+        UserView user = new UserView(7L, "john", "john@example.com",
+                Role.USER, Status.ACTIVE, created, created, null, 2L);
+
+        when(userService.getUsers(null, 100)).thenReturn(List.of(user));
+
+        String jsonETag = mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string("Vary", "Accept"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        byte[] cbor = mockMvc.perform(get("/users")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string("ETag", jsonETag))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        byte[] smile = mockMvc.perform(get("/users")
+                        .accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Assertions: same page in every format, weakly tagged, dates as epoch milliseconds
+        assertTrue(jsonETag.startsWith("W/"));
+        for (JsonNode page : List.of(new CBORMapper().readTree(cbor), new SmileMapper().readTree(smile))) {
+            assertEquals(1, page.size());
+            assertEquals("john", page.get(0).get("username").asText());
+            assertEquals(created.getTime(), page.get(0).get("created").asLong());
+        }
+    }
+
+    @Test
+    void testSearchUsers() throws Exception {
+        UserView user = new UserView(3L, "bob", "bob@example.com",
+                Role.USER, Status.BLOCKED, null, null, null, 0L);
+
+        UserSearchCriteria expected = new UserSearchCriteria();
+        expected.setStatus(Status.BLOCKED);
+        expected.setLastLoginTo(Instant.parse("2025-01-01T00:00:00Z"));
+        expected.setEmailPrefix("bo");
+
+        when(userService.searchUsers(expected, null, 1)).thenReturn(List.of(user));
+
+        mockMvc.perform(get("/users/search")
+                        .param("status", "BLOCKED")
+                        .param("lastLoginTo", "2025-01-01T00:00:00Z")
+                        .param("emailPrefix", "bo")
+                        .param("limit", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].username").value("bob"))
+                .andExpect(jsonPath("$[0].userStatus").value("BLOCKED"))
+                .andExpect(header().string("X-Next-Cursor", "3"));
 
-        verify(userService, times(1)).getAllUsers();
+        verify(userService, times(1)).searchUsers(expected, null, 1);
+    }
+
+    @Test
+    void testCheckAvailability() throws Exception {
+        when(userService.isUsernameAvailable("alice")).thenReturn(false);
+        when(userService.isEmailAvailable("new@example.com")).thenReturn(true);
+
+        mockMvc.perform(get("/users/availability")
+                        .param("username", "alice")
+                        .param("email", "new@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usernameAvailable").value(false))
+                .andExpect(jsonPath("$.emailAvailable").value(true));
+        mockMvc.perform(get("/users/availability").param("username", "alice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.emailAvailable").doesNotExist());
+        mockMvc.perform(get("/users/availability"))
+                .andExpect(status().isBadRequest());
+
+        verify(userService, times(2)).isUsernameAvailable("alice");
+        verify(userService, times(1)).isEmailAvailable("new@example.com");
+    }
+
+    @Test
+    void testBulkStatusAndDelete() throws Exception {
+        when(userBulkService.changeStatus(List.of(1L, 2L), Status.BLOCKED)).thenReturn(2);
+        when(userBulkService.delete(any(UserSearchCriteria.class))).thenReturn(7);
+
+        mockMvc.perform(post("/users/bulk/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1,2],\"status\":\"BLOCKED\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(2));
+        mockMvc.perform(post("/users/bulk/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"filter\":{\"emailPrefix\":\"site-a.\"}}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(7));
+        // No selection, both selections, an empty filter or no target status
+        mockMvc.perform(post("/users/bulk/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/users/bulk/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1],\"filter\":{\"role\":\"USER\"}}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/users/bulk/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"filter\":{},\"status\":\"BLOCKED\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/users/bulk/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1]}"))
+                .andExpect(status().isBadRequest());
+
+        verify(userBulkService).changeStatus(List.of(1L, 2L), Status.BLOCKED);
+        verify(userBulkService).delete(argThat((UserSearchCriteria filter) -> "site-a.".equals(filter.getEmailPrefix())));
+        verifyNoMoreInteractions(userBulkService);
+    }
+
+    @Test
+    void testStreamUsers() throws Exception {
+        UserView user1 = new UserView(1L, "john", "john@example.com",
+                Role.USER, Status.ACTIVE, null, null, null, 0L);
+
+        UserView user2 = new UserView(2L, "jane", "jane@example.com",
+                Role.USER, Status.ACTIVE, null, null, null, 0L);
+
+        // Hold the async writer until the request thread has left the filter chain
+        CountDownLatch dispatched = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            dispatched.await(5, TimeUnit.SECONDS);
+            Consumer<UserView> consumer = invocation.getArgument(0);
+            consumer.accept(user1);
+            consumer.accept(user2);
+            return null;
+        }).when(userService).streamUsers(any());
+
+        MvcResult result = mockMvc.perform(get("/users/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        dispatched.countDown();
+
+        String[] lines = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+        assertEquals(2, lines.length);
+        assertEquals("john", objectMapper.readTree(lines[0]).get("username").asText());
+        assertEquals("jane", objectMapper.readTree(lines[1]).get("username").asText());
+    }
+
+    @Test
+    void testStreamUsers_CborSequence() throws Exception {
+        UserView user1 = new UserView(1L, "john", "john@example.com",
+                Role.USER, Status.ACTIVE, null, null, null, 0L);
+
+        UserView user2 = new UserView(2L, "jane", "jane@example.com",
+                Role.USER, Status.ACTIVE, null, null, null, 0L);
+
+        CountDownLatch dispatched = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            dispatched.await(5, TimeUnit.SECONDS);
+            Consumer<UserView> consumer = invocation.getArgument(0);
+            consumer.accept(user1);
+            consumer.accept(user2);
+            return null;
+        }).when(userService).streamUsers(any());
+
+        MvcResult result = mockMvc.perform(get("/users/stream")
+                        .accept("application/cbor-seq"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        dispatched.countDown();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor-seq"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Assertions: back-to-back CBOR items, one per user
+        try (MappingIterator<JsonNode> users = new CBORMapper().readerFor(JsonNode.class).readValues(body)) {
+            assertEquals(List.of("john", "jane"), users.readAll().stream()
+                    .map(user -> user.get("username").asText())
+                    .toList());
+        }
+    }
+
+    @Test
+    void testLookupUsers() throws Exception {
+        UserView user1 = new UserView(1L, "john", "john@example.com",
+                Role.USER, Status.ACTIVE, null, null, null, 0L);
+
+        UserView user3 = new UserView(3L, "jane", "jane@example.com",
+                Role.USER, Status.ACTIVE, null, null, null, 0L);
+
+        // One call for the whole batch, answered in request order with null for the missing id
+        CountDownLatch dispatched = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            dispatched.await(5, TimeUnit.SECONDS);
+            Consumer<UserView> consumer = invocation.getArgument(1);
+            consumer.accept(user3);
+            consumer.accept(null);
+            consumer.accept(user1);
+            return null;
+        }).when(userService).lookupUsersByIds(eq(List.of(3L, 2L, 1L)), any());
+
+        MvcResult result = mockMvc.perform(post("/users/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[3,2,1]}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        dispatched.countDown();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.users.length()").value(3))
+                .andExpect(jsonPath("$.users[0].username").value("jane"))
+                .andExpect(jsonPath("$.users[1]").doesNotExist())
+                .andExpect(jsonPath("$.users[2].username").value("john"))
+                .andExpect(jsonPath("$.missing").value(2));
+
+        verify(userService, times(1)).lookupUsersByIds(any(), any());
+    }
+
+    @Test
+    void testLookupUsers_RejectsInvalidRequests() throws Exception {
+        mockMvc.perform(post("/users/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1],\"usernames\":[\"john\"]}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/users/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"usernames\":[\"john\",null]}"))
+                .andExpect(status().isBadRequest());
+
+        String tooMany = Arrays.toString(new long[1001]).replace(" ", "");
+        mockMvc.perform(post("/users/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":" + tooMany + "}"))
+                .andExpect(status().isPayloadTooLarge());
+
+        verify(userService, never()).lookupUsersByIds(any(), any());
+        verify(userService, never()).lookupUsersByUsernames(any(), any());
     }
 
     @Test
@@ -151,18 +512,61 @@ class UserControllerTest {
                 .email("john.updated@example.com")
                 .role(ch.furchert.usermanagement.entity.Role.ADMIN)
                 .status(ch.furchert.usermanagement.entity.Status.ACTIVE)
+                .version(4L)
                 .build();
 
-        when(userService.updateUser(eq(1L), any(UserDto.class))).thenReturn(updatedUser);
+        when(userService.updateUser(eq(1L), any(UserDto.class), isNull())).thenReturn(updatedUser);
 
         mockMvc.perform(put("/users/1")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(userDto)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.username").value("john_updated"))
-                .andExpect(jsonPath("$.email").value("john.updated@example.com"));
+                .andExpect(jsonPath("$.email").value("john.updated@example.com"))
+                .andExpect(header().string("ETag", "\"4\""));
 
-        verify(userService, times(1)).updateUser(eq(1L), any(UserDto.class));
+        verify(userService, times(1)).updateUser(eq(1L), any(UserDto.class), isNull());
+    }
+
+    @Test
+    void testUpdateUser_StaleIfMatchIsRejected() throws Exception {
+        UserDto userDto = UserDto.builder()
+                .username("john_updated")
+                .email("john.updated@example.com")
+                .role("ADMIN")
+                .build();
+
+        when(userService.updateUser(eq(1L), any(UserDto.class), eq(3L)))
+                .thenThrow(new VersionMismatchException(1L, 5L));
+
+        mockMvc.perform(put("/users/1")
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string("ETag", "\"5\""));
+
+        verify(userService, times(1)).updateUser(eq(1L), any(UserDto.class), eq(3L));
+    }
+
+    @Test
+    void testUpdateUser_WeakIfMatchNeverMatches() throws Exception {
+        UserDto userDto = UserDto.builder()
+                .username("john_updated")
+                .email("john.updated@example.com")
+                .role("ADMIN")
+                .build();
+
+        when(userService.updateUser(eq(1L), any(UserDto.class), eq(-1L)))
+                .thenThrow(new VersionMismatchException(1L, 3L));
+
+        mockMvc.perform(put("/users/1")
+                        .header("If-Match", "W/\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(userService, times(1)).updateUser(eq(1L), any(UserDto.class), eq(-1L));
     }
 
     @Test
@@ -186,4 +590,18 @@ class UserControllerTest {
 
         verify(userService, times(1)).resetPassword(eq(1L), eq("new_password"));
     }
+
+    @Test
+    void testResetPassword_ObjectBody() throws Exception {
+        mockMvc.perform(post("/users/1/reset-password")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"password\": \"new_password\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/users/1/reset-password")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("\"short\""))
+                .andExpect(status().isBadRequest());
+
+        verify(userService, times(1)).resetPassword(eq(1L), eq("new_password"));
+    }
 }
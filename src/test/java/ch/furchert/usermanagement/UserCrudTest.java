@@ -0,0 +1,122 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The user CRUD endpoints end to end, through the full context and the database. Uses no mocks,
+ * so it also runs in the native test image: {@code ./mvnw -PnativeTest test -Dtest=UserCrudTest}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserCrudTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testCreateReadUpdateDelete() throws Exception {
+        // Execute
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(createBody("crud_user")))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.username").value("crud_user"))
+                // No SMTP server in the test profile, so no verification mail either
+                .andExpect(jsonPath("$.userStatus").value("ACTIVE"))
+                .andExpect(jsonPath("$.passwordHash").doesNotExist());
+        long id = userRepository.findByUsername("crud_user").orElseThrow().getId();
+
+        // Assertions
+        mockMvc.perform(get("/users/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andExpect(jsonPath("$.email").value("crud_user@example.com"));
+        mockMvc.perform(get("/users/by-username/{username}", "crud_user"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users/by-email/{email}", "crud_user@example.com"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put("/users/{id}", id)
+                        .header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"crud_user2\",\"email\":\"crud_user2@example.com\",\"role\":\"ADMIN\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.role").value("ADMIN"));
+        mockMvc.perform(get("/users/by-username/{username}", "crud_user2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("crud_user2@example.com"));
+
+        mockMvc.perform(delete("/users/{id}", id))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/users/{id}", id))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testCreateRejectsInvalidAndTakenNames() throws Exception {
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(createBody("taken_user")))
+                .andExpect(status().isCreated());
+
+        // Execute and Assertions
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(createBody("taken_user")))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"\",\"email\":\"not-an-email\",\"password\":\"password123\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testListSearchAndStream() throws Exception {
+        for (String username : new String[]{"list_a", "list_b", "list_c"}) {
+            mockMvc.perform(post("/users")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(createBody(username)))
+                    .andExpect(status().isCreated());
+        }
+
+        // Execute and Assertions
+        mockMvc.perform(get("/users").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().exists("X-Next-Cursor"));
+        mockMvc.perform(get("/users/search").param("usernamePrefix", "LIST_").param("status", "ACTIVE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3));
+        mockMvc.perform(asyncDispatch(mockMvc.perform(get("/users/stream"))
+                        .andExpect(request().asyncStarted())
+                        .andReturn()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"));
+    }
+
+    private static String createBody(String username) {
+        return "{\"username\":\"" + username + "\",\"email\":\"" + username
+                + "@example.com\",\"password\":\"password123\"}";
+    }
+}
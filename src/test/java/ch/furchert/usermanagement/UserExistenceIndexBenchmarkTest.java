@@ -0,0 +1,74 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.cache.BloomFilter;
+import ch.furchert.usermanagement.cache.UserExistenceIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Memory, false-positive rate, lookup speed and warm-up time of the existence index for one
+ * million users. Run with {@code mvn test -DexcludedGroups= -Dgroups=benchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+class UserExistenceIndexBenchmarkTest {
+
+    private static final int USERS = 1_000_000;
+
+    @Autowired
+    private UserExistenceIndex existenceIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from user_account where username like 'bench%'");
+    }
+
+    @Test
+    void measureFilterAtOneMillionNames() {
+        BloomFilter filter = BloomFilter.create(USERS, 0.01);
+        for (int i = 0; i < USERS; i++) {
+            filter.put("user" + i + "@example.com");
+        }
+
+        long start = System.nanoTime();
+        int falsePositives = 0;
+        for (int i = 0; i < USERS; i++) {
+            if (filter.mightContain("other" + i + "@example.com")) {
+                falsePositives++;
+            }
+        }
+        long lookupNanos = System.nanoTime() - start;
+
+        System.out.printf("filter: %,d KiB per million names (%d hash functions), x2 for usernames and emails%n"
+                        + "false positives: %.3f%% of absent names%nlookups: %,.0f/s%n",
+                filter.byteSize() / 1024, filter.hashFunctions(), 100.0 * falsePositives / USERS,
+                USERS / (lookupNanos / 1e9));
+        assertTrue(falsePositives < USERS / 50);
+    }
+
+    @Test
+    void measureWarmUpFromOneMillionRows() {
+        jdbcTemplate.update("insert into user_account (id, username, email, password_hash, role, user_status, created, updated, version) "
+                + "select nextval('user_account_seq'), 'bench' || g, 'bench' || g || '@example.com', 'x', 'USER', 'ACTIVE', now(), now(), 0 "
+                + "from generate_series(1, ?) g", USERS);
+
+        long start = System.nanoTime();
+        existenceIndex.rebuild();
+        long buildNanos = System.nanoTime() - start;
+
+        assertTrue(existenceIndex.entries() >= USERS);
+        System.out.printf("warm-up: %,d ms for %,d users, %,d KiB for both filters%n",
+                buildNanos / 1_000_000, existenceIndex.entries(), existenceIndex.byteSize() / 1024);
+    }
+}
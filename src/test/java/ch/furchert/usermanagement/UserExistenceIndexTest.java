@@ -0,0 +1,155 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.cache.BloomFilter;
+import ch.furchert.usermanagement.cache.UserExistenceIndex;
+import ch.furchert.usermanagement.dto.UserDto;
+import ch.furchert.usermanagement.dto.request.CreateUserRequest;
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.repository.UserRepository;
+import ch.furchert.usermanagement.service.UserChangePublisher;
+import ch.furchert.usermanagement.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserExistenceIndexTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserExistenceIndex existenceIndex;
+
+    @Autowired
+    private UserChangePublisher changePublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testBloomFilter_NoFalseNegativesAndFalsePositiveRateNearTarget() {
+        BloomFilter filter = BloomFilter.create(100_000, 0.01);
+
+        // Execute
+        for (int i = 0; i < 100_000; i++) {
+            filter.put("user" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(filter.mightContain("user" + i));
+            if (filter.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Assertions: 1% target at capacity, about 9.6 bits per entry
+        assertTrue(falsePositives < 1_500, "false positives: " + falsePositives);
+        assertTrue(filter.byteSize() < 125_000, "bytes: " + filter.byteSize());
+    }
+
+    @Test
+    void testAvailability_NewNamesAreAnsweredWithoutQueryAndTakenOnesAreConfirmed() throws Exception {
+        existenceIndex.rebuild();
+        User user = userService.createUser(createRequest("idx_alice"));
+
+        // Execute: the name reaches the index through the change log
+        changePublisher.publish();
+        existenceIndex.refresh();
+        double negatives = checks("negative");
+        double falsePositives = checks("false_positive");
+
+        // Assertions
+        mockMvc.perform(get("/users/availability").param("username", "idx_alice").param("email", "idx_alice@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usernameAvailable").value(false))
+                .andExpect(jsonPath("$.emailAvailable").value(false));
+        mockMvc.perform(get("/users/availability").param("username", "idx_nobody"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usernameAvailable").value(true));
+        assertEquals(negatives + 1, checks("negative"));
+
+        // Another letter case is in the index, but the constraint (and so the answer) is case-sensitive
+        assertTrue(userService.isUsernameAvailable("IDX_ALICE"));
+        assertEquals(falsePositives + 1, checks("false_positive"));
+
+        // Deleted names stay in the filter until the next rebuild, the database has the last word
+        userService.deleteUser(user.getId());
+        assertTrue(userService.isUsernameAvailable("idx_alice"));
+        existenceIndex.rebuild();
+        assertFalse(existenceIndex.mightContainUsername("idx_alice"));
+    }
+
+    @Test
+    void testAvailability_OwnWritesAreTakenBeforeTheChangeLogIsPublished() throws Exception {
+        existenceIndex.rebuild();
+
+        // Execute: nothing published, no refresh
+        User user = userService.createUser(createRequest("idx_carol"));
+
+        // Assertions
+        mockMvc.perform(get("/users/availability").param("username", "idx_carol").param("email", "idx_carol@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usernameAvailable").value(false))
+                .andExpect(jsonPath("$.emailAvailable").value(false));
+
+        // A rename is taken right away too
+        userService.updateUser(user.getId(), UserDto.builder()
+                .username("idx_carol2")
+                .email("idx_carol2@example.com")
+                .role("USER")
+                .build(), null);
+        assertFalse(userService.isUsernameAvailable("idx_carol2"));
+        assertFalse(userService.isEmailAvailable("idx_carol2@example.com"));
+    }
+
+    @Test
+    void testRebuild_IncludesExistingUsersAndResizesForGrowth() {
+        userService.createUser(createRequest("idx_bob"));
+
+        // Execute
+        existenceIndex.rebuild();
+
+        // Assertions
+        assertTrue(existenceIndex.isReady());
+        assertTrue(existenceIndex.mightContainUsername("Idx_Bob "));
+        assertTrue(existenceIndex.mightContainEmail("idx_bob@example.com"));
+        assertTrue(existenceIndex.entries() >= 1);
+        assertTrue(existenceIndex.byteSize() > 0);
+    }
+
+    private double checks(String result) {
+        return meterRegistry.get("user.index.checks").tag("result", result).counter().count();
+    }
+
+    private static CreateUserRequest createRequest(String username) {
+        CreateUserRequest request = new CreateUserRequest();
+        request.setUsername(username);
+        request.setEmail(username + "@example.com");
+        request.setPassword("password123");
+        return request;
+    }
+}
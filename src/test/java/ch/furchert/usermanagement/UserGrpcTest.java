@@ -0,0 +1,179 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.dto.request.CreateUserRequest;
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.grpc.v1.BatchGetUsersRequest;
+import ch.furchert.usermanagement.grpc.v1.ChangeType;
+import ch.furchert.usermanagement.grpc.v1.GetUserRequest;
+import ch.furchert.usermanagement.grpc.v1.ListUsersRequest;
+import ch.furchert.usermanagement.grpc.v1.UserChange;
+import ch.furchert.usermanagement.grpc.v1.UserLookupGrpc;
+import ch.furchert.usermanagement.grpc.v1.UserResult;
+import ch.furchert.usermanagement.grpc.v1.WatchChangesRequest;
+import ch.furchert.usermanagement.repository.UserRepository;
+import ch.furchert.usermanagement.service.UserChangeFeed;
+import ch.furchert.usermanagement.service.UserChangePublisher;
+import ch.furchert.usermanagement.service.UserService;
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The gRPC API through the real server, interceptors included, over an in-process channel. Pages
+ * of two users make {@code ListUsers} span several queries.
+ */
+@SpringBootTest(properties = {"grpc.in-process-name=user-grpc-test", "grpc.list-page-size=2"})
+@ActiveProfiles("test")
+class UserGrpcTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserChangeFeed changeFeed;
+
+    @Autowired
+    private UserChangePublisher changePublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ManagedChannel channel;
+    private UserLookupGrpc.UserLookupBlockingStub users;
+
+    @BeforeEach
+    void setUp() {
+        channel = InProcessChannelBuilder.forName("user-grpc-test").build();
+        users = UserLookupGrpc.newBlockingStub(channel);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testGetUserByIdUsernameAndEmail() {
+        User user = create("grpc_john");
+
+        // Execute
+        var byId = deadline().getUser(GetUserRequest.newBuilder().setId(user.getId()).build());
+        var byUsername = deadline().getUser(GetUserRequest.newBuilder().setUsername("grpc_john").build());
+        var byEmail = deadline().getUser(GetUserRequest.newBuilder().setEmail("grpc_john@example.com").build());
+
+        // Assertions
+        assertEquals("grpc_john", byId.getUsername());
+        assertEquals(user.getCreated().getTime(), byId.getCreated());
+        assertEquals(user.getVersion(), byId.getVersion());
+        assertEquals(byId, byUsername);
+        assertEquals(byId, byEmail);
+        assertEquals(Status.Code.NOT_FOUND, code(() -> deadline().getUser(GetUserRequest.newBuilder().setId(-1).build())));
+        assertEquals(Status.Code.INVALID_ARGUMENT, code(() -> deadline().getUser(GetUserRequest.getDefaultInstance())));
+
+        // Every call is timed per method and status
+        assertEquals(1, meterRegistry.get("grpc.server.processing.duration")
+                .tag("method", "GetUser")
+                .tag("statusCode", "NOT_FOUND")
+                .timer().count());
+    }
+
+    @Test
+    void testBatchGetUsersKeepsOrder() {
+        User first = create("grpc_first");
+        User second = create("grpc_second");
+
+        // Execute
+        List<UserResult> results = deadline().batchGetUsers(BatchGetUsersRequest.newBuilder()
+                        .addIds(second.getId())
+                        .addIds(-1)
+                        .addIds(first.getId())
+                        .build())
+                .getResultsList();
+
+        // Assertions
+        assertEquals(3, results.size());
+        assertEquals("grpc_second", results.get(0).getUser().getUsername());
+        assertFalse(results.get(1).hasUser());
+        assertEquals("grpc_first", results.get(2).getUser().getUsername());
+        assertEquals(Status.Code.INVALID_ARGUMENT, code(() -> deadline().batchGetUsers(BatchGetUsersRequest.newBuilder()
+                .addIds(first.getId())
+                .addUsernames("grpc_first")
+                .build())));
+    }
+
+    @Test
+    void testListUsersStreamsEveryPageAndResumes() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(create("grpc_list" + i).getId());
+        }
+
+        // Execute
+        List<Long> all = new ArrayList<>();
+        deadline().listUsers(ListUsersRequest.getDefaultInstance()).forEachRemaining(user -> all.add(user.getId()));
+        List<Long> rest = new ArrayList<>();
+        deadline().listUsers(ListUsersRequest.newBuilder().setAfter(ids.get(2)).build())
+                .forEachRemaining(user -> rest.add(user.getId()));
+
+        // Assertions
+        assertEquals(ids, all);
+        assertEquals(ids.subList(3, 5), rest);
+    }
+
+    @Test
+    void testWatchChangesSendsBacklogThenNewChanges() {
+        changePublisher.publish();
+        long head = changeFeed.head();
+        create("grpc_before");
+        changePublisher.publish();
+
+        // Execute
+        Iterator<UserChange> changes = deadline().watchChanges(WatchChangesRequest.newBuilder().setAfter(head).build());
+        UserChange backlog = changes.next();
+        create("grpc_after");
+        changePublisher.publish();
+        UserChange live = changes.next();
+
+        // Assertions
+        assertEquals(head + 1, backlog.getOffset());
+        assertEquals(ChangeType.CREATED, backlog.getType());
+        assertEquals("grpc_before", backlog.getUsername());
+        assertEquals(head + 2, live.getOffset());
+        assertEquals("grpc_after", live.getUsername());
+    }
+
+    private UserLookupGrpc.UserLookupBlockingStub deadline() {
+        return users.withDeadlineAfter(10, TimeUnit.SECONDS);
+    }
+
+    private User create(String username) {
+        CreateUserRequest request = new CreateUserRequest();
+        request.setUsername(username);
+        request.setEmail(username + "@example.com");
+        request.setPassword("password123");
+        return userService.createUser(request);
+    }
+
+    private static Status.Code code(Runnable call) {
+        return assertThrows(StatusRuntimeException.class, call::run).getStatus().getCode();
+    }
+}
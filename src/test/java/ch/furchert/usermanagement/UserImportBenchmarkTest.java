@@ -0,0 +1,69 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.dto.request.CreateUserRequest;
+import ch.furchert.usermanagement.repository.UserRepository;
+import ch.furchert.usermanagement.service.UserImportService;
+import ch.furchert.usermanagement.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Throughput of the bulk import against one {@code createUser} call per account. Uses the
+ * test profile's BCrypt cost of 4 so the database path, not hashing, dominates.
+ * Run with {@code mvn test -DexcludedGroups= -Dgroups=benchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+class UserImportBenchmarkTest {
+
+    private static final int USERS = 2_000;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void compareBulkImportWithOneByOne() {
+        List<CreateUserRequest> oneByOne = requests("single");
+        long start = System.nanoTime();
+        oneByOne.forEach(userService::createUser);
+        long oneByOneNanos = System.nanoTime() - start;
+
+        List<CreateUserRequest> bulk = requests("bulk");
+        start = System.nanoTime();
+        userImportService.importUsers(bulk);
+        long bulkNanos = System.nanoTime() - start;
+
+        assertEquals(2L * USERS, userRepository.count());
+        System.out.printf("one-by-one: %,.0f users/s%nbulk import: %,.0f users/s%n",
+                USERS / (oneByOneNanos / 1e9), USERS / (bulkNanos / 1e9));
+    }
+
+    private static List<CreateUserRequest> requests(String prefix) {
+        List<CreateUserRequest> requests = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            requests.add(UserImportServiceTest.request(prefix + i, prefix + i + "@example.com"));
+        }
+        return requests;
+    }
+}
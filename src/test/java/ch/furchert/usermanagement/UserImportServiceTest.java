@@ -0,0 +1,103 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.dto.request.CreateUserRequest;
+import ch.furchert.usermanagement.dto.response.BulkImportResult;
+import ch.furchert.usermanagement.dto.response.BulkImportResult.Outcome;
+import ch.furchert.usermanagement.entity.Role;
+import ch.furchert.usermanagement.entity.Status;
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.repository.UserRepository;
+import ch.furchert.usermanagement.service.UserImportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserImportServiceTest {
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testImportUsers_ReportsOutcomePerRow() {
+        // Existing user
+        userRepository.save(User.builder()
+                .username("taken")
+                .email("taken@example.com")
+                .passwordHash("hash")
+                .role(Role.USER)
+                .status(Status.ACTIVE)
+                .build());
+
+        // Input data
+        List<CreateUserRequest> requests = List.of(
+                request("alice", "alice@example.com"),
+                request("", "blank@example.com"),
+                request("alice", "alice2@example.com"),
+                request("taken", "other@example.com"),
+                request("bob", "taken@example.com"),
+                request("carol", "carol@example.com"));
+
+        // Execute
+        List<BulkImportResult> results = userImportService.importUsers(requests);
+
+        // Assertions
+        assertEquals(6, results.size());
+        assertEquals(Outcome.CREATED, results.get(0).getOutcome());
+        assertNotNull(results.get(0).getId());
+        assertEquals(Outcome.INVALID, results.get(1).getOutcome());
+        assertEquals("Username is required", results.get(1).getMessage());
+        assertEquals(Outcome.DUPLICATE, results.get(2).getOutcome());
+        assertEquals(Outcome.CONFLICT, results.get(3).getOutcome());
+        assertEquals("Username is already taken", results.get(3).getMessage());
+        assertEquals(Outcome.CONFLICT, results.get(4).getOutcome());
+        assertEquals("Email is already in use", results.get(4).getMessage());
+        assertEquals(Outcome.CREATED, results.get(5).getOutcome());
+
+        assertEquals(3, userRepository.count());
+        User alice = userRepository.findByUsername("alice").orElseThrow();
+        assertEquals(Status.ACTIVE, alice.getStatus());
+        assertTrue(alice.getPasswordHash().startsWith("$2y$"));
+    }
+
+    @Test
+    void testImportUsers_SpansSeveralChunks() {
+        // Input data
+        List<CreateUserRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 1_200; i++) {
+            requests.add(request("user" + i, "user" + i + "@example.com"));
+        }
+
+        // Execute
+        List<BulkImportResult> results = userImportService.importUsers(requests);
+
+        // Assertions
+        assertTrue(results.stream().allMatch(result -> result.getOutcome() == Outcome.CREATED));
+        assertEquals(1_200, results.stream().map(BulkImportResult::getId).distinct().count());
+        assertEquals(1_200, userRepository.count());
+    }
+
+    static CreateUserRequest request(String username, String email) {
+        CreateUserRequest request = new CreateUserRequest();
+        request.setUsername(username);
+        request.setEmail(email);
+        request.setPassword("password123");
+        return request;
+    }
+}
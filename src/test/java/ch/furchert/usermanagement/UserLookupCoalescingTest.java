@@ -0,0 +1,227 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.cache.UserCache;
+import ch.furchert.usermanagement.cache.UserExistenceIndex;
+import ch.furchert.usermanagement.config.ReplicaProperties;
+import ch.furchert.usermanagement.config.UserLookupProperties;
+import ch.furchert.usermanagement.dto.UserView;
+import ch.furchert.usermanagement.entity.Role;
+import ch.furchert.usermanagement.entity.Status;
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.exception.UserNotFoundException;
+import ch.furchert.usermanagement.repository.UserChangeRepository;
+import ch.furchert.usermanagement.repository.UserRepository;
+import ch.furchert.usermanagement.service.AccountMailService;
+import ch.furchert.usermanagement.service.UserServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.aot.DisabledInAotMode;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * A thundering herd of identical lookups against a repository whose query blocks until the test
+ * releases it, without a cache ({@link NoOpCacheManager}).
+ */
+@DisabledInAotMode // Mockito mocks cannot be created in a native image
+class UserLookupCoalescingTest {
+
+    private static final int HERD = 200;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Test
+    void testConcurrentEntityLookupsShareOneQuery() throws Exception {
+        // Mock dependencies
+        UserServiceImpl userService = userService(Duration.ofSeconds(10));
+        when(userRepository.findByUsername("herd")).thenAnswer(invocation -> {
+            release.await();
+            return Optional.of(user(1L, "herd"));
+        });
+
+        // Execute
+        List<User> users = herd(() -> userService.getUserByUsername("herd"), "userByUsername");
+
+        // Assertions: one query, and every caller has its own copy of the entity
+        verify(userRepository, times(1)).findByUsername("herd");
+        assertTrue(users.stream().allMatch(user -> "herd".equals(user.getUsername())));
+        Set<User> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        distinct.addAll(users);
+        assertEquals(HERD, distinct.size());
+        assertEquals(1.0, lookups("userByUsername", "loaded"));
+        assertEquals(HERD - 1, lookups("userByUsername", "shared"));
+    }
+
+    @Test
+    void testConcurrentViewLookupsShareOneQueryWithoutCache() throws Exception {
+        // Mock dependencies
+        UserServiceImpl userService = userService(Duration.ofSeconds(10));
+        UserView view = new UserView(7L, "viewed", "viewed@example.com", Role.USER, Status.ACTIVE,
+                null, null, null, 0L);
+        when(userRepository.findViewById(7L)).thenAnswer(invocation -> {
+            release.await();
+            return Optional.of(view);
+        });
+
+        // Execute
+        List<UserView> views = herd(() -> userService.getUserView(7L), "viewById");
+
+        // Assertions
+        verify(userRepository, times(1)).findViewById(7L);
+        assertTrue(views.stream().allMatch(view::equals));
+    }
+
+    @Test
+    void testFailureReachesEveryWaiter() throws Exception {
+        // Mock dependencies
+        UserServiceImpl userService = userService(Duration.ofSeconds(10));
+        when(userRepository.findById(404L)).thenAnswer(invocation -> {
+            release.await();
+            return Optional.empty();
+        });
+
+        // Execute
+        List<Throwable> failures = herd(() -> {
+            try {
+                userService.getUserById(404L);
+                return null;
+            } catch (UserNotFoundException e) {
+                return e;
+            }
+        }, "userById");
+
+        // Assertions
+        verify(userRepository, times(1)).findById(404L);
+        assertTrue(failures.stream().allMatch(UserNotFoundException.class::isInstance));
+    }
+
+    @Test
+    void testWaitIsBoundedAndEvictStartsNewQuery() throws Exception {
+        // Mock dependencies
+        UserServiceImpl userService = userService(Duration.ofMillis(50));
+        UserCache userCache = userCache(Duration.ofMillis(50));
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        when(userRepository.findByEmail("slow@example.com"))
+                .thenAnswer(invocation -> {
+                    leaderStarted.countDown();
+                    release.await();
+                    return Optional.of(user(3L, "slow"));
+                })
+                .thenReturn(Optional.of(user(3L, "slow")));
+
+        // Execute
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<User> leader = executor.submit(() -> userService.getUserByEmail("slow@example.com"));
+            leaderStarted.await();
+            User follower = userService.getUserByEmail("slow@example.com");
+            release.countDown();
+
+            // Assertions: the follower gave up waiting and ran its own query
+            assertEquals("slow", follower.getUsername());
+            assertEquals("slow", leader.get().getUsername());
+        }
+        verify(userRepository, times(2)).findByEmail("slow@example.com");
+        assertEquals(1.0, lookups("userByEmail", "timed_out"));
+
+        // Execute: an evict while a query runs makes the next lookup start its own
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        User reloaded = user(5L, "changed");
+        when(userRepository.findById(5L))
+                .thenAnswer(invocation -> {
+                    blocked.countDown();
+                    unblock.await();
+                    return Optional.of(user(5L, "before"));
+                })
+                .thenReturn(Optional.of(reloaded));
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<User> stale = executor.submit(() -> userCache.loadUser(UserCache.BY_ID, 5L,
+                    () -> userRepository.findById(5L).orElseThrow()));
+            blocked.await();
+            userCache.evict(5L, "changed", "changed@example.com");
+            User fresh = userCache.loadUser(UserCache.BY_ID, 5L, () -> userRepository.findById(5L).orElseThrow());
+            unblock.countDown();
+
+            // Assertions
+            assertEquals("changed", fresh.getUsername());
+            assertEquals("before", stale.get().getUsername());
+        }
+        verify(userRepository, times(2)).findById(5L);
+    }
+
+    private UserServiceImpl userService(Duration maxWait) {
+        return new UserServiceImpl(userRepository, mock(PasswordEncoder.class), userCache(maxWait),
+                mock(UserChangeRepository.class), mock(PlatformTransactionManager.class),
+                mock(AccountMailService.class), mock(UserExistenceIndex.class));
+    }
+
+    private UserCache userCache(Duration maxWait) {
+        ReplicaProperties noReplicas = new ReplicaProperties(List.of(), null, null, 10, Duration.ofMillis(250),
+                Duration.ofSeconds(1), Duration.ofSeconds(1), "select pg_last_wal_replay_lsn()");
+        return new UserCache(new NoOpCacheManager(), noReplicas, new UserLookupProperties(true, maxWait), meterRegistry);
+    }
+
+    /**
+     * Starts the herd, waits until everyone but the first caller has joined its query, then lets
+     * the query finish.
+     */
+    private <T> List<T> herd(Callable<T> lookup, String lookupName) throws Exception {
+        List<Future<T>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < HERD; i++) {
+                futures.add(executor.submit(lookup));
+            }
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (lookups(lookupName, "shared") < HERD - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+        }
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                fail(e.getCause());
+            }
+        }
+        return results;
+    }
+
+    private double lookups(String lookup, String outcome) {
+        var counter = meterRegistry.find("user.lookups").tag("lookup", lookup).tag("outcome", outcome).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static User user(Long id, String username) {
+        return User.builder()
+                .id(id)
+                .username(username)
+                .email(username + "@example.com")
+                .passwordHash("hash")
+                .role(Role.USER)
+                .status(Status.ACTIVE)
+                .build();
+    }
+}
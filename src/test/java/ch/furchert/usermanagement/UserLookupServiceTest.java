@@ -0,0 +1,154 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.dto.UserView;
+import ch.furchert.usermanagement.entity.Role;
+import ch.furchert.usermanagement.entity.Status;
+import ch.furchert.usermanagement.exception.UserNotFoundException;
+import ch.furchert.usermanagement.grpc.ExceptionStatusInterceptor;
+import ch.furchert.usermanagement.grpc.UserLookupService;
+import ch.furchert.usermanagement.grpc.v1.BatchGetUsersRequest;
+import ch.furchert.usermanagement.grpc.v1.GetUserRequest;
+import ch.furchert.usermanagement.grpc.v1.ListUsersRequest;
+import ch.furchert.usermanagement.grpc.v1.User;
+import ch.furchert.usermanagement.grpc.v1.UserLookupGrpc;
+import ch.furchert.usermanagement.service.UserChangeFeed;
+import ch.furchert.usermanagement.service.UserService;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link UserLookupService} against a mocked {@link UserService}, served in-process. The
+ * in-process transport is ready only while the client has requested messages, which makes flow
+ * control observable.
+ */
+class UserLookupServiceTest {
+
+    private static final int PAGE_SIZE = 2;
+
+    private final UserService userService = mock(UserService.class);
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(ServerInterceptors.intercept(
+                        new UserLookupService(userService, mock(UserChangeFeed.class), PAGE_SIZE),
+                        new ExceptionStatusInterceptor()))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testListUsers_ReadsOnlyWhileClientKeepsUp() throws Exception {
+        // Mock dependencies: an endless table
+        when(userService.getUsers(anyLong(), eq(PAGE_SIZE))).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            return LongStream.rangeClosed(after + 1, after + PAGE_SIZE).mapToObj(UserLookupServiceTest::view).toList();
+        });
+
+        // Execute: take one user, then stop reading
+        BlockingQueue<User> received = new LinkedBlockingQueue<>();
+        ClientCallStreamObserver<?>[] call = new ClientCallStreamObserver<?>[1];
+        UserLookupGrpc.newStub(channel).listUsers(ListUsersRequest.getDefaultInstance(),
+                new ClientResponseObserver<ListUsersRequest, User>() {
+                    @Override
+                    public void beforeStart(ClientCallStreamObserver<ListUsersRequest> requestStream) {
+                        call[0] = requestStream;
+                        requestStream.disableAutoRequestWithInitial(1);
+                    }
+
+                    @Override
+                    public void onNext(User user) {
+                        received.add(user);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                    }
+                });
+        assertEquals(1, received.poll(5, TimeUnit.SECONDS).getId());
+
+        // Assertions: one page was read, the next only once the client asks for more
+        verify(userService, times(1)).getUsers(anyLong(), eq(PAGE_SIZE));
+        call[0].request(3);
+        for (long id = 2; id <= 4; id++) {
+            assertEquals(id, received.poll(5, TimeUnit.SECONDS).getId());
+        }
+        verify(userService, times(2)).getUsers(anyLong(), eq(PAGE_SIZE));
+        call[0].cancel("done", null);
+    }
+
+    @Test
+    void testExceptionsBecomeStatuses() {
+        // Mock dependencies
+        when(userService.getUserView(1L)).thenThrow(new UserNotFoundException(1L));
+        when(userService.getUserView(2L)).thenThrow(new IllegalStateException("boom"));
+        UserLookupGrpc.UserLookupBlockingStub stub = UserLookupGrpc.newBlockingStub(channel);
+
+        // Execute
+        StatusRuntimeException notFound = assertThrows(StatusRuntimeException.class,
+                () -> stub.getUser(GetUserRequest.newBuilder().setId(1).build()));
+        StatusRuntimeException internal = assertThrows(StatusRuntimeException.class,
+                () -> stub.getUser(GetUserRequest.newBuilder().setId(2).build()));
+
+        // Assertions
+        assertEquals(io.grpc.Status.Code.NOT_FOUND, notFound.getStatus().getCode());
+        assertEquals(io.grpc.Status.Code.INTERNAL, internal.getStatus().getCode());
+    }
+
+    @Test
+    void testBatchGetUsers_RejectsInvalidRequests() {
+        UserLookupGrpc.UserLookupBlockingStub stub = UserLookupGrpc.newBlockingStub(channel);
+
+        // Execute
+        StatusRuntimeException none = assertThrows(StatusRuntimeException.class,
+                () -> stub.batchGetUsers(BatchGetUsersRequest.getDefaultInstance()));
+        StatusRuntimeException tooMany = assertThrows(StatusRuntimeException.class,
+                () -> stub.batchGetUsers(BatchGetUsersRequest.newBuilder()
+                        .addAllIds(LongStream.rangeClosed(1, 1001).boxed().toList())
+                        .build()));
+
+        // Assertions
+        assertEquals(io.grpc.Status.Code.INVALID_ARGUMENT, none.getStatus().getCode());
+        assertEquals(io.grpc.Status.Code.RESOURCE_EXHAUSTED, tooMany.getStatus().getCode());
+        verify(userService, never()).lookupUsersByIds(any(), any());
+    }
+
+    private static UserView view(long id) {
+        return new UserView(id, "user" + id, "user" + id + "@example.com",
+                Role.USER, Status.ACTIVE, null, null, null, 0L);
+    }
+}
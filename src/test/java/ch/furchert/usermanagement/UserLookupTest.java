@@ -0,0 +1,83 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.dto.UserView;
+import ch.furchert.usermanagement.dto.request.CreateUserRequest;
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.repository.UserRepository;
+import ch.furchert.usermanagement.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Batch lookups against the embedded PostgreSQL: order, duplicates and missing keys come from the
+ * single {@code unnest ... with ordinality} query itself.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class UserLookupTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testLookupByIdsKeepsOrderAndReportsMissing() {
+        User first = create("lookup_first");
+        User second = create("lookup_second");
+
+        // Execute
+        List<UserView> views = new ArrayList<>();
+        userService.lookupUsersByIds(List.of(second.getId(), -1L, first.getId(), second.getId()), views::add);
+
+        // Assertions
+        assertEquals(Arrays.asList("lookup_second", null, "lookup_first", "lookup_second"), usernames(views));
+        assertEquals(second.getVersion(), views.getFirst().version());
+    }
+
+    @Test
+    void testLookupByUsernamesAndEmails() {
+        create("lookup_alice");
+        create("lookup_bob");
+
+        // Execute
+        List<UserView> byUsername = new ArrayList<>();
+        userService.lookupUsersByUsernames(List.of("lookup_bob", "lookup_nobody", "lookup_alice"), byUsername::add);
+        List<UserView> byEmail = new ArrayList<>();
+        userService.lookupUsersByEmails(List.of("lookup_alice@example.com", "LOOKUP_BOB@example.com"), byEmail::add);
+        List<UserView> none = new ArrayList<>();
+        userService.lookupUsersByIds(List.of(), none::add);
+
+        // Assertions: exact matches only, like the single lookups
+        assertEquals(Arrays.asList("lookup_bob", null, "lookup_alice"), usernames(byUsername));
+        assertEquals(Arrays.asList("lookup_alice", null), usernames(byEmail));
+        assertEquals(List.of(), none);
+    }
+
+    private User create(String username) {
+        CreateUserRequest request = new CreateUserRequest();
+        request.setUsername(username);
+        request.setEmail(username + "@example.com");
+        request.setPassword("password123");
+        return userService.createUser(request);
+    }
+
+    private static List<String> usernames(List<UserView> views) {
+        return views.stream().map(view -> view == null ? null : view.username()).toList();
+    }
+}
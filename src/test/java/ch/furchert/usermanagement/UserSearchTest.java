@@ -0,0 +1,228 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.dto.UserView;
+import ch.furchert.usermanagement.dto.request.UserSearchCriteria;
+import ch.furchert.usermanagement.entity.Role;
+import ch.furchert.usermanagement.entity.Status;
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.repository.UserRepository;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.StringJoiner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Every filter combination is checked twice: for the users it returns, and with PostgreSQL's
+ * {@code EXPLAIN} on the exact SQL Hibernate generated, for the index the planner picks.
+ * <p>
+ * Criteria values are inlined in this context so the captured SQL carries them, which gives the
+ * same plan PostgreSQL would build for the bound values. The table is seeded with a few thousand
+ * analyzed rows; on a handful of rows every plan is a sequential scan.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserSearchTest {
+
+    private static final int FILLER_USERS = 3_000;
+    private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    private static final ThreadLocal<String> LAST_SQL = new ThreadLocal<>();
+
+    @TestConfiguration
+    static class CaptureSql {
+        // Runs after MetricsConfig's customizer and keeps its statement counter in the chain
+        @Bean
+        @Order(Ordered.LOWEST_PRECEDENCE)
+        HibernatePropertiesCustomizer captureSql() {
+            return properties -> {
+                StatementInspector delegate = (StatementInspector) properties.get(AvailableSettings.STATEMENT_INSPECTOR);
+                properties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+                    LAST_SQL.set(sql);
+                    return delegate == null ? sql : delegate.inspect(sql);
+                });
+            };
+        }
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void setUp() {
+        // Other test classes share the embedded database and leave their users behind
+        jdbcTemplate.update("delete from user_account");
+        // Active users, created a minute apart, last logins spread over the 300 days before yesterday
+        jdbcTemplate.update("""
+                insert into user_account (id, username, email, password_hash, role, user_status, created, updated, last_login)
+                select nextval('user_account_seq'), 'user' || n, 'user' || n || '@example.com', 'hash', 'USER', 'ACTIVE',
+                       cast(? as timestamp) - n * interval '1 minute', cast(? as timestamp) - n * interval '1 minute',
+                       cast(? as timestamp) - (n % 300) * interval '1 day'
+                from generate_series(1, ?) n""",
+                Timestamp.from(NOW.minus(1, ChronoUnit.DAYS)), Timestamp.from(NOW.minus(1, ChronoUnit.DAYS)),
+                Timestamp.from(NOW.minus(1, ChronoUnit.DAYS)), FILLER_USERS);
+        save("alice", Role.ADMIN, Status.ACTIVE, NOW.minus(1, ChronoUnit.HOURS));
+        save("bob", Role.USER, Status.BLOCKED, NOW.minus(200, ChronoUnit.DAYS));
+        save("Alfred", Role.USER, Status.ACTIVE, null);
+        save("carol", Role.USER, Status.BLOCKED, NOW.minus(10, ChronoUnit.DAYS));
+        save("al_x", Role.USER, Status.INACTIVE, NOW.minus(100, ChronoUnit.DAYS));
+        jdbcTemplate.execute("analyze user_account");
+    }
+
+    @AfterAll
+    void tearDown() {
+        jdbcTemplate.update("delete from user_account");
+    }
+
+    @Test
+    void testSearch_ByStatus() {
+        UserSearchCriteria criteria = new UserSearchCriteria();
+        criteria.setStatus(Status.BLOCKED);
+
+        assertEquals(List.of("bob", "carol"), usernames(search(criteria, null, 10)));
+        assertPlanUses("idx_user_account_status_id");
+    }
+
+    @Test
+    void testSearch_ByRoleAndStatus() {
+        UserSearchCriteria criteria = new UserSearchCriteria();
+        criteria.setRole(Role.ADMIN);
+        criteria.setStatus(Status.ACTIVE);
+
+        assertEquals(List.of("alice"), usernames(search(criteria, null, 10)));
+        assertPlanUses("idx_user_account_role_id");
+    }
+
+    @Test
+    void testSearch_NotLoggedInFor90Days() {
+        Instant cutoff = NOW.minus(90, ChronoUnit.DAYS);
+        UserSearchCriteria criteria = new UserSearchCriteria();
+        criteria.setLastLoginTo(cutoff);
+
+        List<UserView> page = search(criteria, null, 10);
+        assertEquals(10, page.size());
+        assertTrue(page.stream().allMatch(user -> user.lastLogin().toInstant().isBefore(cutoff)));
+        // Most users match: walking the primary key in page order stops after ten rows, no sort needed
+        assertPlanUses("user_account_pkey");
+    }
+
+    @Test
+    void testSearch_ByLastLoginWindow() {
+        UserSearchCriteria criteria = new UserSearchCriteria();
+        criteria.setLastLoginFrom(NOW.minus(2, ChronoUnit.HOURS));
+
+        assertEquals(List.of("alice"), usernames(search(criteria, null, 10)));
+        assertPlanUses("idx_user_account_last_login");
+    }
+
+    @Test
+    void testSearch_ByCreatedRange() {
+        UserSearchCriteria criteria = new UserSearchCriteria();
+        criteria.setCreatedFrom(NOW.minus(1, ChronoUnit.HOURS));
+
+        assertEquals(List.of("alice", "bob", "Alfred", "carol", "al_x"), usernames(search(criteria, null, 10)));
+        assertPlanUses("idx_user_account_created");
+    }
+
+    @Test
+    void testSearch_ByUsernamePrefixIgnoresCaseAndEscapesWildcards() {
+        UserSearchCriteria criteria = new UserSearchCriteria();
+        criteria.setUsernamePrefix("AL");
+        assertEquals(List.of("alice", "Alfred", "al_x"), usernames(search(criteria, null, 10)));
+        assertPlanUses("idx_user_account_lower_username");
+
+        criteria.setUsernamePrefix("al_");
+        assertEquals(List.of("al_x"), usernames(search(criteria, null, 10)));
+        assertPlanUses("idx_user_account_lower_username");
+    }
+
+    @Test
+    void testSearch_ByEmailPrefix_PagesByKeyset() {
+        UserSearchCriteria criteria = new UserSearchCriteria();
+        criteria.setEmailPrefix("Al");
+
+        List<UserView> first = search(criteria, null, 2);
+        assertPlanUses("idx_user_account_lower_email");
+        List<UserView> second = search(criteria, first.getLast().id(), 2);
+
+        assertEquals(List.of("alice", "Alfred"), usernames(first));
+        assertEquals(List.of("al_x"), usernames(second));
+    }
+
+    @Test
+    void testSearch_ByUpdatedRange_ScansKeyset() {
+        UserSearchCriteria criteria = new UserSearchCriteria();
+        criteria.setUpdatedFrom(NOW.minus(30, ChronoUnit.DAYS));
+
+        assertEquals(10, search(criteria, null, 10).size());
+        // Deliberately unindexed: updated changes on every write, the keyset scan on id is enough for ops queries
+        assertPlanUses("user_account_pkey");
+    }
+
+    private List<UserView> search(UserSearchCriteria criteria, Long after, int limit) {
+        return userRepository.search(criteria, after, limit);
+    }
+
+    /**
+     * Explains the statement Hibernate just ran. Only the page size is still a bind parameter.
+     */
+    private void assertPlanUses(String index) {
+        String sql = LAST_SQL.get();
+        assertNotNull(sql);
+        String plan = jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+                for (int i = 1; i <= statement.getParameterMetaData().getParameterCount(); i++) {
+                    statement.setInt(i, 10);
+                }
+                StringJoiner lines = new StringJoiner("\n");
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        lines.add(resultSet.getString(1));
+                    }
+                }
+                return lines.toString();
+            }
+        });
+        assertTrue(plan.contains(index), () -> "Expected " + index + " in plan of\n" + sql + "\n" + plan);
+    }
+
+    private static List<String> usernames(List<UserView> views) {
+        return views.stream().map(UserView::username).toList();
+    }
+
+    private void save(String username, Role role, Status status, Instant lastLogin) {
+        userRepository.save(User.builder()
+                .username(username)
+                .email(username.toLowerCase() + "@example.com")
+                .passwordHash("hash")
+                .role(role)
+                .status(status)
+                .lastLogin(lastLogin == null ? null : Date.from(lastLogin))
+                .build());
+    }
+}
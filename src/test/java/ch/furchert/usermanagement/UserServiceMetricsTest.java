@@ -0,0 +1,78 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.dto.request.CreateUserRequest;
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.exception.UserNotFoundException;
+import ch.furchert.usermanagement.metrics.UserServiceMetrics;
+import ch.furchert.usermanagement.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.test.context.aot.DisabledInAotMode;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisabledInAotMode // Mockito mocks cannot be created in a native image
+class UserServiceMetricsTest {
+
+    private static UserService instrument(UserService target, MeterRegistry registry) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("meterRegistry", registry);
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.addInterface(UserService.class);
+        proxyFactory.addAdvice(new UserServiceMetrics(beanFactory.getBeanProvider(MeterRegistry.class)));
+        return (UserService) proxyFactory.getProxy();
+    }
+
+    @Test
+    void testInvoke_TimesCallsByOutcome() {
+        // Mock dependencies
+        UserService target = mock(UserService.class);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UserService userService = instrument(target, registry);
+
+        // Mock behavior
+        when(target.getUserById(1L)).thenReturn(User.builder().id(1L).build());
+        when(target.getUserById(2L)).thenThrow(new UserNotFoundException(2L));
+        when(target.createUser(any())).thenThrow(new IllegalArgumentException("Username is already taken"));
+
+        // Execute
+        userService.getUserById(1L);
+        userService.getUserById(1L);
+        assertThrows(UserNotFoundException.class, () -> userService.getUserById(2L));
+        assertThrows(IllegalArgumentException.class, () -> userService.createUser(new CreateUserRequest()));
+
+        // Assertions
+        assertEquals(2, registry.get(UserServiceMetrics.TIMER)
+                .tags("method", "getUserById", "outcome", "success").timer().count());
+        assertEquals(1, registry.get(UserServiceMetrics.TIMER)
+                .tags("method", "getUserById", "outcome", "not_found").timer().count());
+        assertEquals(1, registry.get(UserServiceMetrics.TIMER)
+                .tags("method", "createUser", "outcome", "conflict").timer().count());
+        assertEquals(0, registry.get(UserServiceMetrics.SIGNUPS).counter().count());
+    }
+
+    @Test
+    void testInvoke_CountsSignupsAndResets() {
+        // Mock dependencies
+        UserService target = mock(UserService.class);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UserService userService = instrument(target, registry);
+
+        // Mock behavior
+        when(target.createUser(any())).thenReturn(User.builder().id(1L).build());
+
+        // Execute
+        userService.createUser(new CreateUserRequest());
+        userService.resetPassword(1L, "newPassword");
+        userService.resetPassword(1L, "newerPassword");
+
+        // Assertions
+        assertEquals(1, registry.get(UserServiceMetrics.SIGNUPS).tag("source", "api").counter().count());
+        assertEquals(2, registry.get(UserServiceMetrics.PASSWORD_RESETS).counter().count());
+    }
+}
@@ -1,16 +1,30 @@
 package ch.furchert.usermanagement;
 
+import ch.furchert.usermanagement.cache.UserCache;
+import ch.furchert.usermanagement.cache.UserExistenceIndex;
 import ch.furchert.usermanagement.dto.UserDto;
+import ch.furchert.usermanagement.dto.UserView;
 import ch.furchert.usermanagement.dto.request.CreateUserRequest;
+import ch.furchert.usermanagement.entity.ChangeType;
 import ch.furchert.usermanagement.entity.Role;
 import ch.furchert.usermanagement.entity.Status;
 import ch.furchert.usermanagement.entity.User;
 import ch.furchert.usermanagement.exception.UserNotFoundException;
+import ch.furchert.usermanagement.exception.VersionMismatchException;
+import ch.furchert.usermanagement.repository.UserChangeRepository;
 import ch.furchert.usermanagement.repository.UserRepository;
+import ch.furchert.usermanagement.service.AccountMailService;
 import ch.furchert.usermanagement.service.UserServiceImpl;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.aot.DisabledInAotMode;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.sql.SQLException;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -19,16 +33,31 @@ import static org.mockito.Mockito.*;
 // TestSuite brought to you by ChatGPT hehe
 
 
+@DisabledInAotMode // Mockito mocks cannot be created in a native image
 class UserServiceTest {
 
+    private static UserCache noCache() {
+        return new UserCache(new NoOpCacheManager());
+    }
+
+    private static DataIntegrityViolationException uniqueViolation(String constraintName) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("duplicate key value violates unique constraint",
+                        new SQLException("duplicate key", "23505"), constraintName));
+    }
+
     @Test
     void testCreateUser() {
         // Mock dependencies
         UserRepository userRepository = mock(UserRepository.class);
         PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        UserChangeRepository changeRepository = mock(UserChangeRepository.class);
+        AccountMailService accountMailService = mock(AccountMailService.class);
 
         // Initialize the service
-        UserServiceImpl userService = new UserServiceImpl(userRepository, passwordEncoder);
+        UserServiceImpl userService = new UserServiceImpl(userRepository, passwordEncoder, noCache(),
+                changeRepository, mock(PlatformTransactionManager.class), accountMailService,
+                mock(UserExistenceIndex.class));
 
         // Input data
         CreateUserRequest request = new CreateUserRequest();
@@ -43,14 +72,13 @@ class UserServiceTest {
                 .email("john@example.com")
                 .passwordHash("hashed_password")
                 .role(Role.USER)
-                .status(Status.ACTIVE)
+                .status(Status.UNVERIFIED)
                 .build();
 
         // Mock behavior
-        when(userRepository.existsByUsername("john")).thenReturn(false);
-        when(userRepository.existsByEmail("john@example.com")).thenReturn(false);
         when(passwordEncoder.encode("password123")).thenReturn("hashed_password");
-        when(userRepository.save(any(User.class))).thenReturn(user);
+        when(accountMailService.newAccountStatus()).thenReturn(Status.UNVERIFIED);
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(user);
 
         // Execute the service method
         User result = userService.createUser(request);
@@ -61,13 +89,15 @@ class UserServiceTest {
         assertEquals("john@example.com", result.getEmail());
         assertEquals("hashed_password", result.getPasswordHash());
         assertEquals(Role.USER, result.getRole());
-        assertEquals(Status.ACTIVE, result.getStatus());
+        assertEquals(Status.UNVERIFIED, result.getStatus());
 
-        // Verify interactions
-        verify(userRepository, times(1)).existsByUsername("john");
-        verify(userRepository, times(1)).existsByEmail("john@example.com");
+        // Verify interactions: a single insert, no existence checks
+        verify(userRepository, never()).existsByUsername(anyString());
+        verify(userRepository, never()).existsByEmail(anyString());
         verify(passwordEncoder, times(1)).encode("password123");
-        verify(userRepository, times(1)).save(any(User.class));
+        verify(userRepository, times(1)).saveAndFlush(argThat(saved -> saved.getStatus() == Status.UNVERIFIED));
+        verify(changeRepository, times(1)).append(ChangeType.CREATED, user);
+        verify(accountMailService, times(1)).sendVerification(user);
     }
 
     @Test
@@ -77,7 +107,9 @@ class UserServiceTest {
         PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
 
         // Initialize the service
-        UserServiceImpl userService = new UserServiceImpl(userRepository, passwordEncoder);
+        UserServiceImpl userService = new UserServiceImpl(userRepository, passwordEncoder, noCache(),
+                mock(UserChangeRepository.class), mock(PlatformTransactionManager.class), mock(AccountMailService.class),
+                mock(UserExistenceIndex.class));
 
         // Input data
         CreateUserRequest request = new CreateUserRequest();
@@ -85,8 +117,10 @@ class UserServiceTest {
         request.setEmail("john@example.com");
         request.setPassword("password123");
 
-        // Mock behavior
-        when(userRepository.existsByUsername("john")).thenReturn(true);
+        // Mock behavior: the insert hits the username unique constraint
+        when(passwordEncoder.encode("password123")).thenReturn("hashed_password");
+        when(userRepository.saveAndFlush(any(User.class)))
+                .thenThrow(uniqueViolation(User.USERNAME_CONSTRAINT));
 
         // Execute and assert exception
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
@@ -95,10 +129,9 @@ class UserServiceTest {
         assertEquals("Username is already taken", exception.getMessage());
 
         // Verify interactions
-        verify(userRepository, times(1)).existsByUsername("john");
+        verify(userRepository, times(1)).saveAndFlush(any(User.class));
+        verify(userRepository, never()).existsByUsername(anyString());
         verify(userRepository, never()).existsByEmail(anyString());
-        verify(userRepository, never()).save(any(User.class));
-        verify(passwordEncoder, never()).encode(anyString());
     }
 
     @Test
@@ -108,7 +141,9 @@ class UserServiceTest {
         PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
 
         // Initialize the service
-        UserServiceImpl userService = new UserServiceImpl(userRepository, passwordEncoder);
+        UserServiceImpl userService = new UserServiceImpl(userRepository, passwordEncoder, noCache(),
+                mock(UserChangeRepository.class), mock(PlatformTransactionManager.class), mock(AccountMailService.class),
+                mock(UserExistenceIndex.class));
 
         // Input data
         CreateUserRequest request = new CreateUserRequest();
@@ -116,9 +151,10 @@ class UserServiceTest {
         request.setEmail("john@example.com");
         request.setPassword("password123");
 
-        // Mock behavior
-        when(userRepository.existsByUsername("john")).thenReturn(false);
-        when(userRepository.existsByEmail("john@example.com")).thenReturn(true);
+        // Mock behavior: the insert hits the email unique constraint (as reported by PostgreSQL)
+        when(passwordEncoder.encode("password123")).thenReturn("hashed_password");
+        when(userRepository.saveAndFlush(any(User.class)))
+                .thenThrow(uniqueViolation(User.EMAIL_CONSTRAINT));
 
         // Execute and assert exception
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
@@ -127,10 +163,38 @@ class UserServiceTest {
         assertEquals("Email is already in use", exception.getMessage());
 
         // Verify interactions
-        verify(userRepository, times(1)).existsByUsername("john");
-        verify(userRepository, times(1)).existsByEmail("john@example.com");
-        verify(userRepository, never()).save(any(User.class));
-        verify(passwordEncoder, never()).encode(anyString());
+        verify(userRepository, times(1)).saveAndFlush(any(User.class));
+        verify(userRepository, never()).existsByUsername(anyString());
+        verify(userRepository, never()).existsByEmail(anyString());
+    }
+
+    @Test
+    void testCreateUser_UnknownConstraintFallsBackToLookup() {
+        // Mock dependencies
+        UserRepository userRepository = mock(UserRepository.class);
+        PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+
+        // Initialize the service
+        UserServiceImpl userService = new UserServiceImpl(userRepository, passwordEncoder, noCache(),
+                mock(UserChangeRepository.class), mock(PlatformTransactionManager.class), mock(AccountMailService.class),
+                mock(UserExistenceIndex.class));
+
+        // Input data
+        CreateUserRequest request = new CreateUserRequest();
+        request.setUsername("john");
+        request.setEmail("john@example.com");
+        request.setPassword("password123");
+
+        // Mock behavior: constraint name not reported by the driver
+        when(passwordEncoder.encode("password123")).thenReturn("hashed_password");
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(uniqueViolation(null));
+        when(userRepository.existsByUsername("john")).thenReturn(true);
+
+        // Execute and assert exception
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> userService.createUser(request));
+
+        assertEquals("Username is already taken", exception.getMessage());
     }
 
     @Test
@@ -139,7 +203,9 @@ class UserServiceTest {
         UserRepository userRepository = mock(UserRepository.class);
 
         // Initialize the service
-        UserServiceImpl userService = new UserServiceImpl(userRepository, null);
+        UserServiceImpl userService = new UserServiceImpl(userRepository, null, noCache(),
+                mock(UserChangeRepository.class), mock(PlatformTransactionManager.class), mock(AccountMailService.class),
+                mock(UserExistenceIndex.class));
 
         // Expected user
         User user = User.builder()
@@ -172,7 +238,9 @@ class UserServiceTest {
         UserRepository userRepository = mock(UserRepository.class);
 
         // Initialize the service
-        UserServiceImpl userService = new UserServiceImpl(userRepository, null);
+        UserServiceImpl userService = new UserServiceImpl(userRepository, null, noCache(),
+                mock(UserChangeRepository.class), mock(PlatformTransactionManager.class), mock(AccountMailService.class),
+                mock(UserExistenceIndex.class));
 
         // Mock behavior
         when(userRepository.findById(1L)).thenReturn(Optional.empty());
@@ -181,7 +249,7 @@ class UserServiceTest {
         UserNotFoundException exception = assertThrows(UserNotFoundException.class,
                 () -> userService.getUserById(1L));
 
-        assertEquals("User with ID 1 not found", exception.getMessage());
+        assertEquals("User not found with ID: 1", exception.getMessage());
 
         // Verify interactions
         verify(userRepository, times(1)).findById(1L);
@@ -193,7 +261,9 @@ class UserServiceTest {
         UserRepository userRepository = mock(UserRepository.class);
 
         // Initialize the service
-        UserServiceImpl userService = new UserServiceImpl(userRepository, null);
+        UserServiceImpl userService = new UserServiceImpl(userRepository, null, noCache(),
+                mock(UserChangeRepository.class), mock(PlatformTransactionManager.class), mock(AccountMailService.class),
+                mock(UserExistenceIndex.class));
 
         // Existing user
         User existingUser = User.builder()
@@ -213,11 +283,11 @@ class UserServiceTest {
 
         // Mock behavior
         when(userRepository.findById(1L)).thenReturn(Optional.of(existingUser));
-        when(userRepository.save(any(User.class))).thenAnswer(invocation
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation
                 -> invocation.getArgument(0));
 
         // Execute
-        User updatedUser = userService.updateUser(1L, userDto);
+        User updatedUser = userService.updateUser(1L, userDto, null);
 
         // Assertions
         assertNotNull(updatedUser);
@@ -227,7 +297,48 @@ class UserServiceTest {
 
         // Verify interactions
         verify(userRepository, times(1)).findById(1L);
-        verify(userRepository, times(1)).save(any(User.class));
+        verify(userRepository, times(1)).saveAndFlush(any(User.class));
+    }
+
+    @Test
+    void testUpdateUser_StaleVersionIsRejectedWithoutWriting() {
+        // Mock dependencies
+        UserRepository userRepository = mock(UserRepository.class);
+
+        // Initialize the service
+        UserServiceImpl userService = new UserServiceImpl(userRepository, null, noCache(),
+                mock(UserChangeRepository.class), mock(PlatformTransactionManager.class), mock(AccountMailService.class),
+                mock(UserExistenceIndex.class));
+
+        // Existing user, changed twice since the caller read version 3
+        User existingUser = User.builder()
+                .id(1L)
+                .username("john")
+                .email("john@example.com")
+                .role(Role.USER)
+                .status(Status.ACTIVE)
+                .version(5L)
+                .build();
+
+        UserDto userDto = UserDto.builder()
+                .username("john_updated")
+                .email("john.updated@example.com")
+                .role("ADMIN")
+                .build();
+
+        // Mock behavior
+        when(userRepository.findById(1L)).thenReturn(Optional.of(existingUser));
+
+        // Execute
+        VersionMismatchException exception = assertThrows(VersionMismatchException.class,
+                () -> userService.updateUser(1L, userDto, 3L));
+
+        // Assertions
+        assertEquals(5L, exception.getCurrentVersion());
+        assertEquals("john", existingUser.getUsername());
+
+        // Verify interactions
+        verify(userRepository, never()).saveAndFlush(any(User.class));
     }
 
     @Test
@@ -237,7 +348,9 @@ class UserServiceTest {
         PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
 
         // Initialize the service
-        UserServiceImpl userService = new UserServiceImpl(userRepository, passwordEncoder);
+        UserServiceImpl userService = new UserServiceImpl(userRepository, passwordEncoder, noCache(),
+                mock(UserChangeRepository.class), mock(PlatformTransactionManager.class), mock(AccountMailService.class),
+                mock(UserExistenceIndex.class));
 
         // Existing user
         User existingUser = User.builder()
@@ -260,7 +373,7 @@ class UserServiceTest {
         // Verify interactions
         verify(userRepository, times(1)).findById(1L);
         verify(passwordEncoder, times(1)).encode("new_password");
-        verify(userRepository, times(1)).save(existingUser);
+        verify(userRepository, times(1)).saveAndFlush(existingUser);
     }
 
     @Test
@@ -269,7 +382,9 @@ class UserServiceTest {
         UserRepository userRepository = mock(UserRepository.class);
 
         // Initialize the service
-        UserServiceImpl userService = new UserServiceImpl(userRepository, null);
+        UserServiceImpl userService = new UserServiceImpl(userRepository, null, noCache(),
+                mock(UserChangeRepository.class), mock(PlatformTransactionManager.class), mock(AccountMailService.class),
+                mock(UserExistenceIndex.class));
 
         // Existing user
         User existingUser = User.builder()
@@ -290,4 +405,112 @@ class UserServiceTest {
         verify(userRepository, times(1)).delete(existingUser);
     }
 
+    @Test
+    void testGetUserView_ServedFromCacheAfterFirstLookup() {
+        // Mock dependencies
+        UserRepository userRepository = mock(UserRepository.class);
+        UserCache userCache = new UserCache(new ConcurrentMapCacheManager());
+
+        // Initialize the service
+        UserServiceImpl userService = new UserServiceImpl(userRepository, null, userCache,
+                mock(UserChangeRepository.class), mock(PlatformTransactionManager.class), mock(AccountMailService.class),
+                mock(UserExistenceIndex.class));
+
+        UserView view = new UserView(1L, "john", "john@example.com", Role.USER, Status.ACTIVE, null, null, null, 0L);
+
+        // Mock behavior
+        when(userRepository.findViewById(1L)).thenReturn(Optional.of(view));
+
+        // Execute: by id twice, then by username and email which were populated alongside
+        assertSame(view, userService.getUserView(1L));
+        assertSame(view, userService.getUserView(1L));
+        assertSame(view, userService.getUserViewByUsername("john"));
+        assertSame(view, userService.getUserViewByEmail("john@example.com"));
+
+        // Verify interactions: no entity was loaded
+        verify(userRepository, times(1)).findViewById(1L);
+        verify(userRepository, never()).findViewByUsername(anyString());
+        verify(userRepository, never()).findViewByEmail(anyString());
+        verify(userRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void testUpdateUser_EvictsOldAndNewCacheKeys() {
+        // Mock dependencies
+        UserRepository userRepository = mock(UserRepository.class);
+        UserCache userCache = new UserCache(new ConcurrentMapCacheManager());
+
+        // Initialize the service
+        UserServiceImpl userService = new UserServiceImpl(userRepository, null, userCache,
+                mock(UserChangeRepository.class), mock(PlatformTransactionManager.class), mock(AccountMailService.class),
+                mock(UserExistenceIndex.class));
+
+        UserView cachedView = new UserView(1L, "john", "john@example.com", Role.USER, Status.ACTIVE, null, null, null, 0L);
+        UserView freshView = new UserView(1L, "john_updated", "john.updated@example.com", Role.ADMIN, Status.ACTIVE,
+                null, null, null, 1L);
+        User existingUser = User.builder()
+                .id(1L)
+                .username("john")
+                .email("john@example.com")
+                .role(Role.USER)
+                .build();
+
+        UserDto userDto = UserDto.builder()
+                .username("john_updated")
+                .email("john.updated@example.com")
+                .role("ADMIN")
+                .build();
+
+        // Mock behavior: warm the cache, then update
+        when(userRepository.findViewById(1L)).thenReturn(Optional.of(cachedView)).thenReturn(Optional.of(freshView));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(existingUser));
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userRepository.findViewByUsername("john")).thenReturn(Optional.empty());
+        userService.getUserView(1L);
+
+        // Execute
+        userService.updateUser(1L, userDto, null);
+
+        // Assertions: no stale key survives
+        assertSame(freshView, userService.getUserView(1L));
+        assertThrows(UserNotFoundException.class, () -> userService.getUserViewByUsername("john"));
+
+        // Verify interactions
+        verify(userRepository, times(2)).findViewById(1L);
+        verify(userRepository, times(1)).findViewByUsername("john");
+    }
+
+    @Test
+    void testGetUserView_LoadOverlappingEvictIsNotCached() {
+        // Mock dependencies
+        UserRepository userRepository = mock(UserRepository.class);
+        UserCache userCache = new UserCache(new ConcurrentMapCacheManager());
+
+        // Initialize the service
+        UserServiceImpl userService = new UserServiceImpl(userRepository, null, userCache,
+                mock(UserChangeRepository.class), mock(PlatformTransactionManager.class), mock(AccountMailService.class),
+                mock(UserExistenceIndex.class));
+
+        UserView staleView = new UserView(1L, "john", "john@example.com", Role.USER, Status.ACTIVE, null, null, null, 0L);
+        UserView freshView = new UserView(1L, "john", "john@example.com", Role.USER, Status.BLOCKED, null, null, null, 1L);
+
+        // Mock behavior: a write commits and evicts while the first lookup still holds the old row
+        when(userRepository.findViewById(1L)).thenAnswer(invocation -> {
+            userCache.evict(1L, "john", "john@example.com");
+            return Optional.of(staleView);
+        }).thenReturn(Optional.of(freshView));
+
+        // Execute
+        assertSame(staleView, userService.getUserView(1L));
+
+        // Assertions: the stale view was put under none of its keys
+        assertSame(freshView, userService.getUserView(1L));
+        assertSame(freshView, userService.getUserViewByUsername("john"));
+        assertSame(freshView, userService.getUserView(1L));
+
+        // Verify interactions
+        verify(userRepository, times(2)).findViewById(1L);
+        verify(userRepository, never()).findViewByUsername("john");
+    }
+
 }
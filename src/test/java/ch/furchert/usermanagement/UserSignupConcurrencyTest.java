@@ -0,0 +1,134 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.dto.request.CreateUserRequest;
+import ch.furchert.usermanagement.entity.Role;
+import ch.furchert.usermanagement.entity.Status;
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.repository.UserRepository;
+import ch.furchert.usermanagement.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserSignupConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testConcurrentSignupsForSameUsername_CreateExactlyOneRow() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<String>> signups = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            CreateUserRequest request = UserImportServiceTest.request("racer", "racer" + i + "@example.com");
+            signups.add(() -> {
+                start.await();
+                try {
+                    userService.createUser(request);
+                    return "created";
+                } catch (IllegalArgumentException e) {
+                    return e.getMessage();
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<String>> outcomes = new ArrayList<>();
+            for (Callable<String> signup : signups) {
+                outcomes.add(executor.submit(signup));
+            }
+            start.countDown();
+
+            int created = 0;
+            for (Future<String> outcome : outcomes) {
+                String result = outcome.get();
+                if ("created".equals(result)) {
+                    created++;
+                } else {
+                    assertEquals("Username is already taken", result);
+                }
+            }
+            assertEquals(1, created);
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, userRepository.count());
+    }
+
+    @Test
+    void testDuplicateEmail_ReportsEmailConflict() {
+        userService.createUser(UserImportServiceTest.request("first", "same@example.com"));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> userService.createUser(UserImportServiceTest.request("second", "same@example.com")));
+
+        assertEquals("Email is already in use", exception.getMessage());
+        assertEquals(1, userRepository.count());
+    }
+
+    /**
+     * Compares the former check-then-insert sequence (three round trips) with the
+     * constraint-based insert. Run with {@code mvn test -DexcludedGroups= -Dgroups=benchmark}.
+     */
+    @Tag("benchmark")
+    @Test
+    void compareSignupLatency() {
+        int signups = 2_000;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < signups; i++) {
+            String username = "check" + i;
+            String email = username + "@example.com";
+            if (!userRepository.existsByUsername(username) && !userRepository.existsByEmail(email)) {
+                userRepository.save(User.builder()
+                        .username(username)
+                        .email(email)
+                        .passwordHash(passwordEncoder.encode("password123"))
+                        .role(Role.USER)
+                        .status(Status.ACTIVE)
+                        .build());
+            }
+        }
+        long checkThenInsertNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < signups; i++) {
+            userService.createUser(UserImportServiceTest.request("insert" + i, "insert" + i + "@example.com"));
+        }
+        long insertNanos = System.nanoTime() - start;
+
+        assertEquals(2L * signups, userRepository.count());
+        System.out.printf("check-then-insert: %.1f us/signup%ninsert-and-translate: %.1f us/signup%n",
+                checkThenInsertNanos / 1e3 / signups, insertNanos / 1e3 / signups);
+    }
+}
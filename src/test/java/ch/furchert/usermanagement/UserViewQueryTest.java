@@ -0,0 +1,89 @@
+package ch.furchert.usermanagement;
+
+import ch.furchert.usermanagement.dto.UserView;
+import ch.furchert.usermanagement.entity.Role;
+import ch.furchert.usermanagement.entity.Status;
+import ch.furchert.usermanagement.entity.User;
+import ch.furchert.usermanagement.repository.UserRepository;
+import ch.furchert.usermanagement.service.UserService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserViewQueryTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testReadPaths_LoadNoEntities() {
+        // Existing users
+        User john = save("viewjohn");
+        save("viewjane");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        // Execute
+        UserView byId = userService.getUserView(john.getId());
+        List<UserView> page = userService.getUsers(john.getId() - 1, 10);
+        List<FlushMode> flushModes = new ArrayList<>();
+        List<UserView> streamed = new ArrayList<>();
+        userService.streamUsers(view -> {
+            flushModes.add(entityManager.unwrap(Session.class).getHibernateFlushMode());
+            streamed.add(view);
+        });
+
+        // Assertions: the response columns arrive without hydrating a single entity
+        assertEquals("viewjohn", byId.username());
+        assertEquals("viewjohn@example.com", byId.email());
+        assertEquals(Role.USER, byId.role());
+        assertEquals(Status.ACTIVE, byId.status());
+        assertNotNull(byId.created());
+        assertEquals(List.of("viewjohn", "viewjane"), page.stream().map(UserView::username).toList());
+        assertEquals(2, streamed.size());
+        assertTrue(flushModes.stream().allMatch(FlushMode.MANUAL::equals));
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        statistics.setStatisticsEnabled(false);
+    }
+
+    private User save(String username) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .passwordHash("hash")
+                .role(Role.USER)
+                .status(Status.ACTIVE)
+                .build());
+    }
+}